@@ -1,3 +1,11 @@
+# Usage:
+#   .\run_scan.ps1                        - scan one bank (interactive selection)
+#   .\run_scan.ps1 -Targets targets.json  - scan all banks from the targets file in one run
+
+param(
+    [string]$Targets = ""
+)
+
 # --- Paths / defaults ---
 $JAR = "target\api-security-scanner-1.0-SNAPSHOT.jar"
 
@@ -20,6 +28,16 @@ if (Test-Path "scanner.env") {
     }
 }
 
+if ($Targets -and -not (Test-Path $Targets)) {
+    Write-Error "ERROR: targets file not found: $Targets"
+    exit 1
+}
+
+if ($Targets) {
+    Write-Host "`n=== MULTI-BANK SCAN ===" -ForegroundColor Green
+    Write-Host "Targets file: $Targets"
+} else {
+
 # --- Bank selection ---
 Write-Host "`n=== BANK SELECTION ===" -ForegroundColor Green
 Write-Host "1 - Virtual Bank (vbank)"
@@ -71,6 +89,8 @@ Write-Host "Bank: $env:SELECTED_BANK"
 Write-Host "OpenAPI: $OPENAPI"
 Write-Host "Base URL: $BASEURL"
 
+}
+
 # --- If CLIENT_ID or CLIENT_SECRET missing, prompt ---
 if (-not $env:CLIENT_ID) {
     Write-Host "`n=== AUTHENTICATION ===" -ForegroundColor Green
@@ -164,6 +184,17 @@ INTERBANK_CLIENT=$env:INTERBANK_CLIENT
     Write-Host "INTERBANK_CLIENT: $env:INTERBANK_CLIENT"
 }
 
+# --- Multi-bank scan: each bank gets its own token from CLIENT_ID / CLIENT_SECRET ---
+if ($Targets) {
+    Write-Host "`n=== STARTING SCANNER ===" -ForegroundColor Green
+    java -jar "$JAR" --targets $Targets --client-id $env:CLIENT_ID --client-secret $env:CLIENT_SECRET --requesting-bank $env:CLIENT_ID --client $env:INTERBANK_CLIENT --create-consent true
+    $scanExit = $LASTEXITCODE
+
+    Write-Host "`n=== COMPLETED ===" -ForegroundColor Green
+    Write-Host "Reports saved to folders: reports\<bank>\, combined summary: reports\MultiBank-Summary-*.json"
+    exit $scanExit
+}
+
 # --- Obtain BANK_TOKEN if not set ---
 if (-not $env:BANK_TOKEN) {
     Write-Host "`n=== GETTING TOKEN ===" -ForegroundColor Green
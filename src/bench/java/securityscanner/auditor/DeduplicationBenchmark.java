@@ -0,0 +1,38 @@
+package securityscanner.auditor;
+
+import org.openjdk.jmh.annotations.*;
+import securityscanner.bench.SyntheticSpec;
+import securityscanner.core.model.Finding;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк удаления дубликатов findings перед генерацией отчета.
+ * Находится в пакете auditor, т.к. removeDuplicateFindings доступен только внутри пакета.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeduplicationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int paths;
+
+    private APISecurityAuditor auditor;
+    private List<Finding> findings;
+
+    @Setup
+    public void setup() {
+        auditor = new APISecurityAuditor(false);
+        findings = SyntheticSpec.findings(paths);
+    }
+
+    @Benchmark
+    public List<Finding> removeDuplicateFindings() {
+        return auditor.removeDuplicateFindings(findings);
+    }
+}
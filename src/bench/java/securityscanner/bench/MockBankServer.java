@@ -0,0 +1,337 @@
+package securityscanner.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import securityscanner.parser.OpenAPIParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Встроенный mock сервер банковского API для нагрузочных бенчмарков без доступа к стендам.
+ *
+ * Отвечает по той же OpenAPI спецификации, которую загружает сканер: тела ответов
+ * генерируются из схем ответов (массивы - заданного размера). Отдельно реализованы
+ * /auth/bank-token и /account-consents/* (согласие сразу одобрено), чтобы полный
+ * {@code APISecurityAuditor.run()} проходил без ручных шагов.
+ *
+ * Настраиваются задержка ответа, доля ответов 429 (с Retry-After) и размер массивов в ответах.
+ * Случайность задается seed, поэтому прогоны воспроизводимы.
+ */
+public class MockBankServer implements AutoCloseable {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final int MAX_DEPTH = 8;
+
+    private final OpenAPIParser parser = new OpenAPIParser();
+
+    private int port;                 // 0 - свободный порт
+    private int threads = 32;
+    private long latencyMillis;       // Базовая задержка ответа
+    private long jitterMillis;        // Случайная добавка к задержке
+    private double throttleRatio;     // Доля ответов 429
+    private int retryAfterSeconds = 1;
+    private int listItems = 10;       // Размер массивов в ответах
+    private long seed = 42;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private Random random;
+    private final Map<String, String> consents = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    /**
+     * @param openapiLocation путь или URL к спецификации (та же, что передается сканеру)
+     */
+    public MockBankServer(String openapiLocation) throws Exception {
+        parser.getOpenApiRoot(openapiLocation);
+    }
+
+    // Методы установки конфигурации (до start)
+    public void setPort(int port) { this.port = port; }
+    public void setThreads(int threads) { this.threads = Math.max(1, threads); }
+    public void setLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+    }
+    public void setThrottle(double ratio, int retryAfterSeconds) {
+        this.throttleRatio = Math.max(0, Math.min(1, ratio));
+        this.retryAfterSeconds = Math.max(0, retryAfterSeconds);
+    }
+    public void setListItems(int listItems) { this.listItems = Math.max(0, listItems); }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    /**
+     * Запускает сервер на localhost
+     * @return базовый URL сервера
+     */
+    public String start() throws IOException {
+        random = new Random(seed);
+        // Без TCP_NODELAY заголовки и тело уходят разными пакетами и ловят задержку ACK (~40 мс)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "mock-bank-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return baseUrl();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long requests() { return requests.get(); }
+    public long throttled() { return throttled.get(); }
+
+    @Override
+    public void close() {
+        if (server != null) server.stop(0);
+        if (executor != null) executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            requests.incrementAndGet();
+            drain(ex.getRequestBody());
+            sleepLatency();
+
+            if (shouldThrottle()) {
+                throttled.incrementAndGet();
+                ex.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+                send(ex, 429, error("rate_limited", "Too many requests"));
+                return;
+            }
+
+            String method = ex.getRequestMethod().toUpperCase(Locale.ROOT);
+            String path = ex.getRequestURI().getPath();
+
+            if (path.equals("/auth/bank-token")) {
+                ObjectNode token = OM.createObjectNode();
+                token.put("access_token", "mock-token-" + ids.incrementAndGet());
+                token.put("token_type", "bearer");
+                token.put("expires_in", 86400);
+                send(ex, 200, token);
+                return;
+            }
+
+            if (!hasBearer(ex)) {
+                send(ex, 401, error("unauthorized", "Authentication required"));
+                return;
+            }
+
+            if (path.startsWith("/account-consents")) {
+                handleConsent(ex, method, path);
+                return;
+            }
+
+            handleSpecPath(ex, method, path);
+        } catch (RuntimeException e) {
+            send(ex, 500, error("internal_error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Согласия: создание сразу в статусе approved, чтобы сканер не ждал подтверждения
+     */
+    private void handleConsent(HttpExchange ex, String method, String path) throws IOException {
+        if ("POST".equals(method) && path.equals("/account-consents/request")) {
+            String id = "consent-" + ids.incrementAndGet();
+            consents.put(id, "approved");
+            ObjectNode resp = OM.createObjectNode();
+            resp.put("consent_id", id);
+            resp.put("status", "approved");
+            send(ex, 201, resp);
+            return;
+        }
+        String id = path.substring(path.lastIndexOf('/') + 1);
+        String status = consents.get(id);
+        if ("GET".equals(method) && status != null) {
+            ObjectNode resp = OM.createObjectNode();
+            ObjectNode data = resp.putObject("data");
+            data.put("consentId", id);
+            data.put("status", status);
+            send(ex, 200, resp);
+            return;
+        }
+        send(ex, 404, error("not_found", "Consent not found"));
+    }
+
+    /**
+     * Пути спецификации: тело ответа генерируется по схеме первого успешного ответа операции
+     */
+    private void handleSpecPath(HttpExchange ex, String method, String path) throws IOException {
+        for (int status : new int[]{200, 201, 202, 204}) {
+            JsonNode schema = parser.findResponseSchema(method, path, status, "application/json");
+            if (schema != null) {
+                send(ex, status, sample(schema, 0));
+                return;
+            }
+        }
+        // Счета нужны большинству плагинов, даже если их нет в спецификации
+        if ("GET".equals(method) && path.equals("/accounts")) {
+            send(ex, 200, accounts());
+            return;
+        }
+        send(ex, 404, error("not_found", "Resource not found"));
+    }
+
+    private ObjectNode accounts() {
+        ObjectNode resp = OM.createObjectNode();
+        ArrayNode list = resp.putObject("data").putArray("account");
+        for (int i = 0; i < listItems; i++) {
+            ObjectNode a = list.addObject();
+            a.put("accountId", "acc-" + i);
+            a.put("status", "Enabled");
+            a.put("currency", "RUB");
+            a.put("accountType", "Personal");
+        }
+        return resp;
+    }
+
+    /**
+     * Генерирует значение, соответствующее схеме (схемы уже без $ref - парсер их разрешил)
+     */
+    private JsonNode sample(JsonNode schema, int depth) {
+        JsonNodeFactory f = JsonNodeFactory.instance;
+        if (schema == null || depth > MAX_DEPTH) return f.nullNode();
+        if (schema.has("example")) return schema.get("example");
+        if (schema.path("enum").isArray() && schema.path("enum").size() > 0) return schema.path("enum").get(0);
+        for (String combinator : new String[]{"allOf", "oneOf", "anyOf"}) {
+            JsonNode variants = schema.path(combinator);
+            if (variants.isArray() && variants.size() > 0) {
+                if (!"allOf".equals(combinator)) return sample(variants.get(0), depth + 1);
+                ObjectNode merged = f.objectNode();
+                for (JsonNode v : variants) {
+                    JsonNode part = sample(v, depth + 1);
+                    if (part.isObject()) merged.setAll((ObjectNode) part);
+                }
+                return merged;
+            }
+        }
+
+        String type = schema.path("type").asText(schema.has("properties") ? "object" : "");
+        switch (type) {
+            case "object": {
+                ObjectNode obj = f.objectNode();
+                Iterator<Map.Entry<String, JsonNode>> it = schema.path("properties").fields();
+                while (it.hasNext()) {
+                    Map.Entry<String, JsonNode> e = it.next();
+                    obj.set(e.getKey(), sample(e.getValue(), depth + 1));
+                }
+                return obj;
+            }
+            case "array": {
+                ArrayNode arr = f.arrayNode();
+                for (int i = 0; i < listItems; i++) arr.add(sample(schema.path("items"), depth + 1));
+                return arr;
+            }
+            case "integer": return f.numberNode(1);
+            case "number": return f.numberNode(100.5);
+            case "boolean": return f.booleanNode(true);
+            case "string": return f.textNode(sampleString(schema.path("format").asText("")));
+            default: return f.objectNode();
+        }
+    }
+
+    private static String sampleString(String format) {
+        switch (format) {
+            case "date-time": return "2024-01-01T00:00:00Z";
+            case "date": return "2024-01-01";
+            case "uuid": return "00000000-0000-0000-0000-000000000001";
+            case "email": return "client@example.com";
+            default: return "string";
+        }
+    }
+
+    private boolean hasBearer(HttpExchange ex) {
+        String auth = ex.getRequestHeaders().getFirst("Authorization");
+        return auth != null && auth.startsWith("Bearer ") && auth.length() > "Bearer ".length();
+    }
+
+    private boolean shouldThrottle() {
+        if (throttleRatio <= 0) return false;
+        synchronized (random) {
+            return random.nextDouble() < throttleRatio;
+        }
+    }
+
+    private void sleepLatency() {
+        long delay = latencyMillis;
+        if (jitterMillis > 0) {
+            synchronized (random) {
+                delay += (long) (random.nextDouble() * jitterMillis);
+            }
+        }
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ObjectNode error(String code, String message) {
+        ObjectNode e = OM.createObjectNode();
+        e.put("error", code);
+        e.put("message", message);
+        return e;
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buf = new byte[8192];
+        while (in.read(buf) >= 0) {
+            // тело запроса не используется
+        }
+    }
+
+    private static void send(HttpExchange ex, int status, JsonNode body) throws IOException {
+        byte[] bytes = OM.writeValueAsBytes(body);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Запуск сервера отдельно от бенчмарков, например для ручного прогона сканера:
+     * --openapi spec.json [--port 8080] [--latency 20] [--jitter 10] [--throttle 0.05] [--items 50]
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> p = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) p.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+
+        String openapi = p.get("openapi");
+        if (openapi == null) {
+            openapi = SyntheticSpec.writeTemp(SyntheticSpec.build(Integer.parseInt(p.getOrDefault("paths", "100")))).toString();
+        }
+        MockBankServer server = new MockBankServer(openapi);
+        server.setPort(Integer.parseInt(p.getOrDefault("port", "8080")));
+        server.setLatency(Long.parseLong(p.getOrDefault("latency", "0")), Long.parseLong(p.getOrDefault("jitter", "0")));
+        server.setThrottle(Double.parseDouble(p.getOrDefault("throttle", "0")), Integer.parseInt(p.getOrDefault("retry-after", "1")));
+        server.setListItems(Integer.parseInt(p.getOrDefault("items", "10")));
+        System.out.println("Mock bank API: " + server.start() + " (spec: " + openapi + ")");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,57 @@
+package securityscanner.bench;
+
+import org.openjdk.jmh.annotations.*;
+import securityscanner.core.model.Finding;
+import securityscanner.report.ReportWriter;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Бенчмарк генерации JSON и PDF отчетов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int paths;
+
+    private Path dir;
+    private ReportWriter writer;
+    private List<Finding> findings;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("bench-reports-");
+        writer = new ReportWriter();
+        writer.setReportsDir(dir.toString());
+        findings = SyntheticSpec.findings(paths);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public File writeJson() throws Exception {
+        return writer.writeJson("Virtual Bank API Security Report", "openapi.json", "https://vbank.open.bankingapi.ru", findings);
+    }
+
+    @Benchmark
+    public File writePdf() throws Exception {
+        return writer.writePdf("Virtual Bank API Security Report", "openapi.json", "https://vbank.open.bankingapi.ru", findings);
+    }
+}
@@ -0,0 +1,72 @@
+package securityscanner.bench;
+
+import org.openjdk.jmh.annotations.*;
+import securityscanner.auditor.APISecurityAuditor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сквозной бенчмарк полного сканирования {@code APISecurityAuditor.run()} против MockBankServer.
+ * Каждый замер - один полный прогон сканера с заданной параллельностью.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({"10", "100"})
+    public int paths;
+
+    @Param({"1", "4", "16"})
+    public int concurrency;
+
+    @Param({"0", "20"})
+    public long latencyMillis;
+
+    @Param({"0"})
+    public double throttleRatio;
+
+    private MockBankServer server;
+    private String specLocation;
+    private Path reportsDir;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        specLocation = SyntheticSpec.writeTemp(SyntheticSpec.build(paths)).toString();
+        reportsDir = Files.createTempDirectory("bench-scan-reports-");
+        server = new MockBankServer(specLocation);
+        server.setLatency(latencyMillis, latencyMillis / 2);
+        server.setThrottle(throttleRatio, 1);
+        server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("Mock server: " + server.requests() + " requests, " + server.throttled() + " throttled");
+        server.close();
+    }
+
+    @Benchmark
+    public void fullScan() throws Exception {
+        APISecurityAuditor auditor = new APISecurityAuditor(false);
+        auditor.setOpenapiLocation(specLocation);
+        auditor.setBaseUrl(server.baseUrl());
+        auditor.setClientId("team184");
+        auditor.setClientSecret("mock-secret");
+        auditor.setRequestingBank("team184");
+        auditor.setInterbankClientId("team184-1");
+        auditor.setCreateConsent(true);
+        auditor.setConcurrency(concurrency);
+        auditor.setMaxPerHost(concurrency);
+        // Ограничитель частоты не должен быть узким местом, если сервер не отвечает 429
+        auditor.setRateLimit(1000, 1000);
+        auditor.setConsentPollMillis(0);
+        auditor.setReportsDir(reportsDir.toString());
+        auditor.run();
+    }
+}
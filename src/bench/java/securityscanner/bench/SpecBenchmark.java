@@ -0,0 +1,96 @@
+package securityscanner.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+import securityscanner.generator.ScenarioGenerator;
+import securityscanner.generator.SchemaFuzzer;
+import securityscanner.parser.OpenAPIParser;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки работы со спецификацией: загрузка, поиск схемы ответа, генерация сценариев
+ * и fuzz тел запросов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int paths;
+
+    private Path specFile;
+    private OpenAPIParser parser;
+    private JsonNode root;
+    private String[] templates;
+    private String[] concretePaths;
+    private int next;
+    private SchemaFuzzer fuzzer;
+    private JsonNode fuzzSchema;
+    private JsonNode fuzzBody;
+
+    @Setup
+    public void setup() throws Exception {
+        specFile = SyntheticSpec.writeTemp(SyntheticSpec.build(paths));
+        parser = new OpenAPIParser();
+        root = parser.getOpenApiRoot(specFile.toString());
+
+        templates = new String[paths];
+        concretePaths = new String[paths];
+        int i = 0;
+        for (var it = root.path("paths").fieldNames(); it.hasNext(); i++) {
+            templates[i] = it.next();
+            concretePaths[i] = templates[i].replace("{id}", "acc-" + i);
+        }
+
+        fuzzer = new SchemaFuzzer(SchemaFuzzer.DEFAULT_SEED);
+        for (ScenarioGenerator.Scenario s : new ScenarioGenerator().generate(root, "team184", "team184-1")) {
+            if ("POST".equals(s.method) && s.body != null) {
+                fuzzSchema = root.path("paths").path(s.path).path("post").path("requestBody")
+                        .path("content").path("application/json").path("schema");
+                fuzzBody = s.body;
+                break;
+            }
+        }
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = (i + 1) % paths;
+        return i;
+    }
+
+    @Benchmark
+    public JsonNode loadSpec() throws Exception {
+        return new OpenAPIParser().getOpenApiRoot(specFile.toString());
+    }
+
+    @Benchmark
+    public JsonNode resolveResponseSchemaFromRoot() {
+        return parser.resolveResponseSchemaFromRoot(root, templates[nextIndex()], 200, "application/json");
+    }
+
+    @Benchmark
+    public JsonNode findResponseSchemaConcretePath() {
+        return parser.findResponseSchema("GET", concretePaths[nextIndex()], 200, "application/json; charset=utf-8");
+    }
+
+    /**
+     * 32 fuzz тела для одной операции (seed зависит от операции)
+     */
+    @Benchmark
+    public List<SchemaFuzzer.Case> fuzzOperation() {
+        return fuzzer.cases("POST " + templates[nextIndex()], fuzzSchema, fuzzBody, 32);
+    }
+
+    @Benchmark
+    public List<ScenarioGenerator.Scenario> generateScenarios() {
+        return new ScenarioGenerator().generate(root, "team184", "team184-1");
+    }
+}
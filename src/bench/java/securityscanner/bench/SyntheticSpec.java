@@ -0,0 +1,132 @@
+package securityscanner.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import securityscanner.core.model.Finding;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Синтетические OpenAPI спецификации и данные для бенчмарков.
+ * Структура похожа на банковские API: ресурсы со списком и элементом по {id},
+ * схемы ответов через $ref на components.
+ */
+public final class SyntheticSpec {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    private SyntheticSpec() {}
+
+    /**
+     * Строит спецификацию с заданным числом путей
+     * @param paths количество путей (половина - шаблоны с {id})
+     */
+    public static ObjectNode build(int paths) {
+        ObjectNode root = OM.createObjectNode();
+        root.put("openapi", "3.0.1");
+        root.putObject("info").put("title", "Synthetic Bank API").put("version", "1.0");
+        root.putArray("servers").addObject().put("url", "http://localhost:8080");
+
+        ObjectNode schemas = root.putObject("components").putObject("schemas");
+        ObjectNode pathsNode = root.putObject("paths");
+        for (int i = 0; i < paths; i++) {
+            String resource = "resource" + (i / 2);
+            String name = "Resource" + (i / 2);
+            if (!schemas.has(name)) schemas.set(name, resourceSchema());
+
+            boolean item = i % 2 == 1;
+            String path = item ? "/" + resource + "/{id}" : "/" + resource;
+            ObjectNode pathItem = pathsNode.putObject(path);
+
+            ObjectNode get = pathItem.putObject("get");
+            ObjectNode ok = get.putObject("responses").putObject("200")
+                    .putObject("content").putObject("application/json");
+            if (item) {
+                ok.putObject("schema").put("$ref", "#/components/schemas/" + name);
+            } else {
+                ObjectNode list = ok.putObject("schema");
+                list.put("type", "object");
+                list.putArray("required").add("data");
+                ObjectNode data = list.putObject("properties").putObject("data");
+                data.put("type", "array");
+                data.putObject("items").put("$ref", "#/components/schemas/" + name);
+
+                ObjectNode post = pathItem.putObject("post");
+                post.putObject("requestBody").putObject("content").putObject("application/json")
+                        .putObject("schema").put("$ref", "#/components/schemas/" + name);
+                post.putObject("responses").putObject("201").putObject("content")
+                        .putObject("application/json").putObject("schema")
+                        .put("$ref", "#/components/schemas/" + name);
+            }
+        }
+        return root;
+    }
+
+    private static ObjectNode resourceSchema() {
+        ObjectNode s = OM.createObjectNode();
+        s.put("type", "object");
+        ArrayNode required = s.putArray("required");
+        required.add("id").add("amount").add("currency");
+        ObjectNode props = s.putObject("properties");
+        props.putObject("id").put("type", "string");
+        props.putObject("amount").put("type", "string").put("pattern", "^-?\\d+(\\.\\d{1,2})?$");
+        props.putObject("currency").put("type", "string").putArray("enum").add("RUB").add("USD").add("EUR");
+        props.putObject("status").put("type", "string");
+        props.putObject("createdAt").put("type", "string").put("format", "date-time");
+        return s;
+    }
+
+    /**
+     * Сохраняет спецификацию во временный файл (парсер загружает спецификацию по пути)
+     */
+    public static Path writeTemp(JsonNode spec) throws Exception {
+        Path file = Files.createTempFile("synthetic-openapi-", ".json");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, OM.writeValueAsString(spec));
+        return file;
+    }
+
+    /**
+     * Тело ответа списка ресурсов, соответствующее схеме
+     * @param items количество элементов
+     */
+    public static String listBody(int items) {
+        StringBuilder sb = new StringBuilder("{\"data\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":\"acc-").append(i).append("\",\"amount\":\"").append(i).append(".50\",")
+              .append("\"currency\":\"RUB\",\"status\":\"Enabled\",\"createdAt\":\"2024-01-01T00:00:00Z\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * Набор findings с дубликатами, похожий на результат реального сканирования
+     * @param paths количество путей
+     */
+    public static List<Finding> findings(int paths) {
+        Random rnd = new Random(42);
+        Finding.Severity[] severities = Finding.Severity.values();
+        String[] headers = {"X-Frame-Options", "Content-Security-Policy", "Strict-Transport-Security"};
+        List<Finding> out = new ArrayList<>();
+        for (int i = 0; i < paths * 8; i++) {
+            String endpoint = "/resource" + rnd.nextInt(Math.max(1, paths / 2));
+            Finding.Severity severity = severities[rnd.nextInt(severities.length)];
+            if (i % 5 == 0) {
+                out.add(Finding.of(endpoint, "GET", 200, "API8:SecurityMisconfig", severity,
+                        "Missing security header: " + headers[rnd.nextInt(headers.length)], "", "Добавьте заголовок"));
+            } else {
+                out.add(Finding.of(endpoint, i % 2 == 0 ? "GET" : "POST", 200 + rnd.nextInt(4) * 100,
+                        "ContractMismatch", severity, "Нарушения схемы: required; ", listBody(3),
+                        "Исправьте структуру ответа согласно OpenAPI спецификации"));
+            }
+        }
+        return out;
+    }
+}
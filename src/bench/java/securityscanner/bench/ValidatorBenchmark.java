@@ -0,0 +1,71 @@
+package securityscanner.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import okhttp3.*;
+import org.openjdk.jmh.annotations.*;
+import securityscanner.core.ResponseValidator;
+import securityscanner.core.model.Finding;
+import securityscanner.parser.OpenAPIParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк валидации ответов по схеме из спецификации.
+ * Ответы перебираются по кругу по всем путям, как при реальном сканировании.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    @Param({"10", "100", "1000"})
+    public int paths;
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private ResponseValidator validator;
+    private final List<String> endpoints = new ArrayList<>();
+    private final List<JsonNode> schemas = new ArrayList<>();
+    private final List<String> bodies = new ArrayList<>();
+    private Request request;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        OpenAPIParser parser = new OpenAPIParser();
+        JsonNode root = parser.getOpenApiRoot(SyntheticSpec.writeTemp(SyntheticSpec.build(paths)).toString());
+        validator = new ResponseValidator();
+
+        String list = SyntheticSpec.listBody(items);
+        String item = "{\"id\":\"acc-1\",\"amount\":\"10.00\",\"currency\":\"RUB\",\"status\":\"Enabled\"}";
+        for (var it = root.path("paths").fieldNames(); it.hasNext(); ) {
+            String path = it.next();
+            endpoints.add(path);
+            schemas.add(parser.findResponseSchema("GET", path, 200, "application/json"));
+            bodies.add(path.endsWith("{id}") ? item : list);
+        }
+        request = new Request.Builder().url("http://localhost/").build();
+    }
+
+    @Benchmark
+    public List<Finding> validateContract() {
+        int i = next;
+        next = (i + 1) % endpoints.size();
+        Response r = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200).message("OK")
+                .header("Content-Type", "application/json")
+                .body(ResponseBody.create(bodies.get(i), JSON))
+                .build();
+        return validator.validateContract(endpoints.get(i), "GET", r, schemas.get(i));
+    }
+}
@@ -5,13 +5,37 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.*;
 import securityscanner.core.*;
 import securityscanner.core.model.Finding;
+import securityscanner.generator.CoverageScheduler;
 import securityscanner.generator.ScenarioGenerator;
+import securityscanner.generator.ScenarioPruner;
+import securityscanner.generator.SchemaFuzzer;
+import securityscanner.http.AdaptiveRateLimiter;
+import securityscanner.http.BoundedBody;
+import securityscanner.http.HttpClientFactory;
+import securityscanner.http.ProbeDispatcher;
+import securityscanner.http.ResponseCache;
+import securityscanner.http.ScanBudget;
+import securityscanner.http.SingleFlight;
+import securityscanner.journal.ScanBaseline;
+import securityscanner.journal.ScanJournal;
+import securityscanner.metrics.MetricsTag;
+import securityscanner.metrics.PluginProfile;
+import securityscanner.metrics.PluginProfiler;
 import securityscanner.parser.OpenAPIParser;
+import securityscanner.parser.OperationFingerprints;
+import securityscanner.queue.QueueCoordinator;
+import securityscanner.queue.QueueWorker;
+import securityscanner.queue.WorkQueue;
 import securityscanner.report.ReportWriter;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 /**
  * Главный класс аудитора безопасности API.
@@ -21,15 +45,30 @@ public class APISecurityAuditor {
 
     private final boolean verbose;
     private final ObjectMapper om = new ObjectMapper();
-    private final OkHttpClient http = new OkHttpClient.Builder()
-            .callTimeout(Duration.ofSeconds(30))
-            .readTimeout(Duration.ofSeconds(30))
-            .build();
+    // Общий ограничитель частоты: действует на сценарии, пробы и RequestExecutor плагинов
+    private final AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter();
+    private HttpClientFactory httpFactory; // Общий пул соединений сканера
+    private ResponseCache responseCache;   // Кэш ответов на GET запросы анализа (--response-cache), иначе null
+    private SingleFlight singleFlight = new SingleFlight(); // Объединение одинаковых одновременных запросов, null - выключено
+    private OkHttpClient http;             // Клиент на базе общего пула с ограничителем частоты
+    private OpenAPIParser parser;
+    private PluginProfiler profiler;       // Профили плагинов (создается перед запуском плагинов)
+    private ScanJournal journal;           // Журнал выполненной работы для --resume
+    private OperationFingerprints fingerprints; // Отпечатки операций спецификации
+    private ScanBaseline previousBaseline; // Результаты прошлого сканирования (--incremental), иначе null
+    private ScanBaseline baseline;         // Результаты текущего сканирования для следующего запуска
 
-    private final List<Finding> findings = new ArrayList<>();
+    // Общий список findings: пополняется из нескольких потоков при параллельном выполнении сценариев
+    private final List<Finding> findings = Collections.synchronizedList(new ArrayList<>());
     private final ResponseValidator validator = new ResponseValidator();
     private final ReportWriter reportWriter = new ReportWriter();
 
+    // Доли остатка бюджета по этапам: сценарии, плагины, затем пробы общих путей (весь остаток)
+    private static final double SCENARIO_BUDGET_SHARE = 0.6;
+    private static final double PLUGIN_BUDGET_SHARE = 0.9;
+
+    private static final String INPUT_VALIDATION = "API8:InputValidation";
+
     // Конфигурационные параметры сканирования
     private String openapiLocation;
     private String baseUrl;
@@ -40,10 +79,30 @@ public class APISecurityAuditor {
     private String interbankClientId; // client_id для межбанковских запросов
     private boolean createConsent;
     private List<String> extraHeaders = List.of();
+    private int concurrency = 1; // Количество одновременно выполняемых сценариев
+    private boolean virtualThreads;  // Выполнять пробы плагинов в виртуальных потоках (Java 21+)
+    private int maxPerHost = 4;      // Лимит одновременных запросов проб к одному хосту
+    private int poolSize = 16;       // Размер пула простаивающих соединений
+    private long keepAliveSeconds = 300;
+    private boolean preferHttp2 = true;
+    private long consentPollMillis = 5000; // Интервал проверки статуса согласия
+    private String resumeScanId;           // Продолжить прерванное сканирование (--resume)
+    private boolean incremental;           // Повторять только работу по измененным операциям
+    private boolean pruneScenarios;        // Негативные сценарии только для представителей классов операций
+    private int fuzzBudget;                // fuzz сценариев на операцию с телом запроса, 0 - выключено
+    private long fuzzSeed = SchemaFuzzer.DEFAULT_SEED;
+    private boolean coverageScheduling;    // Порядок сценариев по новизне ответов (--schedule coverage)
+    private CoverageScheduler coverage;    // Планировщик на время выполнения сценариев, иначе null
+    private ScanBudget budget = new ScanBudget(0, 0); // Предельное время и число запросов (по умолчанию без ограничений)
+    private String workQueueDir;           // Каталог очереди распределенного сканирования (--queue-dir), иначе null
+    private int shardSize = 20;            // Сценариев в шарде очереди
+    private int localQueueWorkers = 1;     // Исполнители очереди в процессе координатора
+    private long shardTimeoutSeconds = 600; // Захваченный шард без результата возвращается в очередь
+    private QueueCoordinator workQueue;    // Очередь на время выполнения сценариев и плагинов, иначе null
 
-    // Механизм адаптивных задержек для избежания rate limiting
-    private int lastStatusCode = 200;
-    private int consecutive429s = 0;
+    // Результаты сканирования (заполняются при формировании отчетов)
+    private List<Finding> reportedFindings = List.of();
+    private List<java.io.File> reportFiles = List.of();
 
     public APISecurityAuditor(boolean verbose) { this.verbose = verbose; }
 
@@ -57,6 +116,44 @@ public class APISecurityAuditor {
     public void setInterbankClientId(String interbankClientId) { this.interbankClientId = interbankClientId; }
     public void setCreateConsent(boolean createConsent) { this.createConsent = createConsent; }
     public void setExtraHeaders(List<String> extraHeaders) { this.extraHeaders = extraHeaders != null ? extraHeaders : List.of(); }
+    public void setConcurrency(int concurrency) { this.concurrency = Math.max(1, concurrency); }
+    public void setVirtualThreads(boolean virtualThreads) { this.virtualThreads = virtualThreads; }
+    public void setMaxPerHost(int maxPerHost) { this.maxPerHost = Math.max(1, maxPerHost); }
+    public void setRateLimit(double initialRate, double maxRate) { rateLimiter.configure(initialRate, maxRate); }
+    public void setConnectionPool(int poolSize, long keepAliveSeconds, boolean preferHttp2) {
+        this.poolSize = poolSize;
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.preferHttp2 = preferHttp2;
+    }
+    public void setHttpClientFactory(HttpClientFactory httpFactory) { this.httpFactory = httpFactory; }
+    public void setConsentPollMillis(long consentPollMillis) { this.consentPollMillis = Math.max(0, consentPollMillis); }
+    public void setReportsDir(String reportsDir) { reportWriter.setReportsDir(reportsDir); }
+    public void setResumeScanId(String resumeScanId) { this.resumeScanId = resumeScanId; }
+    public void setIncremental(boolean incremental) { this.incremental = incremental; }
+    public void setPruneScenarios(boolean pruneScenarios) { this.pruneScenarios = pruneScenarios; }
+    public void setCoverageScheduling(boolean coverageScheduling) { this.coverageScheduling = coverageScheduling; }
+    public void setScanBudget(long maxRequests, long timeBudgetSeconds) { this.budget = new ScanBudget(maxRequests, timeBudgetSeconds); }
+    public void setFuzzing(int budgetPerOperation, long seed) {
+        this.fuzzBudget = Math.max(0, budgetPerOperation);
+        this.fuzzSeed = seed;
+    }
+    public void setCoalesceRequests(boolean coalesce) { this.singleFlight = coalesce ? new SingleFlight() : null; }
+    public void setWorkQueue(String dir, int shardSize, int localWorkers, long shardTimeoutSeconds) {
+        this.workQueueDir = dir != null && !dir.isBlank() ? dir : null;
+        this.shardSize = Math.max(1, shardSize);
+        this.localQueueWorkers = Math.max(0, localWorkers);
+        this.shardTimeoutSeconds = Math.max(1, shardTimeoutSeconds);
+    }
+    public void setResponseCache(long ttlSeconds, int maxEntries) {
+        this.responseCache = ttlSeconds > 0 ? new ResponseCache(ttlSeconds, maxEntries) : null;
+    }
+
+    /** @return базовый URL API (после определения из спецификации) */
+    public String getBaseUrl() { return baseUrl; }
+    /** @return findings отчета без дубликатов; пусто, если отчеты не сформированы */
+    public List<Finding> getReportedFindings() { return reportedFindings; }
+    /** @return файлы отчетов и метрик сканирования */
+    public List<java.io.File> getReportFiles() { return reportFiles; }
 
     private void log(String s) { if (verbose) System.out.println(s); }
 
@@ -66,7 +163,6 @@ public class APISecurityAuditor {
     private String ensureBaseUrlFromOpenAPI(String current) throws Exception {
         if (current != null && !current.isBlank()) return current.replaceAll("/+$", "");
         if (openapiLocation == null || openapiLocation.isBlank()) return "";
-        OpenAPIParser parser = new OpenAPIParser();
         String fromSpec = parser.extractFirstServerUrl(openapiLocation);
         if (fromSpec == null || fromSpec.isBlank()) return "";
         return fromSpec.replaceAll("/+$", "");
@@ -185,7 +281,8 @@ public class APISecurityAuditor {
         body.put("reason", "Security scanning and penetration testing");
         body.put("requesting_bank", requestingBank);
         body.put("requesting_bank_name", "Security Scanner Team " + requestingBank);
-        body.put("valid_until", java.time.LocalDateTime.now().plusHours(1).format(java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        java.time.LocalDateTime validUntil = java.time.LocalDateTime.now().plusHours(1);
+        body.put("valid_until", validUntil.format(java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME));
 
         String json = om.writeValueAsString(body);
         String url = baseUrl + "/account-consents/request";
@@ -212,6 +309,8 @@ public class APISecurityAuditor {
                 
                 if (consentId != null && !consentId.isBlank()) {
                     System.out.println("Consent created successfully: " + consentId);
+                    journal.recordConsent(consentId, "pending",
+                            validUntil.atZone(java.time.ZoneId.systemDefault()).toInstant());
                     findings.add(Finding.of("/account-consents/request", "POST", r.code(),
                             "ConsentManagement", Finding.Severity.INFO, 
                             "Consent created for security testing: " + consentId, 
@@ -274,14 +373,15 @@ public class APISecurityAuditor {
         System.out.println("Таймаут: 300 секунд");
         System.out.println("Для отмены нажмите Ctrl+C");
 
-        int maxAttempts = 60; // 60 попыток * 5 секунд = 300 секунд
+        // 300 секунд при интервале по умолчанию (5 секунд)
+        int maxAttempts = (int) Math.max(1, 300_000 / Math.max(1, consentPollMillis));
         int attempt = 0;
 
         while (attempt < maxAttempts) {
             attempt++;
             
             try {
-                Thread.sleep(5000); // Проверяем каждые 5 секунд
+                Thread.sleep(consentPollMillis); // По умолчанию проверяем каждые 5 секунд
             } catch (InterruptedException e) {
                 System.out.println("Ожидание прервано пользователем");
                 return false;
@@ -292,8 +392,8 @@ public class APISecurityAuditor {
                 return true;
             }
 
-            if (attempt % 6 == 0) { // Каждые 30 секунд
-                System.out.println("Ожидание... прошло " + (attempt * 5) + " секунд");
+            if (attempt % 6 == 0) { // Каждые 30 секунд при интервале по умолчанию
+                System.out.println("Ожидание... прошло " + (attempt * consentPollMillis / 1000) + " секунд");
             }
         }
 
@@ -405,62 +505,25 @@ public class APISecurityAuditor {
         }
     }
 
-    private void validateAndRecord(String endpoint, String method, Response r, JsonNode expectedSchema) throws Exception {
-        String body = r.body()!=null? r.body().string() : "";
-        Response re = r.newBuilder()
-                .body(ResponseBody.create(body, MediaType.parse(r.header("Content-Type", "application/json"))))
-                .build();
-        findings.addAll(validator.validateContract(endpoint, method, re, expectedSchema));
-    }
-
-    /**
-     * Адаптивная система задержек для избежания rate limiting
-     * Увеличивает задержки при получении 429 ошибок
-     */
-    private void adaptiveDelay() {
-        try {
-            long baseDelay = 2000;
-            long delay;
-            
-            if (lastStatusCode == 429) {
-                consecutive429s++;
-                delay = baseDelay + (consecutive429s * 3000);
-                System.out.println("Rate limit detected, increasing delay to " + delay + "ms");
-                
-                if (consecutive429s >= 3) {
-                    System.out.println("Multiple rate limits, pausing for 30 seconds");
-                    Thread.sleep(30000);
-                    consecutive429s = 0;
-                    return;
-                }
-            } else if (lastStatusCode >= 500) {
-                delay = baseDelay + 2000;
-                System.out.println("Server error, increasing delay to " + delay + "ms");
-            } else {
-                consecutive429s = 0;
-                delay = baseDelay + new Random().nextInt(2000);
-            }
-            
-            delay = Math.min(delay, 15000);
-            Thread.sleep(delay);
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            System.out.println("Sleep interrupted");
-        }
+    private BoundedBody validateAndRecord(String endpoint, String method, Response r, JsonNode expectedSchema, List<Finding> out) throws Exception {
+        BoundedBody body = BoundedBody.readJson(r);
+        out.addAll(validator.validateContract(endpoint, method, r.code(), r.header("Content-Type", ""), body, expectedSchema));
+        return body;
     }
 
     /**
      * Выполняет один тестовый сценарий
+     * @param behaviours сюда добавляются сигнатуры поведения ответа для {@link CoverageScheduler}
+     * @return true если ответ получен (сценарий завершен и может быть записан в журнал)
      */
-    private void runScenario(ScenarioGenerator.Scenario s, String token, String consentId, JsonNode openapiRoot, OpenAPIParser parser) throws Exception {
-        adaptiveDelay();
-        
+    private boolean runScenario(ScenarioGenerator.Scenario s, String token, String consentId, JsonNode openapiRoot, OpenAPIParser parser,
+                             List<Finding> out, List<String> behaviours) throws Exception {
         HttpUrl.Builder ub = Objects.requireNonNull(HttpUrl.parse(baseUrl + s.path)).newBuilder();
         s.query.forEach(ub::addQueryParameter);
         String url = ub.build().toString();
 
-        Request.Builder rb = new Request.Builder().url(url);
+        Request.Builder rb = new Request.Builder().url(url).tag(MetricsTag.class, new MetricsTag("scenario", s.path))
+                .tag(ResponseCache.Reuse.class, ResponseCache.REUSE);
         if (token != null && !token.isBlank()) rb.addHeader("Authorization", "Bearer " + token);
         s.headers.forEach(rb::addHeader);
         
@@ -483,11 +546,10 @@ public class APISecurityAuditor {
 
         try (Response r = http.newCall(rb.build()).execute()) {
             int code = r.code();
-            this.lastStatusCode = code;
             System.out.println(s.path + " ["+s.method+"/"+s.label+"] -> " + code);
             
             if (code == 403 && consentId == null && s.path.contains("/accounts")) {
-                findings.add(Finding.of(s.path, s.method, code, "AccessControl",
+                out.add(Finding.of(s.path, s.method, code, "AccessControl",
                         Finding.Severity.INFO, 
                         "Expected 403 without consent", 
                         "",
@@ -497,51 +559,144 @@ public class APISecurityAuditor {
             String ct = r.header("Content-Type","application/json");
             JsonNode schema = null;
             try {
-                schema = parser.resolveResponseSchemaFromRoot(openapiRoot, s.path, r.code(), ct);
+                schema = parser.findResponseSchema(s.method, s.path, r.code(), ct);
             } catch (Exception ignore) {
             }
-            validateAndRecord(s.path, s.method, r, schema);
+            BoundedBody body = validateAndRecord(s.path, s.method, r, schema, out);
+            if (s.fuzz != null) checkFuzzResponse(s, code, out);
+            behaviours.addAll(CoverageScheduler.behaviours(code, body.json()));
+            return true;
+        } catch (ScanBudget.ExhaustedException e) {
+            budget.skip(ScanBudget.SCENARIO, scenarioItem(s), e.getMessage());
+            return false;
         } catch (Exception e) {
             System.err.println("ERROR executing scenario " + s.path + ": " + e.getMessage());
-            findings.add(Finding.of(s.path, s.method, 0, "ExecutionError",
+            out.add(Finding.of(s.path, s.method, 0, "ExecutionError",
                     Finding.Severity.LOW, 
                     "Scenario execution failed: " + e.getMessage(), 
                     "",
                     "Проверьте доступность эндпоинта и корректность параметров запроса"));
+            return false;
         }
     }
 
+    /**
+     * Оценивает ответ на fuzz тело: ошибка сервера - признак необработанного ввода,
+     * успешный ответ на тело, нарушающее схему, - отсутствие валидации
+     */
+    private void checkFuzzResponse(ScenarioGenerator.Scenario s, int code, List<Finding> out) throws Exception {
+        String body = om.writeValueAsString(s.body);
+        String evidence = "Request body: " + (body.length() > 300 ? body.substring(0, 300) + "..." : body);
+        if (code >= 500) {
+            out.add(Finding.of(s.path, s.method, code, INPUT_VALIDATION,
+                    Finding.Severity.MEDIUM,
+                    "Server error on fuzzed input: " + s.fuzz,
+                    evidence,
+                    "Проверяйте входные данные до обработки и отвечайте 400/422 на некорректный запрос"));
+        } else if (s.expectRejected && code >= 200 && code < 300) {
+            out.add(Finding.of(s.path, s.method, code, INPUT_VALIDATION,
+                    Finding.Severity.LOW,
+                    "Schema-invalid input accepted: " + s.fuzz,
+                    evidence,
+                    "Валидируйте тело запроса по схеме OpenAPI"));
+        }
+    }
+
+    /**
+     * Создает HTTP клиента сканера на базе общего пула соединений.
+     * Ограничитель частоты подключается к производному клиенту, поэтому у каждого
+     * аудитора он свой, а пул и Dispatcher общие. Кэш ответов (если включен) и объединение
+     * одинаковых запросов стоят перед ограничителем частоты и бюджетом сканирования, чтобы
+     * ответы без обращения к сети не расходовали токены и бюджет.
+     */
+    private void initHttp() {
+        if (httpFactory == null) {
+            httpFactory = new HttpClientFactory(poolSize, keepAliveSeconds, maxPerHost, preferHttp2);
+        }
+        System.out.println("HTTP client: " + httpFactory.describe());
+        OkHttpClient.Builder builder = httpFactory.client().newBuilder();
+        if (responseCache != null) builder.addInterceptor(responseCache);
+        if (singleFlight != null) builder.addInterceptor(singleFlight);
+        if (budget.isLimited()) builder.addInterceptor(budget);
+        http = builder.addInterceptor(rateLimiter).build();
+        // Спецификация загружается без ограничителя частоты, но через общий пул
+        parser = new OpenAPIParser(httpFactory.client());
+    }
+
     /**
      * Главный метод запуска сканирования
      */
     public void run() throws Exception {
+        budget.start();
+        initHttp();
         this.baseUrl = ensureBaseUrlFromOpenAPI(this.baseUrl);
         if (baseUrl == null || baseUrl.isBlank())
             throw new IllegalStateException("Base URL is empty. Provide --base-url or a spec with servers[].url");
         System.out.println("Resolved base-url: " + baseUrl);
 
-        // Шаг 1: Получаем токен
+        journal = openJournal();
+        try {
+            scan();
+            journal.recordFinished();
+        } finally {
+            journal.close();
+        }
+    }
+
+    /**
+     * Открывает журнал сканирования: новый или журнал прерванного сканирования (--resume)
+     */
+    private ScanJournal openJournal() throws Exception {
+        java.nio.file.Path dir = Paths.get(reportWriter.getReportsDir(), "journal");
+        if (resumeScanId != null && !resumeScanId.isBlank()) {
+            ScanJournal j = ScanJournal.resume(dir, resumeScanId, openapiLocation, baseUrl, scenarioSettings());
+            System.out.println("Resuming scan " + j.scanId() + ": " + j.completedCount() + " completed items in journal");
+            return j;
+        }
+        ScanJournal j = ScanJournal.create(dir, openapiLocation, baseUrl, scenarioSettings());
+        System.out.println("Scan id: " + j.scanId() + " (continue an interrupted scan with --resume " + j.scanId() + ")");
+        return j;
+    }
+
+    private void scan() throws Exception {
+        // Шаг 1: Получаем токен (токен из прерванного сканирования мог истечь - получаем заново)
         String token = resolveAccessToken();
         
-        OpenAPIParser parser = new OpenAPIParser();
         JsonNode openapiRoot = parser.getOpenApiRoot(openapiLocation);
+        System.out.println(parser.refSummary());
+        prepareBaseline(openapiRoot);
 
-        // Шаг 2: Создаем consent - это обязательное требование
-        System.out.println("Creating consent for client: " + interbankClientId);
-        String consentId = createConsentIfNeeded(token);
+        // Шаг 2: Создаем consent - это обязательное требование.
+        // При продолжении сканирования используем согласие из журнала, если оно еще действует
+        String consentId = null;
+        boolean consentApproved = false;
+        if (journal.consentId() != null) {
+            consentId = journal.consentId();
+            consentApproved = resumeConsent(token, consentId);
+            if (!consentApproved && journal.isConsentApproved()) {
+                System.out.println("Consent from interrupted scan is no longer active, creating a new one");
+                consentId = null;
+            }
+        }
+        if (consentId == null) {
+            System.out.println("Creating consent for client: " + interbankClientId);
+            consentId = createConsentIfNeeded(token);
+            if (consentId != null) {
+                // Consent создался - токен точно валиден
+                System.out.println("Token validation: PASSED (consent created successfully: " + consentId + ")");
+
+                // Ожидаем подтверждения согласия пользователем
+                consentApproved = waitForConsentApproval(token, consentId);
+            }
+        }
 
         // Шаг 3: Проверяем результат создания consent
         if (consentId != null) {
-            // Consent создался - токен точно валиден
-            System.out.println("Token validation: PASSED (consent created successfully: " + consentId + ")");
-            
-            // Ожидаем подтверждения согласия пользователем
-            boolean consentApproved = waitForConsentApproval(token, consentId);
-            
             if (consentApproved) {
+                journal.recordConsent(consentId, "approved", null);
                 System.out.println("Using active consent: " + consentId);
                 // Запускаем полное сканирование с consent
-                runSecurityScan(token, consentId, parser, openapiRoot);
+                if (runSecurityScan(token, consentId, parser, openapiRoot)) saveBaseline();
                 // Генерируем отчет после успешного сканирования
                 generateReports(consentId);
             } else {
@@ -582,51 +737,395 @@ public class APISecurityAuditor {
     }
 
     /**
-     * Выполняет основное сканирование безопасности
+     * Рассчитывает отпечатки операций спецификации и загружает результаты прошлого
+     * сканирования этого API (--incremental). Прошлые результаты не используются, если
+     * изменились общие части спецификации (servers, security) или параметры клиента.
      */
-    private void runSecurityScan(String token, String consentId, OpenAPIParser parser, JsonNode openapiRoot) throws Exception {
+    private void prepareBaseline(JsonNode openapiRoot) {
+        fingerprints = OperationFingerprints.compute(openapiRoot);
+        String context = fingerprints.global() + "|" + requestingBank + "|" + interbankClientId + scenarioSettings();
+        baseline = ScanBaseline.create(baseUrl, openapiLocation, context);
+        if (!incremental) return;
+
+        ScanBaseline previous = ScanBaseline.load(baselineFile());
+        if (previous == null) {
+            System.out.println("Incremental scan: no previous results for " + baseUrl + ", running full scan");
+        } else if (!context.equals(previous.context)) {
+            System.out.println("Incremental scan: servers/security or client changed since " + previous.updatedAt
+                    + ", running full scan");
+        } else {
+            previousBaseline = previous;
+            System.out.println("Incremental scan against results of " + previous.updatedAt + ": "
+                    + fingerprints.describeChanges(previous.operationFingerprints()));
+        }
+    }
+
+    /**
+     * Параметры, от которых зависит набор сценариев (пусто для параметров по умолчанию)
+     */
+    private String scenarioSettings() {
+        return (pruneScenarios ? "|pruned" : "") + (fuzzBudget > 0 ? "|fuzz=" + fuzzBudget + "/" + fuzzSeed : "");
+    }
+
+    private java.nio.file.Path baselineFile() {
+        return ScanBaseline.fileFor(Paths.get(reportWriter.getReportsDir(), "baseline"), baseUrl);
+    }
+
+    /**
+     * Findings неизмененной работы из прошлого сканирования
+     * @return findings или null если работу нужно выполнить
+     */
+    private List<Finding> fromBaseline(String kind, String key, String fingerprint) {
+        return previousBaseline != null ? previousBaseline.reuse(kind, key, fingerprint) : null;
+    }
+
+    /**
+     * Сохраняет отпечатки и результаты завершенного сканирования для следующего --incremental
+     */
+    private void saveBaseline() {
         try {
-            ScenarioGenerator gen = new ScenarioGenerator();
-            List<ScenarioGenerator.Scenario> scenarios = gen.generate(openapiRoot, requestingBank, interbankClientId);
-            System.out.println("Generated " + scenarios.size() + " test scenarios");
-            
-            for (ScenarioGenerator.Scenario s : scenarios) {
-                if ("DELETE".equals(s.method)) continue;
-                try { 
-                    runScenario(s, token, consentId, openapiRoot, parser); 
-                } catch (Exception ex) {
-                    findings.add(Finding.of(s.path, s.method, 0, "RunnerError",
-                            Finding.Severity.LOW, 
-                            "Scenario failed: " + ex.getMessage(), 
-                            "",
-                            "Проверьте корректность сценария тестирования"));
+            baseline.save(baselineFile());
+        } catch (Exception e) {
+            System.err.println("Failed to save scan baseline: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Проверяет согласие из журнала прерванного сканирования. Одобренное и действующее
+     * согласие используется повторно; если сканирование было прервано во время ожидания
+     * подтверждения, ожидание продолжается для того же согласия.
+     */
+    private boolean resumeConsent(String token, String consentId) throws Exception {
+        System.out.println("Checking consent from interrupted scan: " + consentId);
+        if (checkConsentStatus(token, consentId)) {
+            System.out.println("Reusing consent: " + consentId);
+            findings.add(Finding.of("/account-consents/" + consentId, "GET", 200,
+                    "ConsentManagement", Finding.Severity.INFO,
+                    "Consent reused from interrupted scan " + journal.scanId() + ": " + consentId,
+                    "Client: " + interbankClientId,
+                    "Убедитесь, что consent имеет ограниченное время жизни и необходимые разрешения"));
+            return true;
+        }
+        if (journal.isConsentApproved()) return false;
+        System.out.println("Resuming wait for consent approval: " + consentId);
+        return waitForConsentApproval(token, consentId);
+    }
+
+    /**
+     * Выполняет сценарии на общем пуле из {@code concurrency} потоков.
+     * Сценарии берутся из ленивого потока генератора по мере выполнения: одновременно
+     * ожидают результата не больше {@link #scenarioWindow()} сценариев, поэтому запросы
+     * начинают отправляться сразу, а память не растет с размером спецификации.
+     * Каждый сценарий пишет findings в собственный список, а итоговые списки
+     * добавляются в общий результат в порядке выдачи сценариев (генератором или
+     * {@link CoverageScheduler}), поэтому порядок findings не зависит от порядка
+     * завершения запросов.
+     * Сценарии, завершенные в прерванном сканировании, не выполняются повторно;
+     * в инкрементальном режиме не выполняются сценарии неизмененных операций.
+     * Когда бюджет этапа исчерпан, оставшиеся сценарии пропускаются и перечисляются в отчете;
+     * при порядке по покрытию это сценарии с наименьшим приоритетом.
+     */
+    private void runScenarios(ExecutorService pool, Iterator<ScenarioGenerator.Scenario> it, String token, String consentId,
+                              JsonNode openapiRoot, OpenAPIParser parser) throws Exception {
+        int window = scenarioWindow();
+        System.out.println("Executing scenarios with concurrency " + concurrency + " (up to " + window + " in flight)");
+        Deque<PendingScenario> inFlight = new ArrayDeque<>();
+        Map<String, List<Finding>> byOp = new LinkedHashMap<>();
+        Set<String> reusedOps = new HashSet<>();
+        Set<String> failedOps = ConcurrentHashMap.newKeySet();
+        Map<String, Integer> occurrences = new HashMap<>();
+        int total = 0, resumed = 0, unchanged = 0, overBudgetCount = 0;
+        while (it.hasNext()) {
+            ScenarioGenerator.Scenario s = it.next();
+            total++;
+            if ("DELETE".equals(s.method)) continue;
+            String op = s.method + " " + s.path;
+            List<Finding> cached = fromBaseline(ScanBaseline.OPERATION, op, fingerprints.of(s.method, s.path));
+            if (cached != null) {
+                // findings операции из прошлого сканирования добавляются один раз, на месте ее первого сценария
+                if (reusedOps.add(op)) inFlight.add(new PendingScenario(op, CompletableFuture.completedFuture(cached)));
+                unchanged++;
+            } else {
+                String key = scenarioKey(s, occurrences);
+                List<Finding> done = journal.completed(ScanJournal.SCENARIO, key);
+                String overBudget = done == null ? budget.phaseExhaustedReason() : null;
+                if (done != null) {
+                    inFlight.add(new PendingScenario(op, CompletableFuture.completedFuture(done)));
+                    resumed++;
+                } else if (overBudget != null) {
+                    // Операция с пропущенными сценариями не попадает в результаты для --incremental
+                    budget.skip(ScanBudget.SCENARIO, scenarioItem(s), overBudget);
+                    failedOps.add(op);
+                    overBudgetCount++;
+                } else if (workQueue != null) {
+                    inFlight.add(new PendingScenario(op, workQueue.submit(WorkQueue.Task.scenario(key, s))
+                            .thenApply(r -> recordScenario(s, op, r, failedOps))));
+                } else {
+                    inFlight.add(new PendingScenario(op, pool.submit(() -> recordScenario(s, op,
+                            executeScenario(key, s, token, consentId, openapiRoot, parser), failedOps))));
                 }
             }
+            while (inFlight.size() > window) collectScenario(inFlight.poll(), byOp, failedOps);
+        }
+        while (!inFlight.isEmpty()) collectScenario(inFlight.poll(), byOp, failedOps);
 
-            PluginRegistry reg = new PluginRegistry().registerAll();
+        System.out.println("Scenario generation finished: " + total + " test scenarios");
+        if (resumed > 0) System.out.println("Skipped " + resumed + " scenarios completed in interrupted scan");
+        if (overBudgetCount > 0) System.out.println("Skipped " + overBudgetCount + " scenarios over scan budget");
+        if (unchanged > 0) System.out.println("Skipped " + unchanged + " scenarios of operations unchanged since last scan");
+
+        // Операции с незавершенными сценариями в следующий раз выполняются заново
+        byOp.forEach((op, out) -> {
+            if (failedOps.contains(op)) return;
+            String[] parts = op.split(" ", 2);
+            baseline.record(ScanBaseline.OPERATION, op, fingerprints.of(parts[0], parts[1]), out);
+        });
+    }
+
+    /**
+     * Сколько сценариев может ожидать результата одновременно: с запасом на загрузку
+     * всех потоков, а при распределенном сканировании - на несколько шардов очереди
+     */
+    private int scenarioWindow() {
+        return workQueue != null ? shardSize * Math.max(4, localQueueWorkers * 2) : Math.max(16, concurrency * 4);
+    }
+
+    /**
+     * Ожидает результат первого из выполняемых сценариев и добавляет его findings
+     */
+    private void collectScenario(PendingScenario p, Map<String, List<Finding>> byOp, Set<String> failedOps)
+            throws Exception {
+        // Незаполненный шард иначе не будет опубликован, пока не наберется новых сценариев
+        if (workQueue != null && !p.result.isDone()) workQueue.flush();
+        try {
+            List<Finding> out = p.result.get();
+            findings.addAll(out);
+            byOp.computeIfAbsent(p.op, k -> new ArrayList<>()).addAll(out);
+        } catch (ExecutionException e) {
+            // runScenario сам перехватывает ошибки, сюда попадаем только при сбое пула
+            System.err.println("Scenario worker failed: " + e.getCause());
+            failedOps.add(p.op);
+        }
+    }
+
+    /**
+     * Сценарий, ожидающий результата, и его операция
+     */
+    private static final class PendingScenario {
+        final String op;
+        final Future<List<Finding>> result;
+
+        PendingScenario(String op, Future<List<Finding>> result) {
+            this.op = op;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Выполняет сценарий (локально или в исполнителе очереди) и превращает его ошибку в finding
+     */
+    private WorkQueue.TaskResult executeScenario(String key, ScenarioGenerator.Scenario s, String token, String consentId,
+                                                 JsonNode openapiRoot, OpenAPIParser parser) {
+        List<Finding> out = new ArrayList<>();
+        List<String> behaviours = new ArrayList<>();
+        boolean completed = false;
+        try {
+            completed = runScenario(s, token, consentId, openapiRoot, parser, out, behaviours);
+        } catch (Exception ex) {
+            out.add(Finding.of(s.path, s.method, 0, "RunnerError",
+                    Finding.Severity.LOW,
+                    "Scenario failed: " + ex.getMessage(),
+                    "",
+                    "Проверьте корректность сценария тестирования"));
+        }
+        WorkQueue.TaskResult r = new WorkQueue.TaskResult(key, completed, out);
+        r.behaviours = behaviours;
+        return r;
+    }
+
+    /**
+     * Записывает завершенный сценарий в журнал; операция с незавершенным сценарием отмечается как сбойная
+     */
+    private List<Finding> recordScenario(ScenarioGenerator.Scenario s, String op, WorkQueue.TaskResult r, Set<String> failedOps) {
+        if (coverage != null) coverage.observe(s, r.behaviours);
+        if (r.completed) {
+            journal.recordCompleted(ScanJournal.SCENARIO, r.key, r.findings);
+        } else {
+            failedOps.add(op);
+        }
+        return r.findings;
+    }
+
+    /**
+     * Ключ сценария в журнале: метод, путь, тип сценария и мутация fuzz с номером повторения
+     */
+    private static String scenarioKey(ScenarioGenerator.Scenario s, Map<String, Integer> occurrences) {
+        String base = s.method + " " + s.path + " " + s.label + (s.fuzz != null ? " " + s.fuzz : "");
+        int n = occurrences.merge(base, 1, Integer::sum);
+        return n == 1 ? base : base + " #" + n;
+    }
+
+    /**
+     * Описание сценария в списке пропущенной работы
+     */
+    private static String scenarioItem(ScenarioGenerator.Scenario s) {
+        return s.method + " " + s.path + " " + s.label + (s.fuzz != null ? " (" + s.fuzz + ")" : "");
+    }
+
+    /**
+     * Выполняет один плагин и превращает его ошибку в finding.
+     * Успешно завершенный плагин записывается в журнал; при продолжении сканирования
+     * его findings берутся из журнала.
+     */
+    private List<Finding> runPlugin(SecurityPlugin p, ExecutionContext ctx) {
+        String fingerprint = fingerprints.forTargets(p.targetPaths());
+        List<Finding> cached = fromBaseline(ScanBaseline.PLUGIN, p.id(), fingerprint);
+        if (cached != null) {
+            System.out.println(p.title() + " skipped (target operations unchanged since last scan)");
+            baseline.record(ScanBaseline.PLUGIN, p.id(), fingerprint, cached);
+            return cached;
+        }
+        List<Finding> done = journal.completed(ScanJournal.PLUGIN, p.id());
+        if (done != null) {
+            System.out.println(p.title() + " completed (from journal)");
+            baseline.record(ScanBaseline.PLUGIN, p.id(), fingerprint, done);
+            return done;
+        }
+        String overBudget = budget.phaseExhaustedReason();
+        if (overBudget != null) {
+            System.out.println(p.title() + " skipped: " + overBudget);
+            budget.skip(ScanBudget.PLUGIN, p.id(), overBudget);
+            budget.release();
+            return List.of();
+        }
+        budget.allocate(p.id());
+        WorkQueue.Task task = WorkQueue.Task.plugin(p.id());
+        WorkQueue.TaskResult r = workQueue != null ? awaitQueuedPlugin(p, task) : executePlugin(task.key, p, ctx);
+        long denied = budget.deniedFor(p.id());
+        if (denied > 0) {
+            // Плагин выполнен частично: findings об отказанных запросах - не проблемы API
+            budget.skip(ScanBudget.PLUGIN, p.id(), "partially executed, " + denied + " requests over budget");
+            r.findings.removeIf(f -> ScanBudget.isBudgetMessage(f.message));
+            return r.findings;
+        }
+        if (r.completed) {
+            journal.recordCompleted(ScanJournal.PLUGIN, p.id(), r.findings);
+            baseline.record(ScanBaseline.PLUGIN, p.id(), fingerprint, r.findings);
+        }
+        return r.findings;
+    }
+
+    /**
+     * @return число плагинов, которые будут выполнены: findings остальных берутся из baseline
+     *         или журнала, и бюджет этапа делится только между выполняемыми
+     */
+    private int pluginsToExecute(List<SecurityPlugin> plugins) {
+        int n = 0;
+        for (SecurityPlugin p : plugins) {
+            String fingerprint = fingerprints.forTargets(p.targetPaths());
+            if (fromBaseline(ScanBaseline.PLUGIN, p.id(), fingerprint) == null
+                    && journal.completed(ScanJournal.PLUGIN, p.id()) == null) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Выполняет плагин под профилировщиком (локально или в исполнителе очереди)
+     */
+    private WorkQueue.TaskResult executePlugin(String key, SecurityPlugin p, ExecutionContext ctx) {
+        try {
+            List<Finding> pf = profiler.profile(p.id(), p.title(), () -> p.run(ctx.forPlugin(p.id())));
+            System.out.println(p.title() + " completed");
+            return new WorkQueue.TaskResult(key, true, pf != null ? pf : List.of());
+        } catch (Exception ex) {
+            System.out.println(p.title() + " failed: " + ex.getMessage());
+            return new WorkQueue.TaskResult(key, false, List.of(pluginError(p.id(), ex.getMessage())));
+        }
+    }
+
+    /**
+     * Публикует плагин отдельным шардом и ждет его результата. Планирование (зависимости,
+     * ресурсы) остается на координаторе, поэтому монопольные плагины не пересекаются и у исполнителей.
+     */
+    private WorkQueue.TaskResult awaitQueuedPlugin(SecurityPlugin p, WorkQueue.Task task) {
+        try {
+            WorkQueue.TaskResult r = workQueue.submitNow(task).get();
+            System.out.println(p.title() + (r.completed ? " completed (work queue)" : " did not complete in work queue"));
+            return r;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new WorkQueue.TaskResult(task.key, false, List.of(pluginError(p.id(), "interrupted")));
+        } catch (Exception e) {
+            return new WorkQueue.TaskResult(task.key, false, List.of(pluginError(p.id(), e.getMessage())));
+        }
+    }
+
+    private static Finding pluginError(String pluginId, String message) {
+        return Finding.of("(plugin)", "N/A", 0, pluginId,
+                Finding.Severity.LOW,
+                "Plugin error: " + message,
+                "",
+                "Проверьте корректность работы плагина безопасности");
+    }
+
+    /**
+     * Создает общий пул потоков сканирования: его используют сценарии и планировщик плагинов
+     */
+    private ExecutorService createScanPool() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "scan-worker-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Выполняет основное сканирование безопасности
+     * @return true если сканирование завершилось без сбоя
+     */
+    private boolean runSecurityScan(String token, String consentId, OpenAPIParser parser, JsonNode openapiRoot) throws Exception {
+        ExecutorService pool = createScanPool();
+        profiler = new PluginProfiler(httpFactory.metrics());
+        try (ProbeDispatcher probes = createProbeDispatcher()) {
             ExecutionContext ctx = new ExecutionContext(
                     baseUrl, token, requestingBank, interbankClientId, consentId, verbose,
-                    http, om, parser, openapiRoot, findings
+                    http, om, parser, openapiRoot, probes, findings
             );
 
+            if (workQueueDir != null) workQueue = startWorkQueue(token, consentId, openapiRoot, ctx);
+            ScenarioGenerator gen = new ScenarioGenerator();
+            if (fuzzBudget > 0) {
+                gen.setFuzzer(new SchemaFuzzer(fuzzSeed), fuzzBudget);
+                System.out.println("Fuzzing request bodies: up to " + fuzzBudget + " cases per operation (seed " + fuzzSeed + ")");
+            }
+            Stream<ScenarioGenerator.Scenario> scenarios = gen.stream(openapiRoot, requestingBank, interbankClientId);
+            ScenarioPruner pruner = pruneScenarios ? new ScenarioPruner(openapiRoot) : null;
+            if (pruner != null) scenarios = pruner.prune(scenarios);
+            Iterator<ScenarioGenerator.Scenario> order = scenarios.iterator();
+            if (coverageScheduling) {
+                coverage = new CoverageScheduler(order, CoverageScheduler.DEFAULT_LOOKAHEAD);
+                order = coverage;
+            }
+            budget.startPhase(ScanBudget.SCENARIO, SCENARIO_BUDGET_SHARE, 1);
+            runScenarios(pool, order, token, consentId, openapiRoot, parser);
+            if (pruner != null) System.out.println(pruner.summary());
+            if (coverage != null) {
+                System.out.println(coverage.summary());
+                coverage = null;
+            }
+
+            // Независимые плагины выполняются параллельно, findings добавляются в порядке регистрации
+            PluginRegistry reg = new PluginRegistry().registerAll();
             System.out.println("Running " + reg.all().size() + " security plugins...");
-            for (SecurityPlugin p : reg.all()) {
-                try {
-                    List<Finding> pf = p.run(ctx);
-                    if (pf != null) findings.addAll(pf);
-                    System.out.println(p.title() + " completed");
-                } catch (Exception ex) {
-                    findings.add(Finding.of("(plugin)", "N/A", 0, p.id(),
-                            Finding.Severity.LOW, 
-                            "Plugin error: " + ex.getMessage(), 
-                            "",
-                            "Проверьте корректность работы плагина безопасности"));
-                    System.out.println(p.title() + " failed: " + ex.getMessage());
-                }
+            budget.startPhase(ScanBudget.PLUGIN, PLUGIN_BUDGET_SHARE, pluginsToExecute(reg.all()));
+            for (List<Finding> pf : reg.runAll(pool, p -> runPlugin(p, ctx))) {
+                findings.addAll(pf);
             }
 
+            budget.startPhase(ScanBudget.PROBE, 1.0, 1);
             probeCommonPaths(token, List.of("/health", "/", "/.well-known/jwks.json"), openapiRoot, parser);
-
+            return true;
         } catch (Exception e) {
             System.err.println("Security scan failed: " + e.getMessage());
             findings.add(Finding.of("(scanner)", "N/A", 0, "ScanError",
@@ -634,7 +1133,124 @@ public class APISecurityAuditor {
                     "Security scan failed: " + e.getMessage(), 
                     "",
                     "Проверьте доступность API и корректность конфигурации"));
+            return false;
+        } finally {
+            pool.shutdownNow();
+            if (workQueue != null) {
+                workQueue.close();
+                System.out.println(workQueue.summary());
+                workQueue = null;
+            }
+        }
+    }
+
+    /**
+     * Публикует задание в очереди распределенного сканирования (--queue-dir) и запускает
+     * сбор результатов. Координатор выполняет шарды и сам, поэтому внешние исполнители
+     * (--queue-worker) только ускоряют сканирование.
+     */
+    private QueueCoordinator startWorkQueue(String token, String consentId, JsonNode openapiRoot,
+                                            ExecutionContext ctx) throws Exception {
+        WorkQueue queue = WorkQueue.create(Paths.get(workQueueDir));
+        WorkQueue.Job job = new WorkQueue.Job();
+        job.jobId = journal.scanId();
+        job.baseUrl = baseUrl;
+        job.openapi = openapiLocation;
+        job.accessToken = token;
+        job.consentId = consentId;
+        job.requestingBank = requestingBank;
+        job.interbankClientId = interbankClientId;
+        job.extraHeaders = new ArrayList<>(extraHeaders);
+        job.createdAt = LocalDateTime.now().toString();
+        queue.writeJob(job, openapiRoot);
+
+        QueueCoordinator coordinator = new QueueCoordinator(queue, job.jobId, shardSize,
+                Duration.ofSeconds(shardTimeoutSeconds), 500);
+        coordinator.start(localQueueWorkers, taskRunner(token, consentId, openapiRoot, ctx));
+        System.out.println("Work queue: " + queue.dir().toAbsolutePath() + " (job " + job.jobId + ", "
+                + shardSize + " scenarios per shard, " + localQueueWorkers + " local workers)");
+        return coordinator;
+    }
+
+    /**
+     * Выполнение задач очереди этим процессом (координатором или исполнителем)
+     */
+    private QueueWorker.TaskRunner taskRunner(String token, String consentId, JsonNode openapiRoot, ExecutionContext ctx) {
+        Map<String, SecurityPlugin> plugins = new HashMap<>();
+        for (SecurityPlugin p : new PluginRegistry().registerAll().all()) plugins.put(p.id(), p);
+        return task -> {
+            if (WorkQueue.PLUGIN.equals(task.kind)) {
+                SecurityPlugin p = plugins.get(task.pluginId);
+                if (p == null) {
+                    return new WorkQueue.TaskResult(task.key, false, List.of(pluginError(task.pluginId, "unknown plugin")));
+                }
+                return executePlugin(task.key, p, ctx);
+            }
+            return executeScenario(task.key, task.scenario, token, consentId, openapiRoot, ctx.parser);
+        };
+    }
+
+    /**
+     * Режим исполнителя распределенного сканирования (--queue-worker): выполняет шарды задания
+     * из общего каталога, пока координатор не закроет очередь. Токен, согласие и спецификация
+     * берутся из задания координатора; findings возвращаются координатору, отчеты не формируются.
+     * @param queueDir каталог очереди
+     */
+    public void runQueueWorker(String queueDir) throws Exception {
+        initHttp();
+        WorkQueue queue = WorkQueue.open(Paths.get(queueDir));
+        WorkQueue.Job job = queue.readJob();
+        if (job == null) System.out.println("Waiting for coordinator to publish a job in " + queue.dir().toAbsolutePath());
+        while (job == null) {
+            Thread.sleep(1000);
+            job = queue.readJob();
+        }
+        baseUrl = job.baseUrl;
+        openapiLocation = job.openapi;
+        requestingBank = job.requestingBank;
+        interbankClientId = job.interbankClientId;
+        extraHeaders = job.extraHeaders != null ? job.extraHeaders : List.of();
+
+        JsonNode openapiRoot = parser.getOpenApiRoot(queue.specFile().toString());
+        profiler = new PluginProfiler(httpFactory.metrics());
+        System.out.println("Joined job " + job.jobId + " (" + baseUrl + ") with " + concurrency + " worker threads");
+
+        List<QueueWorker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        try (ProbeDispatcher probes = createProbeDispatcher()) {
+            ExecutionContext ctx = new ExecutionContext(
+                    baseUrl, job.accessToken, requestingBank, interbankClientId, job.consentId, verbose,
+                    http, om, parser, openapiRoot, probes, findings
+            );
+            QueueWorker.TaskRunner runner = taskRunner(job.accessToken, job.consentId, openapiRoot, ctx);
+            for (int i = 0; i < concurrency; i++) {
+                QueueWorker w = new QueueWorker(queue, job.jobId, runner, 500);
+                Thread t = new Thread(w, "queue-worker-" + (i + 1));
+                workers.add(w);
+                threads.add(t);
+                t.start();
+            }
+            for (Thread t : threads) t.join();
         }
+
+        int shards = workers.stream().mapToInt(QueueWorker::shards).sum();
+        int tasks = workers.stream().mapToInt(QueueWorker::tasks).sum();
+        System.out.println("Work queue closed: " + shards + " shards (" + tasks + " tasks) processed by this worker");
+        System.out.println(rateLimiter.summary());
+        System.out.println(httpFactory.metrics().summary());
+        System.out.println(profiler.summary());
+    }
+
+    /**
+     * Создает диспетчер проб плагинов: виртуальные потоки (если включены и доступны)
+     * или последовательное выполнение по умолчанию
+     */
+    private ProbeDispatcher createProbeDispatcher() {
+        if (!virtualThreads) return ProbeDispatcher.sequential();
+        ProbeDispatcher probes = ProbeDispatcher.create(true, maxPerHost);
+        System.out.println("Plugin probes: " + (probes.isVirtualThreads() ? "virtual threads" : "platform threads")
+                + ", max " + probes.maxPerHost() + " concurrent requests per host");
+        return probes;
     }
 
     /**
@@ -648,10 +1264,25 @@ public class APISecurityAuditor {
         String bankName = extractBankNameFromUrl(baseUrl);
         String reportTitle = bankName + " API Security Report";
 
-        var jsonFile = reportWriter.writeJson(reportTitle, openapiLocation, baseUrl, uniqueFindings);
-        var pdfFile  = reportWriter.writePdf(reportTitle, openapiLocation, baseUrl, uniqueFindings);
+        List<PluginProfile> performance = profiler != null ? profiler.profiles() : List.of();
+        ScanBudget.Report budgetReport = budget.report();
+        var jsonFile = reportWriter.writeJson(reportTitle, openapiLocation, baseUrl, uniqueFindings, performance, budgetReport);
+        var pdfFile  = reportWriter.writePdf(reportTitle, openapiLocation, baseUrl, uniqueFindings, performance, budgetReport);
         
         System.out.println("Total findings: " + findings.size());
+        System.out.println(rateLimiter.summary());
+        System.out.println(httpFactory.stats().summary());
+        System.out.println(validator.cacheSummary());
+        if (responseCache != null) System.out.println(responseCache.summary());
+        if (singleFlight != null) System.out.println(singleFlight.summary());
+        System.out.println(httpFactory.metrics().summary());
+        if (profiler != null) System.out.println(profiler.summary());
+        if (budget.isLimited()) System.out.println(budget.summary());
+        var metricsFiles = reportWriter.writeMetrics(baseUrl, httpFactory.metrics());
+        reportedFindings = uniqueFindings;
+        List<java.io.File> files = new ArrayList<>(List.of(jsonFile, pdfFile));
+        files.addAll(metricsFiles);
+        reportFiles = files;
         
         long highCount = findings.stream().filter(f -> f.severity == Finding.Severity.HIGH).count();
         long mediumCount = findings.stream().filter(f -> f.severity == Finding.Severity.MEDIUM).count();
@@ -670,14 +1301,30 @@ public class APISecurityAuditor {
         System.out.println("Reports:");
         System.out.println("  JSON: " + jsonFile.getAbsolutePath());
         System.out.println("  PDF : " + pdfFile.getAbsolutePath());
+        for (var metricsFile : metricsFiles) {
+            System.out.println("  Metrics: " + metricsFile.getAbsolutePath());
+        }
+        System.out.println("  Journal: " + journal.file().toAbsolutePath());
     }
 
     private void probeCommonPaths(String token, List<String> paths, JsonNode openapiRoot, OpenAPIParser parser) throws Exception {
         for (String p : paths) {
-            adaptiveDelay();
-            
+            String fingerprint = fingerprints.forTargets(Set.of(p));
+            List<Finding> done = fromBaseline(ScanBaseline.PROBE, p, fingerprint);
+            if (done == null) done = journal.completed(ScanJournal.PROBE, p);
+            if (done != null) {
+                findings.addAll(done);
+                baseline.record(ScanBaseline.PROBE, p, fingerprint, done);
+                continue;
+            }
+            String overBudget = budget.phaseExhaustedReason();
+            if (overBudget != null) {
+                budget.skip(ScanBudget.PROBE, p, overBudget);
+                continue;
+            }
             String url = baseUrl + p;
-            Request.Builder rb = new Request.Builder().url(url).get();
+            Request.Builder rb = new Request.Builder().url(url).get().tag(MetricsTag.class, new MetricsTag("probe", p))
+                    .tag(ResponseCache.Reuse.class, ResponseCache.REUSE);
             
             String cleanToken = cleanToken(token);
             if (cleanToken != null && !cleanToken.isBlank()) {
@@ -688,14 +1335,19 @@ public class APISecurityAuditor {
             log("GET " + url);
             
             try (Response r = http.newCall(rb.build()).execute()) {
-                this.lastStatusCode = r.code();
                 System.out.println(p + " -> " + r.code());
                 String ct = r.header("Content-Type","application/json");
                 JsonNode schema = null;
                 try {
-                    schema = parser.resolveResponseSchemaFromRoot(openapiRoot, p, r.code(), ct);
+                    schema = parser.findResponseSchema("GET", p, r.code(), ct);
                 } catch (Exception ignore) {}
-                validateAndRecord(p, "GET", r, schema);
+                List<Finding> out = new ArrayList<>();
+                validateAndRecord(p, "GET", r, schema, out);
+                findings.addAll(out);
+                journal.recordCompleted(ScanJournal.PROBE, p, out);
+                baseline.record(ScanBaseline.PROBE, p, fingerprint, out);
+            } catch (ScanBudget.ExhaustedException e) {
+                budget.skip(ScanBudget.PROBE, p, e.getMessage());
             } catch (Exception e) {
                 System.err.println("ERROR probing " + p + ": " + e.getMessage());
                 findings.add(Finding.of(p, "GET", 0, "ConnectionError",
@@ -718,7 +1370,10 @@ public class APISecurityAuditor {
         return "Unknown Bank";
     }
 
-    private List<Finding> removeDuplicateFindings(List<Finding> findings) {
+    /**
+     * Удаляет дубликаты findings (доступ на уровне пакета - используется в бенчмарках)
+     */
+    List<Finding> removeDuplicateFindings(List<Finding> findings) {
         Map<String, Finding> uniqueMap = new LinkedHashMap<>();
         
         for (Finding finding : findings) {
@@ -744,6 +1399,11 @@ public class APISecurityAuditor {
             return "security_header|" + extractHeaderName(finding.message);
         }
         
+        // Fuzz findings различаются мутацией в конце сообщения, поэтому сообщение не обрезается
+        if (INPUT_VALIDATION.equals(finding.owasp)) {
+            return finding.endpoint + "|" + finding.method + "|" + finding.status + "|" + finding.owasp + "|" + finding.message;
+        }
+
         // Для остальных findings обычный ключ
         return finding.endpoint + "|" + finding.method + "|" + finding.status + "|" + 
             finding.owasp + "|" + finding.message.substring(0, Math.min(40, finding.message.length()));
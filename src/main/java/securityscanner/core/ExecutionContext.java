@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.OkHttpClient;
 import securityscanner.core.model.Finding;
+import securityscanner.http.ProbeDispatcher;
 import securityscanner.parser.OpenAPIParser;
 
 import java.util.List;
@@ -25,6 +26,8 @@ public class ExecutionContext {
     public final ObjectMapper om;             // JSON парсер
     public final OpenAPIParser parser;  // Парсер OpenAPI спецификаций
     public final JsonNode openapiRoot;        // Корневой узел OpenAPI спецификации
+    public final ProbeDispatcher probes;      // Диспетчер параллельных проб плагинов
+    public final String metricsSource;        // Источник запросов в метриках (id плагина)
 
     // Коллекция для накопления результатов проверок
     public final List<Finding> findings;
@@ -39,7 +42,25 @@ public class ExecutionContext {
                             ObjectMapper om,
                             OpenAPIParser parser,
                             JsonNode openapiRoot,
+                            ProbeDispatcher probes,
                             List<Finding> findings) {
+        this(baseUrl, accessToken, requestingBank, interbankClientId, consentId, verbose,
+                http, om, parser, openapiRoot, probes, findings, "plugin");
+    }
+
+    private ExecutionContext(String baseUrl,
+                             String accessToken,
+                             String requestingBank,
+                             String interbankClientId,
+                             String consentId,
+                             boolean verbose,
+                             OkHttpClient http,
+                             ObjectMapper om,
+                             OpenAPIParser parser,
+                             JsonNode openapiRoot,
+                             ProbeDispatcher probes,
+                             List<Finding> findings,
+                             String metricsSource) {
         this.baseUrl = baseUrl;
         this.accessToken = accessToken;
         this.requestingBank = requestingBank;
@@ -50,6 +71,17 @@ public class ExecutionContext {
         this.om = om;
         this.parser = parser;
         this.openapiRoot = openapiRoot;
+        this.probes = probes;
         this.findings = findings;
+        this.metricsSource = metricsSource;
+    }
+
+    /**
+     * Возвращает контекст плагина: те же зависимости, запросы учитываются в метриках под id плагина
+     * @param pluginId идентификатор плагина
+     */
+    public ExecutionContext forPlugin(String pluginId) {
+        return new ExecutionContext(baseUrl, accessToken, requestingBank, interbankClientId, consentId, verbose,
+                http, om, parser, openapiRoot, probes, findings, pluginId);
     }
 }
\ No newline at end of file
@@ -1,11 +1,20 @@
 package securityscanner.core;
 
-import java.util.ArrayList;
-import java.util.List;
+import securityscanner.core.model.Finding;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 /**
  * Реестр плагинов безопасности. Регистрирует все доступные плагины
  * для проверки OWASP API Top 10 и дополнительные проверки.
+ * Выполняет плагины по графу зависимостей: независимые плагины запускаются параллельно.
  */
 public class PluginRegistry {
     private final List<SecurityPlugin> plugins = new ArrayList<>();
@@ -40,4 +49,140 @@ public class PluginRegistry {
     public List<SecurityPlugin> all() {
         return plugins;
     }
-}
\ No newline at end of file
+
+    /**
+     * Выполняет все плагины на общем пуле с учетом зависимостей и ресурсов.
+     * Плагин стартует после завершения всех своих зависимостей; плагины с общим
+     * ресурсом не выполняются одновременно, а монопольные ресурсы останавливают
+     * остальные плагины на время выполнения.
+     *
+     * @param pool общий пул потоков сканирования
+     * @param task выполнение одного плагина (обработка ошибок плагина - на стороне вызывающего)
+     * @return findings каждого плагина в порядке регистрации
+     */
+    public List<List<Finding>> runAll(Executor pool, Function<SecurityPlugin, List<Finding>> task) throws InterruptedException {
+        Map<String, SecurityPlugin> byId = indexById();
+        validateGraph(byId);
+
+        ResourceGuard guard = new ResourceGuard();
+        Map<String, CompletableFuture<List<Finding>>> scheduled = new HashMap<>();
+        for (SecurityPlugin p : plugins) {
+            schedule(p, byId, scheduled, pool, guard, task);
+        }
+
+        List<List<Finding>> results = new ArrayList<>();
+        for (SecurityPlugin p : plugins) {
+            try {
+                List<Finding> pf = scheduled.get(p.id()).get();
+                results.add(pf != null ? pf : List.of());
+            } catch (ExecutionException e) {
+                results.add(List.of(Finding.of("(plugin)", "N/A", 0, p.id(),
+                        Finding.Severity.LOW,
+                        "Plugin error: " + e.getCause(),
+                        "",
+                        "Проверьте корректность работы плагина безопасности")));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Планирует плагин после его зависимостей (зависимости планируются рекурсивно)
+     */
+    private CompletableFuture<List<Finding>> schedule(SecurityPlugin p,
+                                                      Map<String, SecurityPlugin> byId,
+                                                      Map<String, CompletableFuture<List<Finding>>> scheduled,
+                                                      Executor pool,
+                                                      ResourceGuard guard,
+                                                      Function<SecurityPlugin, List<Finding>> task) {
+        CompletableFuture<List<Finding>> existing = scheduled.get(p.id());
+        if (existing != null) return existing;
+
+        List<CompletableFuture<?>> deps = new ArrayList<>();
+        for (String depId : p.dependsOn()) {
+            // Ошибка зависимости не блокирует запуск зависимого плагина
+            deps.add(schedule(byId.get(depId), byId, scheduled, pool, guard, task)
+                    .handle((r, e) -> null));
+        }
+
+        CompletableFuture<List<Finding>> f = CompletableFuture
+                .allOf(deps.toArray(new CompletableFuture[0]))
+                .thenApplyAsync(ignored -> guard.run(p, task), pool);
+        scheduled.put(p.id(), f);
+        return f;
+    }
+
+    private Map<String, SecurityPlugin> indexById() {
+        Map<String, SecurityPlugin> byId = new LinkedHashMap<>();
+        for (SecurityPlugin p : plugins) {
+            if (byId.put(p.id(), p) != null) {
+                throw new IllegalStateException("Duplicate plugin id: " + p.id());
+            }
+        }
+        return byId;
+    }
+
+    /**
+     * Проверяет что все зависимости зарегистрированы и граф не содержит циклов
+     */
+    private void validateGraph(Map<String, SecurityPlugin> byId) {
+        Set<String> done = new HashSet<>();
+        Set<String> inProgress = new HashSet<>();
+        for (SecurityPlugin p : plugins) {
+            visit(p, byId, done, inProgress);
+        }
+    }
+
+    private void visit(SecurityPlugin p, Map<String, SecurityPlugin> byId, Set<String> done, Set<String> inProgress) {
+        if (done.contains(p.id())) return;
+        if (!inProgress.add(p.id())) {
+            throw new IllegalStateException("Plugin dependency cycle at: " + p.id());
+        }
+        for (String depId : p.dependsOn()) {
+            SecurityPlugin dep = byId.get(depId);
+            if (dep == null) {
+                throw new IllegalStateException("Plugin " + p.id() + " depends on unknown plugin: " + depId);
+            }
+            visit(dep, byId, done, inProgress);
+        }
+        inProgress.remove(p.id());
+        done.add(p.id());
+    }
+
+    /**
+     * Блокировки ресурсов плагинов. Порядок захвата фиксирован (общая блокировка,
+     * затем ресурсы в порядке объявления enum), поэтому взаимные блокировки исключены.
+     */
+    private static class ResourceGuard {
+        private final ReentrantReadWriteLock exclusive = new ReentrantReadWriteLock(true);
+        private final Map<PluginResource, Lock> shared = new EnumMap<>(PluginResource.class);
+
+        ResourceGuard() {
+            for (PluginResource r : PluginResource.values()) {
+                if (!r.isExclusive()) shared.put(r, new ReentrantLock(true));
+            }
+        }
+
+        List<Finding> run(SecurityPlugin p, Function<SecurityPlugin, List<Finding>> task) {
+            Set<PluginResource> resources = p.resources();
+            boolean monopolistic = resources.stream().anyMatch(PluginResource::isExclusive);
+            Lock global = monopolistic ? exclusive.writeLock() : exclusive.readLock();
+
+            List<Lock> held = new ArrayList<>();
+            global.lock();
+            try {
+                for (PluginResource r : PluginResource.values()) {
+                    Lock l = shared.get(r);
+                    if (l != null && resources.contains(r)) {
+                        l.lock();
+                        held.add(l);
+                    }
+                }
+                return task.apply(p);
+            } finally {
+                for (int i = held.size() - 1; i >= 0; i--) held.get(i).unlock();
+                global.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package securityscanner.core;
+
+/**
+ * Классы ресурсов, которые плагин может объявить для планировщика.
+ * Плагины с общим ресурсом не выполняются одновременно.
+ */
+public enum PluginResource {
+    /**
+     * Плагин обращается к данным клиента через consent.
+     * Такие плагины выполняются по одному, чтобы не расходовать квоту согласия параллельно.
+     */
+    CONSENT(false),
+
+    /**
+     * Результат плагина зависит от фоновой нагрузки на API (измерение rate limiting,
+     * повторные вызовы бизнес-процессов). Плагин выполняется без других плагинов.
+     */
+    RATE_LIMIT_SENSITIVE(true);
+
+    private final boolean exclusive;
+
+    PluginResource(boolean exclusive) {
+        this.exclusive = exclusive;
+    }
+
+    /**
+     * @return true если ресурс требует монопольного выполнения плагина
+     */
+    public boolean isExclusive() {
+        return exclusive;
+    }
+}
@@ -1,12 +1,13 @@
 package securityscanner.core;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.networknt.schema.*;
 import okhttp3.Response;
 import securityscanner.core.model.Finding;
+import securityscanner.http.BoundedBody;
 
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Валидатор ответов API против OpenAPI спецификации.
@@ -14,12 +15,35 @@ import java.util.*;
  */
 public class ResponseValidator {
 
-    private final ObjectMapper om = new ObjectMapper();
+    private static final int DEFAULT_CACHE_SIZE = 256;
+
     private final JsonSchemaFactory factory;
 
+    // Скомпилированные схемы по (path, method, status, content-type), вытеснение по LRU
+    private final Map<String, CachedSchema> schemaCache;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheEvictions = new LongAdder();
+
     public ResponseValidator() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param maxCachedSchemas максимальное число скомпилированных схем в кэше
+     */
+    public ResponseValidator(int maxCachedSchemas) {
         // Используем JSON Schema версии 7 для совместимости с OpenAPI 3.x
         factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+        int capacity = Math.max(1, maxCachedSchemas);
+        schemaCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSchema> eldest) {
+                if (size() <= capacity) return false;
+                cacheEvictions.increment();
+                return true;
+            }
+        };
     }
 
     /**
@@ -33,12 +57,29 @@ public class ResponseValidator {
     public List<Finding> validateContract(String endpoint, String method,
                                           Response httpResp,
                                           JsonNode expectedSchema) {
+        BoundedBody body;
+        try {
+            body = BoundedBody.readJson(httpResp);
+        } catch (Exception e) {
+            body = BoundedBody.empty();
+        }
+        return validateContract(endpoint, method, httpResp.code(), httpResp.header("Content-Type", ""),
+                body, expectedSchema);
+    }
+
+    /**
+     * Валидирует уже прочитанное тело ответа против ожидаемой JSON Schema
+     * @param endpoint эндпоинт API
+     * @param method HTTP метод
+     * @param code HTTP статус код
+     * @param ct заголовок Content-Type ответа
+     * @param body тело ответа, прочитанное через {@link BoundedBody#readJson}
+     * @param expectedSchema ожидаемая JSON Schema из OpenAPI спецификации
+     * @return список findings с результатами валидации
+     */
+    public List<Finding> validateContract(String endpoint, String method, int code, String ct,
+                                          BoundedBody body, JsonNode expectedSchema) {
         List<Finding> out = new ArrayList<>();
-        int code = httpResp.code();
-        String body = "";
-        try { 
-            body = httpResp.body() != null ? httpResp.body().string() : ""; 
-        } catch (Exception ignore){}
 
         // Пропускаем валидацию для специфических случаев
         if (shouldSkipSchemaValidation(endpoint, code, expectedSchema)) {
@@ -46,7 +87,7 @@ public class ResponseValidator {
         }
 
         // Проверка Content-Type заголовка
-        String ct = httpResp.header("Content-Type", "");
+        if (ct == null) ct = "";
         if (expectedSchema != null && !isValidJsonContentType(ct)) {
             out.add(Finding.of(endpoint, method, code, "ContractMismatch",
                     Finding.Severity.LOW, 
@@ -55,9 +96,16 @@ public class ResponseValidator {
                     "Убедитесь, что эндпоинт возвращает application/json"));
         }
 
+        // Тело больше лимита разбора не валидируем, чтобы не держать его целиком в памяти
+        if (body.isJsonTooLarge()) {
+            System.out.println("Skipping schema validation for " + method + " " + endpoint
+                    + ": body of " + body.totalBytes() + " bytes exceeds parse limit");
+            return out;
+        }
+
         // JSON Schema валидация если есть схема и тело в JSON формате
-        if (expectedSchema != null && body != null && !body.isBlank() && looksLikeJson(body)) {
-            validateJsonSchema(endpoint, method, code, body, expectedSchema, out);
+        if (expectedSchema != null && looksLikeJson(body)) {
+            validateJsonSchema(endpoint, method, code, ct, body, expectedSchema, out);
         } else {
             handleNonJsonResponse(endpoint, method, code, body, expectedSchema, out);
         }
@@ -93,11 +141,12 @@ public class ResponseValidator {
     /**
      * Выполняет валидацию JSON ответа против JSON Schema
      */
-    private void validateJsonSchema(String endpoint, String method, int code, 
-                                  String body, JsonNode expectedSchema, List<Finding> out) {
+    private void validateJsonSchema(String endpoint, String method, int code, String contentType,
+                                  BoundedBody body, JsonNode expectedSchema, List<Finding> out) {
         try {
-            JsonSchema schema = factory.getSchema(expectedSchema);
-            JsonNode node = om.readTree(body);
+            if (body.jsonError() != null) throw body.jsonError();
+            JsonSchema schema = compiledSchema(endpoint, method, code, contentType, expectedSchema);
+            JsonNode node = body.json();
             Set<ValidationMessage> errors = schema.validate(node);
             
             if (!errors.isEmpty()) {
@@ -114,11 +163,63 @@ public class ResponseValidator {
         }
     }
 
+    /**
+     * Возвращает скомпилированную схему из кэша или компилирует и кэширует ее.
+     * Запись считается актуальной, только если она построена из того же узла спецификации.
+     */
+    private JsonSchema compiledSchema(String endpoint, String method, int code, String contentType,
+                                      JsonNode expectedSchema) {
+        String key = method + " " + endpoint + " " + code + " " + mediaType(contentType);
+        synchronized (schemaCache) {
+            CachedSchema cached = schemaCache.get(key);
+            if (cached != null && cached.source == expectedSchema) {
+                cacheHits.increment();
+                return cached.compiled;
+            }
+        }
+        cacheMisses.increment();
+        JsonSchema compiled = factory.getSchema(expectedSchema);
+        // Валидаторы инициализируются лениво - делаем это до публикации схемы другим потокам
+        compiled.initializeValidators();
+        synchronized (schemaCache) {
+            schemaCache.put(key, new CachedSchema(expectedSchema, compiled));
+        }
+        return compiled;
+    }
+
+    private static String mediaType(String contentType) {
+        if (contentType == null) return "";
+        int semicolon = contentType.indexOf(';');
+        return (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return статистика кэша скомпилированных схем для вывода в конце сканирования
+     */
+    public String cacheSummary() {
+        int size;
+        synchronized (schemaCache) { size = schemaCache.size(); }
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return "Schema cache: " + size + " compiled schemas, " + hits + "/" + total + " hits, "
+                + cacheEvictions.sum() + " evictions";
+    }
+
+    private static final class CachedSchema {
+        final JsonNode source;
+        final JsonSchema compiled;
+
+        CachedSchema(JsonNode source, JsonSchema compiled) {
+            this.source = source;
+            this.compiled = compiled;
+        }
+    }
+
     /**
      * Обрабатывает ошибки валидации JSON Schema
      */
     private void handleValidationErrors(String endpoint, String method, int code,
-                                      String body, Set<ValidationMessage> errors, List<Finding> out) {
+                                      BoundedBody body, Set<ValidationMessage> errors, List<Finding> out) {
         StringBuilder sb = new StringBuilder();
         int errorCount = 0;
         for (ValidationMessage e : errors) {
@@ -161,7 +262,7 @@ public class ResponseValidator {
      * Обрабатывает исключения при валидации JSON Schema
      */
     private void handleValidationException(String endpoint, String method, int code,
-                                         String body, Exception ex, List<Finding> out) {
+                                         BoundedBody body, Exception ex, List<Finding> out) {
         String errorMsg = ex.getMessage();
         String recommendation = "Обновите OpenAPI спецификацию для корректной валидации";
         
@@ -192,7 +293,7 @@ public class ResponseValidator {
      * Обрабатывает случаи когда ответ не в JSON формате
      */
     private void handleNonJsonResponse(String endpoint, String method, int code,
-                                    String body, JsonNode expectedSchema, List<Finding> out) {
+                                    BoundedBody body, JsonNode expectedSchema, List<Finding> out) {
         
         // Создаем findings только для реальных security проблем:
         if (expectedSchema != null && !looksLikeJson(body) && code < 500 && code >= 200) {
@@ -217,20 +318,17 @@ public class ResponseValidator {
     }
 
     /**
-     * Проверяет похоже ли тело ответа на JSON
+     * Проверяет похоже ли тело ответа на JSON: тело, которое не разбирается, но начинается
+     * и заканчивается скобками, дает ошибку валидатора, остальные - несоответствие контракту
      */
-    private static boolean looksLikeJson(String s) {
-        if (s == null || s.isBlank()) return false;
-        String t = s.trim();
-        return (t.startsWith("{") && t.endsWith("}")) || 
-               (t.startsWith("[") && t.endsWith("]"));
+    private static boolean looksLikeJson(BoundedBody body) {
+        return body.looksLikeJson();
     }
 
     /**
      * Обрезает тело ответа для отображения в отчете
      */
-    private static String bodySnippet(String body) {
-        if (body == null) return "";
-        return body.length() > 800 ? body.substring(0, 800) + "...(truncated)" : body;
+    private static String bodySnippet(BoundedBody body) {
+        return body.snippet(800);
     }
-}
\ No newline at end of file
+}
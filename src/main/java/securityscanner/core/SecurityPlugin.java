@@ -2,6 +2,7 @@ package securityscanner.core;
 
 import securityscanner.core.model.Finding;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Интерфейс для всех плагинов безопасности.
@@ -23,6 +24,31 @@ public interface SecurityPlugin {
      */
     String description();
 
+    /**
+     * Возвращает идентификаторы плагинов, которые должны завершиться до запуска данного.
+     * По умолчанию плагин независим и может выполняться параллельно с остальными.
+     */
+    default Set<String> dependsOn() {
+        return Set.of();
+    }
+
+    /**
+     * Возвращает классы ресурсов, которые использует плагин (consent, чувствительность к rate limiting)
+     */
+    default Set<PluginResource> resources() {
+        return Set.of();
+    }
+
+    /**
+     * Возвращает пути спецификации, от которых зависят проверки плагина (вложенные пути
+     * тоже учитываются: /accounts покрывает /accounts/{id}). Используется инкрементальным
+     * сканированием: плагин повторяется только если изменились операции этих путей.
+     * По умолчанию (пустой набор) плагин зависит от всей спецификации.
+     */
+    default Set<String> targetPaths() {
+        return Set.of();
+    }
+
     /**
      * Выполняет проверки безопасности и возвращает список найденных проблем
      * @param ctx контекст выполнения с данными и зависимостями
@@ -0,0 +1,206 @@
+package securityscanner.generator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.*;
+
+/**
+ * Порядок выполнения сценариев по новизне поведения API (--schedule coverage).
+ *
+ * Сначала выполняются позитивные сценарии всех операций, чтобы каждая операция получила
+ * запрос в начале сканирования, а не в порядке спецификации. Остальные сценарии (негативные
+ * и fuzz) выдаются по энергии операции, как в планировщике корпуса fuzzer: операция, ответы
+ * которой дают новое поведение (новый статус, новая форма тела, новый код ошибки), получает
+ * следующие запросы раньше, операция без новизны - позже. Порядок сценариев одной операции
+ * сохраняется, поэтому ключи журнала не зависят от планирования.
+ *
+ * Из генератора заранее читается не больше lookahead сценариев. Результаты сообщаются
+ * через {@link #observe} из потоков выполнения, поэтому методы синхронизированы.
+ */
+public class CoverageScheduler implements Iterator<ScenarioGenerator.Scenario> {
+
+    public static final int DEFAULT_LOOKAHEAD = 10_000;
+
+    private static final int SHAPE_DEPTH = 3;
+    private static final int SHAPE_FIELDS = 32;
+    private static final List<String> ERROR_FIELDS = List.of("error", "code", "errorCode", "error_code", "status");
+
+    /**
+     * Очередь и статистика новизны операции
+     */
+    private static final class OpState {
+        final String op;
+        final int order;                      // Порядок операции в спецификации
+        final Deque<ScenarioGenerator.Scenario> pending = new ArrayDeque<>();
+        final Set<String> seen = new HashSet<>();
+        int issued;                           // Выдано сценариев (результаты приходят позже)
+        int novel;                            // Результатов с новым поведением
+
+        OpState(String op, int order) {
+            this.op = op;
+            this.order = order;
+        }
+
+        double energy() {
+            return (1.0 + novel) / (1.0 + issued);
+        }
+    }
+
+    private final Iterator<ScenarioGenerator.Scenario> source;
+    private final int lookahead;
+    private final Deque<ScenarioGenerator.Scenario> seeds = new ArrayDeque<>();
+    private final Map<String, OpState> ops = new HashMap<>();
+    private final List<OpState> active = new ArrayList<>();   // Операции с ожидающими сценариями
+    private int buffered;
+
+    private int scenarios;
+    private int observed;
+    private int behaviours;
+    private int lastNovelAt;
+
+    /**
+     * @param source сценарии в порядке генератора
+     * @param lookahead сколько сценариев можно держать в очереди планировщика
+     */
+    public CoverageScheduler(Iterator<ScenarioGenerator.Scenario> source, int lookahead) {
+        this.source = source;
+        this.lookahead = Math.max(1, lookahead);
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+        fill();
+        return buffered > 0;
+    }
+
+    @Override
+    public synchronized ScenarioGenerator.Scenario next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        buffered--;
+        scenarios++;
+        ScenarioGenerator.Scenario s = seeds.poll();
+        if (s != null) {
+            state(s).issued++;
+            return s;
+        }
+
+        int best = 0;
+        for (int i = 1; i < active.size(); i++) {
+            OpState a = active.get(i);
+            OpState b = active.get(best);
+            int c = Double.compare(a.energy(), b.energy());
+            if (c > 0 || (c == 0 && a.order < b.order)) best = i;
+        }
+        OpState st = active.get(best);
+        st.issued++;
+        s = st.pending.poll();
+        if (st.pending.isEmpty()) {
+            active.set(best, active.get(active.size() - 1));
+            active.remove(active.size() - 1);
+        }
+        return s;
+    }
+
+    private void fill() {
+        while (buffered < lookahead && source.hasNext()) {
+            ScenarioGenerator.Scenario s = source.next();
+            buffered++;
+            if ("positive".equals(s.label)) {
+                seeds.add(s);
+                state(s);
+            } else {
+                OpState st = state(s);
+                if (st.pending.isEmpty()) active.add(st);
+                st.pending.add(s);
+            }
+        }
+    }
+
+    private OpState state(ScenarioGenerator.Scenario s) {
+        String op = s.method + " " + s.path;
+        return ops.computeIfAbsent(op, k -> new OpState(k, ops.size()));
+    }
+
+    /**
+     * Учитывает поведение, наблюдаемое в ответе на сценарий
+     * @param behaviours сигнатуры ответа ({@link #behaviours})
+     */
+    public synchronized void observe(ScenarioGenerator.Scenario s, Collection<String> behaviours) {
+        observed++;
+        if (behaviours == null || behaviours.isEmpty()) return;
+        OpState st = state(s);
+        int before = st.seen.size();
+        st.seen.addAll(behaviours);
+        int added = st.seen.size() - before;
+        if (added > 0) {
+            st.novel++;
+            this.behaviours += added;
+            lastNovelAt = observed;
+        }
+    }
+
+    /**
+     * Сигнатуры поведения ответа: статус, форма JSON тела и для ошибок - код ошибки
+     * @param code HTTP статус
+     * @param json разобранное тело ответа или null
+     */
+    public static List<String> behaviours(int code, JsonNode json) {
+        List<String> out = new ArrayList<>(3);
+        out.add("status " + code);
+        if (json == null) return out;
+        StringBuilder shape = new StringBuilder();
+        shape(json, 0, shape);
+        out.add("shape " + code + " " + shape);
+        if (code >= 400) {
+            String error = errorCode(json);
+            if (error != null) out.add("error " + code + " " + error);
+        }
+        return out;
+    }
+
+    /**
+     * Форма JSON: имена полей и типы значений до нескольких уровней вложенности
+     */
+    private static void shape(JsonNode n, int depth, StringBuilder sb) {
+        if (n.isObject()) {
+            if (depth >= SHAPE_DEPTH) {
+                sb.append("{}");
+                return;
+            }
+            List<String> names = new ArrayList<>();
+            n.fieldNames().forEachRemaining(names::add);
+            Collections.sort(names);
+            sb.append('{');
+            for (int i = 0; i < names.size() && i < SHAPE_FIELDS; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(names.get(i)).append(':');
+                shape(n.get(names.get(i)), depth + 1, sb);
+            }
+            sb.append('}');
+        } else if (n.isArray()) {
+            sb.append('[');
+            if (n.size() > 0) shape(n.get(0), depth + 1, sb);
+            sb.append(']');
+        } else {
+            sb.append(n.getNodeType().name().charAt(0));
+        }
+    }
+
+    private static String errorCode(JsonNode json) {
+        JsonNode container = json.path("error").isObject() ? json.path("error") : json;
+        StringBuilder sb = new StringBuilder();
+        for (String f : ERROR_FIELDS) {
+            JsonNode v = container.get(f);
+            if (v != null && v.isValueNode() && v.asText().length() <= 64) sb.append(f).append('=').append(v.asText()).append(' ');
+        }
+        return sb.length() > 0 ? sb.toString().trim() : null;
+    }
+
+    /**
+     * @return краткая сводка для вывода после выполнения сценариев
+     */
+    public synchronized String summary() {
+        return "Coverage scheduling: " + behaviours + " distinct behaviours in " + ops.size() + " operations, "
+                + "last new behaviour after " + lastNovelAt + " of " + observed + " results (" + scenarios + " scenarios scheduled)";
+    }
+}
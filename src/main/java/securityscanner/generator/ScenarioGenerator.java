@@ -1,17 +1,34 @@
 package securityscanner.generator;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Генератор тестовых сценариев на основе OpenAPI спецификации.
  * Создает позитивные и негативные сценарии для тестирования API.
+ *
+ * Сценарии создаются по требованию ({@link #stream}): следующая операция спецификации
+ * разбирается, только когда исполнитель запрашивает очередной сценарий, поэтому запросы
+ * начинают отправляться сразу, а в памяти одновременно находятся сценарии одной операции.
  */
 public class ScenarioGenerator {
 
-    private final ObjectMapper om = new ObjectMapper();
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final List<String> METHODS = List.of("get", "post", "put", "delete");
+
+    // Эндпоинты которые нужно пропустить из-за проблем со схемой
+    private static final Set<String> SKIP_ENDPOINTS = Set.of(
+        "/account-consents/request",
+        "/auth/bank-token",
+        "/product-agreement-consents/request",
+        "/product-agreements"
+    );
 
     /**
      * Модель тестового сценария.
@@ -23,12 +40,21 @@ public class ScenarioGenerator {
         public Map<String,String> query = new LinkedHashMap<>(); // Query параметры
         public Map<String,String> headers = new LinkedHashMap<>(); // HTTP заголовки
         public JsonNode body;                  // Тело запроса (для POST/PUT)
-        public String label;                   // Тип сценария: "positive" / "negative"
+        public String label;                   // Тип сценария: "positive" / "negative" / "fuzz"
+        public String fuzz;                    // Мутация fuzz сценария, например "amount: above maximum"
+        public boolean expectRejected;         // Тело не соответствует схеме - ожидается ответ 4xx
 
         /**
-         * Создает копию сценария
+         * Создает копию сценария (тело копируется, изменение копии не затрагивает исходный сценарий)
          */
         public Scenario copy() {
+            return withBody(body != null ? body.deepCopy() : null);
+        }
+
+        /**
+         * Создает копию сценария с другим телом (тело не копируется)
+         */
+        public Scenario withBody(JsonNode body) {
             Scenario s = new Scenario();
             s.path = path;
             s.method = method;
@@ -36,82 +62,150 @@ public class ScenarioGenerator {
             s.headers = new LinkedHashMap<>(headers);
             s.body = body;
             s.label = label;
+            s.fuzz = fuzz;
+            s.expectRejected = expectRejected;
             return s;
         }
     }
 
+    private SchemaFuzzer fuzzer;
+    private int fuzzBudget;
+
+    /**
+     * Включает fuzz сценарии: для операций с телом запроса после негативного сценария
+     * создается до budget сценариев с телами от {@link SchemaFuzzer}
+     * @param budget число fuzz сценариев на операцию (0 - выключено)
+     */
+    public void setFuzzer(SchemaFuzzer fuzzer, int budget) {
+        this.fuzzer = fuzzer;
+        this.fuzzBudget = Math.max(0, budget);
+    }
+
     /**
      * Генерирует список тестовых сценариев на основе OpenAPI спецификации
      * @param openapiRoot корневой узел OpenAPI спецификации
      * @param requestingBank идентификатор банка для межбанковских запросов
-     * @param interbankClientId client_id для межбанковских операций
+     * @param interbankClient client_id для межбанковских операций
      * @return список тестовых сценариев
      */
     public List<Scenario> generate(JsonNode openapiRoot, String requestingBank, String interbankClient) {
-        List<Scenario> out = new ArrayList<>();
-        JsonNode paths = openapiRoot.path("paths");
-        if (!paths.isObject()) return out;
-
-        // Список эндпоинтов которые нужно пропустить из-за проблем со схемой
-        Set<String> skipEndpoints = Set.of(
-            "/account-consents/request",
-            "/auth/bank-token", 
-            "/product-agreement-consents/request",
-            "/product-agreements"
-        );
-
-        Iterator<String> it = paths.fieldNames();
-        while (it.hasNext()) {
-            String p = it.next();
-            
-            // Пропускаем проблемные эндпоинты
-            if (skipEndpoints.stream().anyMatch(p::contains)) {
-                continue;
+        return stream(openapiRoot, requestingBank, interbankClient).collect(Collectors.toList());
+    }
+
+    /**
+     * Ленивый поток тестовых сценариев в порядке операций спецификации
+     * (для каждой операции - позитивный сценарий, затем негативный и fuzz сценарии)
+     * @param openapiRoot корневой узел OpenAPI спецификации
+     * @param requestingBank идентификатор банка для межбанковских запросов
+     * @param interbankClient client_id для межбанковских операций
+     */
+    public Stream<Scenario> stream(JsonNode openapiRoot, String requestingBank, String interbankClient) {
+        Iterator<Scenario> it = new ScenarioIterator(openapiRoot.path("paths"), requestingBank, interbankClient);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Обходит операции спецификации и создает сценарии очередной операции, когда готовые закончились
+     */
+    private class ScenarioIterator implements Iterator<Scenario> {
+        private final JsonNode paths;
+        private final Iterator<String> pathNames;
+        private final String requestingBank;
+        private final String interbankClient;
+        private final Deque<Scenario> ready = new ArrayDeque<>();
+
+        private String path;
+        private int methodIndex = METHODS.size();
+
+        ScenarioIterator(JsonNode paths, String requestingBank, String interbankClient) {
+            this.paths = paths;
+            this.pathNames = paths.isObject() ? paths.fieldNames() : Collections.emptyIterator();
+            this.requestingBank = requestingBank;
+            this.interbankClient = interbankClient;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (ready.isEmpty()) {
+                if (!advance()) return false;
             }
+            return true;
+        }
 
-            JsonNode node = paths.path(p);
+        @Override
+        public Scenario next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return ready.poll();
+        }
 
-            // Обрабатываем все HTTP методы для данного эндпоинта
-            for (String m : List.of("get","post","put","delete")) {
-                JsonNode op = node.path(m);
+        /**
+         * Переходит к следующей операции и создает ее сценарии
+         * @return false если операции закончились
+         */
+        private boolean advance() {
+            while (true) {
+                if (path == null || methodIndex >= METHODS.size()) {
+                    if (!pathNames.hasNext()) return false;
+                    path = pathNames.next();
+                    methodIndex = 0;
+                    // Пропускаем проблемные эндпоинты
+                    if (SKIP_ENDPOINTS.stream().anyMatch(path::contains)) methodIndex = METHODS.size();
+                    continue;
+                }
+                String m = METHODS.get(methodIndex++);
+                JsonNode op = paths.path(path).path(m);
                 if (!op.isObject()) continue;
+                addScenarios(path, m, op);
+                return true;
+            }
+        }
+
+        private void addScenarios(String p, String m, JsonNode op) {
+            Scenario s = new Scenario();
+            s.path = p;
+            s.method = m.toUpperCase(Locale.ROOT);
+            s.label = "positive";
+
+            // Для межбанковских запросов к /accounts добавляем client_id и заголовки
+            if ("/accounts".equals(p) && interbankClient != null && !interbankClient.isBlank()) {
+                s.query.put("client_id", interbankClient);
+                if (requestingBank != null && !requestingBank.isBlank())
+                    s.headers.put("X-Requesting-Bank", requestingBank);
+            }
 
-                Scenario s = new Scenario();
-                s.path = p;
-                s.method = m.toUpperCase(Locale.ROOT);
-                s.label = "positive";
-                
-                // Для межбанковских запросов к /accounts добавляем client_id и заголовки
-                if ("/accounts".equals(p) && interbankClient != null && !interbankClient.isBlank()) {
-                    s.query.put("client_id", interbankClient);
-                    if (requestingBank != null && !requestingBank.isBlank())
-                        s.headers.put("X-Requesting-Bank", requestingBank);
+            // Генерируем тело запроса для POST/PUT методов если есть схема
+            JsonNode reqBody = op.path("requestBody").path("content").path("application/json").path("schema");
+            if (!p.contains("/consents") && !p.contains("/agreements")) {
+                if (reqBody.isObject()) {
+                    s.body = minimalValidJson(reqBody);
                 }
-                
-                // Генерируем тело запроса для POST/PUT методов если есть схема
-                if (!p.contains("/consents") && !p.contains("/agreements")) {
-                    JsonNode reqBody = op.path("requestBody").path("content").path("application/json").path("schema");
-                    if (reqBody.isObject()) {
-                        s.body = minimalValidJson(reqBody);
-                    }
+            }
+            ready.add(s);
+
+            // Создаем негативные сценарии только для безопасных эндпоинтов
+            if (!p.contains("/auth") && !p.contains("/consents")) {
+                Scenario neg = s.copy();
+                neg.label = "negative";
+                if (neg.query.containsKey("client_id")) {
+                    neg.query.put("client_id", "other-9999"); // Подмена client_id
+                } else if (neg.body != null && neg.body.isObject()) {
+                    // Добавляем неожиданное поле для проверки валидации
+                    ((ObjectNode) neg.body).put("_unexpected", "boom");
                 }
-                out.add(s);
-
-                // Создаем негативные сценарии только для безопасных эндпоинтов
-                if (!p.contains("/auth") && !p.contains("/consents")) {
-                    Scenario neg = s.copy();
-                    neg.label = "negative";
-                    if (neg.query.containsKey("client_id")) {
-                        neg.query.put("client_id", "other-9999"); // Подмена client_id
-                    } else if (neg.body != null && neg.body.isObject()) {
-                        // Добавляем неожиданное поле для проверки валидации
-                        ((com.fasterxml.jackson.databind.node.ObjectNode) neg.body).put("_unexpected", "boom");
+                ready.add(neg);
+
+                if (fuzzer != null && s.body != null) {
+                    for (SchemaFuzzer.Case c : fuzzer.cases(s.method + " " + p, reqBody, s.body, fuzzBudget)) {
+                        Scenario f = s.withBody(c.body);
+                        f.label = "fuzz";
+                        f.fuzz = c.description;
+                        f.expectRejected = c.invalid;
+                        ready.add(f);
                     }
-                    out.add(neg);
                 }
             }
         }
-        return out;
     }
 
     /**
@@ -120,7 +214,7 @@ public class ScenarioGenerator {
      * @return минимальный валидный JSON объект
      */
     private JsonNode minimalValidJson(JsonNode schema) {
-        var obj = om.createObjectNode();
+        ObjectNode obj = NODES.objectNode();
         if (!schema.isObject()) return obj;
         if ("object".equals(schema.path("type").asText())) {
             JsonNode props = schema.path("properties");
@@ -153,21 +247,21 @@ public class ScenarioGenerator {
             case "string":
                 if (s.has("enum") && s.get("enum").isArray() && s.get("enum").size() > 0)
                     return s.get("enum").get(0);
-                return new ObjectMapper().getNodeFactory().textNode("sample");
+                return NODES.textNode("sample");
             case "integer":
             case "number":
-                return new ObjectMapper().getNodeFactory().numberNode(1);
+                return NODES.numberNode(1);
             case "boolean":
-                return new ObjectMapper().getNodeFactory().booleanNode(true);
+                return NODES.booleanNode(true);
             case "array":
-                var arr = new ObjectMapper().createArrayNode();
+                var arr = NODES.arrayNode();
                 JsonNode items = s.path("items");
                 if (!items.isMissingNode()) arr.add(defaultFor(items));
                 return arr;
             case "object":
                 return minimalValidJson(s);
             default:
-                return new ObjectMapper().getNodeFactory().textNode("sample");
+                return NODES.textNode("sample");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package securityscanner.generator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import securityscanner.parser.CanonicalJsonHasher;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Сокращение сценариев по классам эквивалентности операций (--prune-scenarios).
+ *
+ * Операции с одинаковым методом, схемами тела запроса и ответов, набором параметров и
+ * требованиями безопасности API обрабатывает одинаково, и негативные мутации генератора
+ * (подмена client_id, лишнее поле тела) и fuzz тела дают на них одинаковый результат.
+ * Полный набор сценариев выполняется для первой операции класса (представителя), для
+ * остальных - только позитивный сценарий: запрос с проверкой ответа по контракту.
+ *
+ * Имена path-параметров в класс не входят (/accounts/{accountId} и /cards/{cardId}
+ * эквивалентны при одинаковых схемах), имена query и header параметров - входят.
+ * Экземпляр хранит состояние одного потока сценариев и не потокобезопасен.
+ */
+public class ScenarioPruner {
+
+    private final JsonNode paths;
+    private final CanonicalJsonHasher hasher = new CanonicalJsonHasher();
+    private final Map<String, String> classByOp = new HashMap<>();      // "GET /path" -> класс
+    private final Map<String, String> representatives = new HashMap<>(); // класс -> операция-представитель
+
+    private int scenarios;
+    private int pruned;
+
+    /**
+     * @param openapiRoot спецификация с подставленными $ref
+     */
+    public ScenarioPruner(JsonNode openapiRoot) {
+        this.paths = openapiRoot.path("paths");
+    }
+
+    /**
+     * Отбрасывает негативные и fuzz сценарии операций, не являющихся представителями своего класса.
+     * Поток остается ленивым: класс операции рассчитывается при появлении ее первого сценария.
+     */
+    public Stream<ScenarioGenerator.Scenario> prune(Stream<ScenarioGenerator.Scenario> in) {
+        return in.filter(this::keep);
+    }
+
+    private boolean keep(ScenarioGenerator.Scenario s) {
+        scenarios++;
+        if ("positive".equals(s.label)) return true;
+        String op = s.method + " " + s.path;
+        String cls = classByOp.computeIfAbsent(op, k -> classOf(s));
+        String representative = representatives.putIfAbsent(cls, op);
+        if (representative == null || representative.equals(op)) return true;
+        pruned++;
+        return false;
+    }
+
+    /**
+     * Отпечаток класса эквивалентности операции сценария
+     */
+    private String classOf(ScenarioGenerator.Scenario s) {
+        JsonNode item = paths.path(s.path);
+        JsonNode op = item.path(s.method.toLowerCase(Locale.ROOT));
+
+        StringBuilder sb = new StringBuilder(s.method);
+        sb.append("|security=").append(hasher.hex(op.path("security")));
+        sb.append("|body=").append(hasher.hex(op.path("requestBody").path("content").path("application/json").path("schema")));
+
+        List<String> params = new ArrayList<>();
+        addParameters(item.path("parameters"), params);
+        addParameters(op.path("parameters"), params);
+        Collections.sort(params);
+        sb.append("|params=").append(params);
+
+        List<String> responses = new ArrayList<>();
+        op.path("responses").fields().forEachRemaining(e -> responses.add(e.getKey() + ":"
+                + hasher.hex(e.getValue().path("content").path("application/json").path("schema"))));
+        Collections.sort(responses);
+        sb.append("|responses=").append(responses);
+
+        // Форма самого запроса: генератор добавляет client_id и заголовки только части операций
+        sb.append("|query=").append(new TreeSet<>(s.query.keySet()));
+        sb.append("|headers=").append(new TreeSet<>(s.headers.keySet()));
+        sb.append("|hasBody=").append(s.body != null);
+        return sb.toString();
+    }
+
+    private void addParameters(JsonNode list, List<String> out) {
+        if (!list.isArray()) return;
+        for (JsonNode p : list) {
+            String in = p.path("in").asText();
+            String name = "path".equals(in) ? "*" : p.path("name").asText();
+            out.add(in + ":" + name + ":" + p.path("required").asBoolean(false) + ":" + hasher.hex(p.path("schema")));
+        }
+    }
+
+    /**
+     * @return краткая сводка для вывода в конце генерации сценариев
+     */
+    public String summary() {
+        double ratio = scenarios > 0 ? 100.0 * pruned / scenarios : 0;
+        return String.format(Locale.ROOT, "Scenario pruning: %d operations in %d equivalence classes, "
+                + "%d of %d scenarios pruned (%.1f%%)", classByOp.size(), representatives.size(), pruned, scenarios, ratio);
+    }
+}
@@ -0,0 +1,506 @@
+package securityscanner.generator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Генератор fuzz тел запросов по JSON Schema операции (--fuzz-budget).
+ *
+ * Каждый случай - одна мутация минимального валидного тела: граничные значения чисел и
+ * длин строк, строки по формату (date, date-time, uuid, email, uri, IBAN) - корректные и
+ * некорректные, пустые и переполненные массивы, подмена типа, null и удаление обязательного поля.
+ * Для каждого случая известно, допускает ли его схема: сервер должен отклонять недопустимые
+ * тела ответом 4xx и ни на какое тело не отвечать 5xx.
+ *
+ * Случаи воспроизводимы: выбор мутаций и значений зависит только от seed и операции, а не от
+ * порядка обхода спецификации. Тело случая копирует только объекты на пути к измененному полю,
+ * остальные узлы общие с исходным телом и другими случаями, поэтому тела нельзя изменять.
+ * Места мутаций рассчитываются один раз на схему. Экземпляр не потокобезопасен.
+ */
+public class SchemaFuzzer {
+
+    public static final long DEFAULT_SEED = 1;
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final int MAX_DEPTH = 4;
+    private static final int MAX_SITES = 64;
+    private static final int UNBOUNDED_ARRAY_SIZE = 1000;
+    private static final String LONG_STRING = "A".repeat(10_000);
+    private static final String[] SPECIAL_STRINGS = {
+            "' OR '1'='1", "<script>alert(1)</script>", "../../../../etc/passwd", "\u0000",
+            "𝕏ünïcödé", "%00%0d%0a", "${jndi:ldap://127.0.0.1/a}", " "
+    };
+
+    /**
+     * Вид мутации поля
+     */
+    private enum Kind {
+        MISSING("missing required field"),
+        NULL("null"),
+        TYPE_CONFUSION("type confusion"),
+        MINIMUM("minimum"),
+        MAXIMUM("maximum"),
+        BELOW_MINIMUM("below minimum"),
+        ABOVE_MAXIMUM("above maximum"),
+        ZERO("zero"),
+        NEGATIVE("negative"),
+        OVERFLOW("numeric overflow"),
+        FRACTION("fraction for integer"),
+        EMPTY_STRING("empty string"),
+        SHORT_STRING("shorter than minLength"),
+        LONG_STRING("oversized string"),
+        SPECIAL_CHARS("special characters"),
+        FORMAT_VALID("valid format"),
+        FORMAT_INVALID("invalid format"),
+        NOT_IN_ENUM("value not in enum"),
+        EMPTY_ARRAY("empty array"),
+        OVERSIZED_ARRAY("oversized array"),
+        WRONG_ITEM_TYPE("wrong array item type");
+
+        final String text;
+
+        Kind(String text) { this.text = text; }
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    /**
+     * Fuzz тело запроса
+     */
+    public static final class Case {
+        public final JsonNode body;
+        public final String description;   // Поле и мутация, например "amount: above maximum"
+        public final boolean invalid;      // Тело не соответствует схеме и должно быть отклонено
+
+        Case(JsonNode body, String description, boolean invalid) {
+            this.body = body;
+            this.description = description;
+            this.invalid = invalid;
+        }
+    }
+
+    /**
+     * Поле тела, которое можно изменять, и применимые к нему мутации
+     */
+    private static final class Site {
+        final String[] path;     // Имена полей от корня тела; пустой - тело целиком
+        final String label;
+        final JsonNode schema;
+        final Kind[] kinds;
+
+        Site(String[] path, JsonNode schema, boolean required) {
+            this.path = path;
+            this.label = path.length == 0 ? "(body)" : String.join(".", path);
+            this.schema = schema;
+            this.kinds = kindsFor(schema, required, path.length == 0);
+        }
+    }
+
+    private final long seed;
+    private final Map<JsonNode, List<Site>> sitesBySchema = new IdentityHashMap<>();
+
+    public SchemaFuzzer(long seed) {
+        this.seed = seed;
+    }
+
+    public long seed() { return seed; }
+
+    /**
+     * Создает fuzz случаи для тела операции
+     * @param operation операция ("POST /payments") - определяет последовательность случайных чисел
+     * @param schema JSON Schema тела запроса
+     * @param validBody минимальное валидное тело по схеме (не изменяется)
+     * @param budget максимальное число случаев
+     */
+    public List<Case> cases(String operation, JsonNode schema, JsonNode validBody, int budget) {
+        if (budget <= 0 || !schema.isObject()) return List.of();
+        List<Site> sites = sitesBySchema.computeIfAbsent(schema, k -> collectSites(schema, validBody));
+
+        int total = 0;
+        for (Site site : sites) total += site.kinds.length;
+        int[] candidates = new int[total];
+        int n = 0;
+        for (int i = 0; i < sites.size(); i++) {
+            for (Kind k : sites.get(i).kinds) candidates[n++] = i * KINDS.length + k.ordinal();
+        }
+
+        SplittableRandom rnd = new SplittableRandom(seed ^ (operation.hashCode() * 0x9E3779B97F4A7C15L));
+        int count = Math.min(budget, total);
+        List<Case> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Частичное перемешивание Фишера-Йетса: выбираем count мутаций без повторов
+            int j = i + rnd.nextInt(total - i);
+            int c = candidates[j];
+            candidates[j] = candidates[i];
+            candidates[i] = c;
+            Case fuzzCase = mutate(sites.get(c / KINDS.length), KINDS[c % KINDS.length], validBody, rnd);
+            if (fuzzCase != null) out.add(fuzzCase);
+        }
+        return out;
+    }
+
+    // ---------- места мутаций ----------
+
+    private static List<Site> collectSites(JsonNode schema, JsonNode body) {
+        List<Site> out = new ArrayList<>();
+        out.add(new Site(new String[0], schema, true));
+        collectProperties(schema, body, new String[0], out);
+        return out;
+    }
+
+    private static void collectProperties(JsonNode schema, JsonNode body, String[] parent, List<Site> out) {
+        JsonNode props = schema.path("properties");
+        if (!props.isObject() || !body.isObject() || parent.length >= MAX_DEPTH) return;
+        Set<String> required = new HashSet<>();
+        schema.path("required").forEach(r -> required.add(r.asText()));
+
+        Iterator<Map.Entry<String, JsonNode>> it = props.fields();
+        while (it.hasNext() && out.size() < MAX_SITES) {
+            Map.Entry<String, JsonNode> e = it.next();
+            String[] path = Arrays.copyOf(parent, parent.length + 1);
+            path[parent.length] = e.getKey();
+            out.add(new Site(path, e.getValue(), required.contains(e.getKey())));
+            JsonNode child = body.get(e.getKey());
+            if (child != null) collectProperties(e.getValue(), child, path, out);
+        }
+    }
+
+    private static Kind[] kindsFor(JsonNode s, boolean required, boolean root) {
+        EnumSet<Kind> k = EnumSet.of(Kind.TYPE_CONFUSION);
+        if (root) return k.toArray(new Kind[0]);
+        k.add(Kind.NULL);
+        if (required) k.add(Kind.MISSING);
+        switch (s.path("type").asText()) {
+            case "integer":
+                k.add(Kind.FRACTION);
+                // fallthrough
+            case "number":
+                k.addAll(EnumSet.of(Kind.ZERO, Kind.NEGATIVE, Kind.OVERFLOW));
+                if (s.has("minimum")) k.addAll(EnumSet.of(Kind.MINIMUM, Kind.BELOW_MINIMUM));
+                if (s.has("maximum")) k.addAll(EnumSet.of(Kind.MAXIMUM, Kind.ABOVE_MAXIMUM));
+                break;
+            case "string":
+                k.addAll(EnumSet.of(Kind.EMPTY_STRING, Kind.LONG_STRING, Kind.SPECIAL_CHARS));
+                if (s.path("minLength").asInt(0) > 0) k.add(Kind.SHORT_STRING);
+                if (s.has("enum")) k.add(Kind.NOT_IN_ENUM);
+                if (formatOf(s) != null) k.addAll(EnumSet.of(Kind.FORMAT_VALID, Kind.FORMAT_INVALID));
+                break;
+            case "array":
+                k.addAll(EnumSet.of(Kind.EMPTY_ARRAY, Kind.OVERSIZED_ARRAY, Kind.WRONG_ITEM_TYPE));
+                break;
+            default:
+                break;
+        }
+        return k.toArray(new Kind[0]);
+    }
+
+    // ---------- мутации ----------
+
+    private Case mutate(Site site, Kind kind, JsonNode body, SplittableRandom rnd) {
+        JsonNode s = site.schema;
+        JsonNode value;
+        boolean invalid;
+        switch (kind) {
+            case MISSING:
+                return new Case(with(body, site.path, 0, null), site.label + ": " + kind.text, true);
+            case NULL:
+                value = NODES.nullNode();
+                invalid = !s.path("nullable").asBoolean(false);
+                break;
+            case TYPE_CONFUSION:
+                value = confuse(s);
+                invalid = true;
+                break;
+            case MINIMUM:
+                value = NODES.numberNode(s.get("minimum").decimalValue());
+                invalid = outOfRange(s, s.get("minimum").decimalValue());
+                break;
+            case MAXIMUM:
+                value = NODES.numberNode(s.get("maximum").decimalValue());
+                invalid = outOfRange(s, s.get("maximum").decimalValue());
+                break;
+            case BELOW_MINIMUM:
+                value = NODES.numberNode(s.get("minimum").decimalValue().subtract(BigDecimal.ONE));
+                invalid = true;
+                break;
+            case ABOVE_MAXIMUM:
+                value = NODES.numberNode(s.get("maximum").decimalValue().add(BigDecimal.ONE));
+                invalid = true;
+                break;
+            case ZERO:
+                value = NODES.numberNode(0);
+                invalid = outOfRange(s, BigDecimal.ZERO);
+                break;
+            case NEGATIVE:
+                long neg = -1 - rnd.nextInt(1000);
+                value = NODES.numberNode(neg);
+                invalid = outOfRange(s, BigDecimal.valueOf(neg));
+                break;
+            case OVERFLOW: {
+                // Без format и maximum схема допускает любое целое, в том числе больше long
+                BigDecimal huge = "integer".equals(s.path("type").asText())
+                        ? new BigDecimal(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE))
+                        : new BigDecimal("1e400");
+                value = NODES.numberNode(huge);
+                invalid = outOfRange(s, huge);
+                break;
+            }
+            case FRACTION:
+                value = NODES.numberNode(1.5);
+                invalid = true;
+                break;
+            case EMPTY_STRING:
+                value = NODES.textNode("");
+                invalid = invalidString(s, "", false);
+                break;
+            case SHORT_STRING: {
+                String v = LONG_STRING.substring(0, Math.min(s.path("minLength").asInt() - 1, LONG_STRING.length()));
+                value = NODES.textNode(v);
+                invalid = invalidString(s, v, false);
+                break;
+            }
+            case LONG_STRING: {
+                int max = s.path("maxLength").asInt(-1);
+                String v = max >= 0 && max < LONG_STRING.length() ? LONG_STRING.substring(0, max + 1) : LONG_STRING;
+                value = NODES.textNode(v);
+                invalid = invalidString(s, v, false);
+                break;
+            }
+            case SPECIAL_CHARS: {
+                String v = SPECIAL_STRINGS[rnd.nextInt(SPECIAL_STRINGS.length)];
+                value = NODES.textNode(v);
+                invalid = invalidString(s, v, false);
+                break;
+            }
+            case FORMAT_VALID: {
+                String v = validFormat(formatOf(s), rnd);
+                value = NODES.textNode(v);
+                invalid = invalidString(s, v, true);
+                break;
+            }
+            case FORMAT_INVALID:
+                value = NODES.textNode(invalidFormat(formatOf(s), rnd));
+                invalid = true;
+                break;
+            case NOT_IN_ENUM:
+                value = NODES.textNode("__not_in_enum_" + rnd.nextInt(1000));
+                invalid = true;
+                break;
+            case EMPTY_ARRAY:
+                value = NODES.arrayNode();
+                invalid = s.path("minItems").asInt(0) > 0;
+                break;
+            case OVERSIZED_ARRAY: {
+                int max = s.path("maxItems").asInt(-1);
+                int size = max >= 0 ? max + 1 : UNBOUNDED_ARRAY_SIZE;
+                JsonNode item = sampleItem(s.path("items"), body, site.path);
+                ArrayNode arr = NODES.arrayNode(size);
+                for (int i = 0; i < size; i++) arr.add(item); // Один и тот же узел - без копий
+                value = arr;
+                invalid = max >= 0 || (size > 1 && s.path("uniqueItems").asBoolean(false));
+                break;
+            }
+            case WRONG_ITEM_TYPE:
+                value = NODES.arrayNode(1).add(confuse(s.path("items")));
+                invalid = true;
+                break;
+            default:
+                return null;
+        }
+        if (site.path.length == 0) return new Case(value, site.label + ": " + kind.text, invalid);
+        return new Case(with(body, site.path, 0, value), site.label + ": " + kind.text, invalid);
+    }
+
+    /**
+     * Копирует объекты на пути к полю и заменяет (value == null - удаляет) его значение
+     */
+    private static JsonNode with(JsonNode node, String[] path, int depth, JsonNode value) {
+        ObjectNode copy = NODES.objectNode();
+        if (node.isObject()) copy.setAll((ObjectNode) node);
+        String name = path[depth];
+        if (depth == path.length - 1) {
+            if (value == null) copy.remove(name);
+            else copy.set(name, value);
+        } else {
+            JsonNode child = node.path(name);
+            copy.set(name, with(child.isObject() ? child : NODES.objectNode(), path, depth + 1, value));
+        }
+        return copy;
+    }
+
+    private static JsonNode sampleItem(JsonNode itemSchema, JsonNode body, String[] path) {
+        JsonNode current = body;
+        for (String p : path) current = current.path(p);
+        if (current.isArray() && current.size() > 0) return current.get(0);
+        switch (itemSchema.path("type").asText()) {
+            case "integer":
+            case "number":
+                return NODES.numberNode(1);
+            case "boolean":
+                return NODES.booleanNode(true);
+            case "object":
+                return NODES.objectNode();
+            default:
+                return NODES.textNode("sample");
+        }
+    }
+
+    /**
+     * Значение другого типа, чем требует схема
+     */
+    private static JsonNode confuse(JsonNode s) {
+        switch (s.path("type").asText()) {
+            case "string":
+                return NODES.numberNode(12345);
+            case "integer":
+            case "number":
+                return NODES.textNode("1");
+            case "boolean":
+                return NODES.textNode("true");
+            case "array":
+                return NODES.objectNode();
+            case "object":
+                return NODES.arrayNode();
+            default:
+                return NODES.booleanNode(false);
+        }
+    }
+
+    /**
+     * Число вне minimum/maximum, дробное для integer или вне диапазона format int32/int64
+     */
+    private static boolean outOfRange(JsonNode s, BigDecimal v) {
+        JsonNode min = s.get("minimum");
+        JsonNode max = s.get("maximum");
+        if (min != null && min.isNumber()) {
+            int c = v.compareTo(min.decimalValue());
+            if (c < 0 || (c == 0 && s.path("exclusiveMinimum").asBoolean(false))) return true;
+        }
+        if (max != null && max.isNumber()) {
+            int c = v.compareTo(max.decimalValue());
+            if (c > 0 || (c == 0 && s.path("exclusiveMaximum").asBoolean(false))) return true;
+        }
+        if (!"integer".equals(s.path("type").asText())) return false;
+        if (v.stripTrailingZeros().scale() > 0) return true;
+        switch (s.path("format").asText("")) {
+            case "int32":
+                return v.compareTo(BigDecimal.valueOf(Integer.MIN_VALUE)) < 0 || v.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0;
+            case "int64":
+                return v.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0 || v.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Строка вне minLength/maxLength (в кодовых точках, как в JSON Schema), не из enum,
+     * не соответствующая pattern или формату
+     * @param formatValid значение сгенерировано корректным для формата схемы
+     */
+    private static boolean invalidString(JsonNode s, String v, boolean formatValid) {
+        int length = v.codePointCount(0, v.length());
+        if (length < s.path("minLength").asInt(0)) return true;
+        JsonNode max = s.get("maxLength");
+        if (max != null && max.isNumber() && length > max.asInt()) return true;
+        if (s.has("enum")) {
+            boolean listed = false;
+            for (JsonNode e : s.get("enum")) listed |= v.equals(e.asText(null));
+            if (!listed) return true;
+        }
+        JsonNode pattern = s.get("pattern");
+        if (pattern != null && pattern.isTextual()) {
+            try {
+                if (!Pattern.compile(pattern.asText()).matcher(v).find()) return true;
+            } catch (PatternSyntaxException e) {
+                return true; // Шаблон не в синтаксисе Java: соответствие неизвестно, ждем отказа
+            }
+        }
+        return formatOf(s) != null && !formatValid;
+    }
+
+    // ---------- форматы строк ----------
+
+    private static String formatOf(JsonNode s) {
+        String f = s.path("format").asText("").toLowerCase(Locale.ROOT);
+        switch (f) {
+            case "date":
+            case "date-time":
+            case "uuid":
+            case "email":
+            case "uri":
+            case "iban":
+                return f;
+            default:
+                return null;
+        }
+    }
+
+    private static String validFormat(String format, SplittableRandom rnd) {
+        switch (format) {
+            case "date":
+                return pick(rnd, "2024-02-29", "1970-01-01", "9999-12-31", "2000-01-01");
+            case "date-time":
+                return pick(rnd, "2024-02-29T23:59:59Z", "1970-01-01T00:00:00+14:00", "2038-01-19T03:14:08.999Z");
+            case "uuid":
+                return uuid(rnd);
+            case "email":
+                return pick(rnd, "a@b.co", "first.last+tag@example.com");
+            case "uri":
+                return pick(rnd, "https://example.com/a?b=c", "urn:isbn:0451450523");
+            case "iban":
+                return iban(rnd, true);
+            default:
+                return "sample";
+        }
+    }
+
+    private static String invalidFormat(String format, SplittableRandom rnd) {
+        switch (format) {
+            case "date":
+                return pick(rnd, "2023-02-29", "2024-13-01", "2024-00-10", "24-01-01", "2024/01/01");
+            case "date-time":
+                return pick(rnd, "2024-02-29T24:00:00Z", "2024-02-29 12:00", "2024-02-29T12:00:00", "yesterday");
+            case "uuid":
+                return pick(rnd, "00000000-0000-0000-0000-00000000000g", "not-a-uuid", uuid(rnd).replace("-", ""));
+            case "email":
+                return pick(rnd, "plainaddress", "a@", "@b.co", "a@@b.co");
+            case "uri":
+                return pick(rnd, "://no-scheme", "http://[::1", "ht tp://x");
+            case "iban":
+                return iban(rnd, false);
+            default:
+                return "";
+        }
+    }
+
+    private static String pick(SplittableRandom rnd, String... values) {
+        return values[rnd.nextInt(values.length)];
+    }
+
+    private static String uuid(SplittableRandom rnd) {
+        long msb = (rnd.nextLong() & ~0xF000L) | 0x4000L;                    // версия 4
+        long lsb = (rnd.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L; // вариант RFC 4122
+        return new UUID(msb, lsb).toString();
+    }
+
+    /**
+     * IBAN DE с корректными (или намеренно неверными) контрольными цифрами ISO 13616
+     */
+    private static String iban(SplittableRandom rnd, boolean valid) {
+        StringBuilder bban = new StringBuilder(18);
+        for (int i = 0; i < 18; i++) bban.append((char) ('0' + rnd.nextInt(10)));
+        // DE -> 1314, контрольные цифры 00 переносятся в конец
+        int mod = new BigInteger(bban + "131400").mod(BigInteger.valueOf(97)).intValue();
+        int check = 98 - mod;
+        if (!valid) check = check == 98 ? 97 : check + 1;
+        return String.format("DE%02d%s", check, bban);
+    }
+}
@@ -0,0 +1,214 @@
+package securityscanner.http;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Адаптивный ограничитель частоты запросов (token bucket + AIMD).
+ * Подключается как interceptor к общему HTTP клиенту, поэтому действует на все
+ * запросы сканера: сценарии, пробы общих путей и RequestExecutor каждого плагина.
+ *
+ * До первого 429 скорость растет мультипликативно (медленный старт), после - аддитивно.
+ * На 429 скорость уменьшается вдвое; заголовки Retry-After и X-RateLimit-* учитываются
+ * как явные паузы и потолок скорости.
+ */
+public class AdaptiveRateLimiter implements Interceptor {
+
+    private static final double MIN_RATE = 0.2;           // Нижняя граница, запросов в секунду
+    private static final double SLOW_START_FACTOR = 1.10; // Рост до первого 429
+    private static final double ADDITIVE_STEP = 0.05;     // Рост после первого 429 (на каждый успешный ответ)
+    private static final double BACKOFF_FACTOR = 0.5;     // Снижение на 429
+    private static final double SERVER_ERROR_FACTOR = 0.8;
+    private static final long MAX_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(120);
+
+    private double rate;            // Текущая скорость, запросов в секунду
+    private double maxRate;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private long blockedUntilNanos; // Пауза по Retry-After / X-RateLimit-Reset
+    private boolean throttled;      // Был получен хотя бы один 429
+    private long lastBackoffNanos;  // Время последнего снижения скорости
+
+    // Статистика для итогового вывода
+    private long rateLimitedResponses;
+    private long totalWaitNanos;
+
+    public AdaptiveRateLimiter() {
+        this(2.0, 20.0);
+    }
+
+    /**
+     * @param initialRate начальная скорость, запросов в секунду
+     * @param maxRate максимальная скорость, запросов в секунду
+     */
+    public AdaptiveRateLimiter(double initialRate, double maxRate) {
+        configure(initialRate, maxRate);
+    }
+
+    /**
+     * Задает начальную и максимальную скорость
+     */
+    public synchronized void configure(double initialRate, double maxRate) {
+        this.maxRate = Math.max(MIN_RATE, maxRate);
+        this.rate = Math.min(this.maxRate, Math.max(MIN_RATE, initialRate));
+        this.tokens = 1;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        try {
+            acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for rate limiter");
+        }
+        Response response = chain.proceed(chain.request());
+        onResponse(response);
+        return response;
+    }
+
+    /**
+     * Блокирует поток до появления токена или окончания паузы сервера
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (now < blockedUntilNanos) {
+                    waitNanos = blockedUntilNanos - now;
+                } else {
+                    refill(now);
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    waitNanos = (long) ((1 - tokens) / rate * 1_000_000_000L);
+                }
+                totalWaitNanos += waitNanos;
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1_000_000L));
+        }
+    }
+
+    private void refill(long now) {
+        double burst = Math.max(1, rate);
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * rate);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * Корректирует скорость по коду ответа и заголовкам ограничения частоты
+     */
+    public synchronized void onResponse(Response r) {
+        int code = r.code();
+        long now = System.nanoTime();
+
+        if (code == 429) {
+            rateLimitedResponses++;
+            throttled = true;
+            tokens = 0;
+            // Параллельные запросы получают 429 пачкой - снижаем скорость не чаще раза в секунду
+            if (lastBackoffNanos == 0 || now - lastBackoffNanos > TimeUnit.SECONDS.toNanos(1)) {
+                lastBackoffNanos = now;
+                rate = Math.max(MIN_RATE, rate * BACKOFF_FACTOR);
+                System.out.println("Rate limit detected, reducing rate to " + format(rate) + " req/s");
+            }
+        } else if (code >= 500) {
+            rate = Math.max(MIN_RATE, rate * SERVER_ERROR_FACTOR);
+        } else {
+            rate = throttled
+                    ? Math.min(maxRate, rate + ADDITIVE_STEP)
+                    : Math.min(maxRate, rate * SLOW_START_FACTOR);
+        }
+
+        // Retry-After (429/503): явная пауза от сервера
+        long retryAfter = parseRetryAfterNanos(r.header("Retry-After"));
+        if (retryAfter > 0 && (code == 429 || code == 503)) {
+            pauseUntil(now + retryAfter);
+        }
+
+        // X-RateLimit-Remaining / X-RateLimit-Reset: не превышаем остаток квоты до сброса
+        long remaining = parseLong(r.header("X-RateLimit-Remaining"));
+        long resetNanos = parseResetNanos(r.header("X-RateLimit-Reset"));
+        if (remaining == 0 && resetNanos > 0) {
+            pauseUntil(now + resetNanos);
+        } else if (remaining > 0 && resetNanos > 0) {
+            double quotaRate = remaining / (resetNanos / 1_000_000_000.0);
+            rate = Math.max(MIN_RATE, Math.min(rate, quotaRate));
+        }
+    }
+
+    private void pauseUntil(long deadline) {
+        long capped = Math.min(deadline, System.nanoTime() + MAX_PAUSE_NANOS);
+        if (capped > blockedUntilNanos) {
+            blockedUntilNanos = capped;
+            tokens = 0;
+            System.out.println("Server requested pause of "
+                    + TimeUnit.NANOSECONDS.toSeconds(capped - System.nanoTime()) + "s");
+        }
+    }
+
+    /**
+     * Разбирает Retry-After: количество секунд или HTTP-дата
+     */
+    private static long parseRetryAfterNanos(String value) {
+        if (value == null || value.isBlank()) return 0;
+        long seconds = parseLong(value);
+        if (seconds >= 0) return TimeUnit.SECONDS.toNanos(seconds);
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toNanos());
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Разбирает X-RateLimit-Reset: секунды до сброса или unix-время сброса
+     */
+    private static long parseResetNanos(String value) {
+        long v = parseLong(value);
+        if (v <= 0) return 0;
+        if (v > 1_000_000_000L) {
+            v = v - System.currentTimeMillis() / 1000;
+            if (v <= 0) return 0;
+        }
+        return TimeUnit.SECONDS.toNanos(v);
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) return -1;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String format(double v) {
+        return String.format(Locale.ROOT, "%.2f", v);
+    }
+
+    /**
+     * @return текущая скорость, запросов в секунду
+     */
+    public synchronized double currentRate() { return rate; }
+
+    /**
+     * @return краткая статистика работы ограничителя для вывода в конце сканирования
+     */
+    public synchronized String summary() {
+        return "Rate limiter: current " + format(rate) + " req/s (max " + format(maxRate) + "), "
+                + rateLimitedResponses + " responses with 429, waited "
+                + TimeUnit.NANOSECONDS.toSeconds(totalWaitNanos) + "s in total";
+    }
+}
@@ -0,0 +1,257 @@
+package securityscanner.http;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Тело HTTP ответа, прочитанное один раз с ограничением по памяти.
+ *
+ * В памяти остается только начало тела (доказательство для отчета и текстовых проверок плагинов),
+ * остаток вычитывается из потока без сохранения. Для валидации по схеме JSON разбирается
+ * потоковым парсером Jackson прямо из сетевого потока, без промежуточной строки,
+ * с отдельным лимитом размера.
+ *
+ * Телом в формате JSON считается тело, которое начинается с { или [ и заканчивается } или ]:
+ * по последнему значащему байту всего тела, а не сохраненного начала. Данные после JSON
+ * значения ({"a":1}&lt;html&gt;) - ошибка разбора.
+ */
+public final class BoundedBody {
+
+    public static final int DEFAULT_TEXT_BYTES = 64 * 1024;           // Сохраняемое начало тела
+    public static final long DEFAULT_MAX_JSON_BYTES = 8L * 1024 * 1024; // Лимит разбора JSON
+
+    private static final ObjectMapper OM = new ObjectMapper()
+            .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+
+    private final String text;
+    private final long totalBytes;
+    private final boolean truncated;
+    private final JsonNode json;
+    private final Exception jsonError;
+    private final boolean jsonTooLarge;
+    private final boolean jsonShaped;
+
+    private BoundedBody(String text, long totalBytes, boolean truncated,
+                        JsonNode json, Exception jsonError, boolean jsonTooLarge, boolean jsonShaped) {
+        this.text = text;
+        this.totalBytes = totalBytes;
+        this.truncated = truncated;
+        this.json = json;
+        this.jsonError = jsonError;
+        this.jsonTooLarge = jsonTooLarge;
+        this.jsonShaped = jsonShaped;
+    }
+
+    /**
+     * @return пустое тело (ответ без тела или ошибка чтения)
+     */
+    public static BoundedBody empty() {
+        return new BoundedBody("", 0, false, null, null, false, false);
+    }
+
+    /**
+     * Читает тело ответа для текстовых проверок (без разбора JSON)
+     * @param r HTTP ответ (тело будет полностью вычитано)
+     * @return начало тела ответа
+     */
+    public static BoundedBody read(Response r) throws IOException {
+        return read(r, DEFAULT_TEXT_BYTES, false, 0);
+    }
+
+    /**
+     * Читает тело ответа и, если оно похоже на JSON, разбирает его потоковым парсером
+     * @param r HTTP ответ (тело будет полностью вычитано)
+     * @return начало тела ответа и JSON дерево (если разбор удался и тело в пределах лимита)
+     */
+    public static BoundedBody readJson(Response r) throws IOException {
+        return read(r, DEFAULT_TEXT_BYTES, true, DEFAULT_MAX_JSON_BYTES);
+    }
+
+    /**
+     * @param r HTTP ответ
+     * @param textBytes сколько байт начала тела сохранить
+     * @param parseJson разбирать ли JSON
+     * @param maxJsonBytes лимит размера тела для разбора JSON
+     */
+    public static BoundedBody read(Response r, int textBytes, boolean parseJson, long maxJsonBytes) throws IOException {
+        ResponseBody body = r.body();
+        if (body == null) return empty();
+
+        Charset charset = StandardCharsets.UTF_8;
+        MediaType mt = body.contentType();
+        if (mt != null && mt.charset() != null) charset = mt.charset();
+
+        TailInputStream in = new TailInputStream(body.byteStream());
+        byte[] head = readUpTo(in, textBytes);
+        long total = head.length;
+        int first = firstNonSpace(head);
+
+        JsonNode json = null;
+        Exception jsonError = null;
+        boolean jsonTooLarge = false;
+        if (parseJson && (first == '{' || first == '[')) {
+            LimitedInputStream rest = new LimitedInputStream(in, Math.max(0, maxJsonBytes - head.length));
+            try {
+                json = OM.readTree(new SequenceInputStream(new ByteArrayInputStream(head), rest));
+            } catch (BodyTooLargeException e) {
+                jsonTooLarge = true;
+            } catch (JsonProcessingException e) {
+                // Ошибка синтаксиса JSON (не сети) - сохраняем для отчета
+                jsonError = e;
+            }
+            total += rest.count;
+        }
+        total += drain(in);
+
+        String text = new String(head, charset);
+        boolean jsonShaped = (first == '{' && in.last == '}') || (first == '[' && in.last == ']');
+        return new BoundedBody(text, total, total > head.length, json, jsonError, jsonTooLarge, jsonShaped);
+    }
+
+    private static byte[] readUpTo(InputStream in, int limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(limit, 8192));
+        byte[] buf = new byte[8192];
+        int remaining = limit;
+        while (remaining > 0) {
+            int n = in.read(buf, 0, Math.min(buf.length, remaining));
+            if (n < 0) break;
+            out.write(buf, 0, n);
+            remaining -= n;
+        }
+        return out.toByteArray();
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        long n = 0;
+        byte[] buf = new byte[8192];
+        int read;
+        while ((read = in.read(buf)) >= 0) n += read;
+        return n;
+    }
+
+    private static int firstNonSpace(byte[] head) {
+        for (byte b : head) {
+            if (!isSpace(b)) return b;
+        }
+        return -1;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /** @return сохраненное начало тела ответа */
+    public String text() { return text; }
+
+    /** @return полный размер тела в байтах */
+    public long totalBytes() { return totalBytes; }
+
+    /** @return true если тело длиннее сохраненного начала */
+    public boolean isTruncated() { return truncated; }
+
+    public boolean isBlank() { return text.isBlank(); }
+
+    /** @return разобранный JSON или null */
+    public JsonNode json() { return json; }
+
+    /** @return ошибка синтаксиса JSON или null */
+    public Exception jsonError() { return jsonError; }
+
+    /** @return true если тело похоже на JSON, но превышает лимит разбора */
+    public boolean isJsonTooLarge() { return jsonTooLarge; }
+
+    /** @return true если тело начинается с { или [ и заканчивается } или ] */
+    public boolean looksLikeJson() { return jsonShaped; }
+
+    /**
+     * Обрезает тело ответа для отображения в отчете
+     * @param maxChars максимальная длина
+     */
+    public String snippet(int maxChars) {
+        if (text.length() > maxChars) return text.substring(0, maxChars) + "...(truncated)";
+        return truncated ? text + "...(truncated)" : text;
+    }
+
+    /**
+     * Поток тела, запоминающий последний значащий байт (конец тела не сохраняется в памяти)
+     */
+    private static final class TailInputStream extends FilterInputStream {
+        int last = -1;
+
+        TailInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && !isSpace((byte) b)) last = b;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            for (int i = off + n - 1; i >= off; i--) {
+                if (!isSpace(b[i])) {
+                    last = b[i];
+                    break;
+                }
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Поток с ограничением числа прочитанных байт
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) check(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) check(n);
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // Jackson закрывает источник после разбора; поток тела закрывает Response,
+            // а остаток тела еще нужно вычитать
+        }
+
+        private void check(int n) throws BodyTooLargeException {
+            count += n;
+            if (count > limit) throw new BodyTooLargeException();
+        }
+    }
+
+    private static final class BodyTooLargeException extends IOException {
+        BodyTooLargeException() {
+            super("Response body exceeds JSON parse limit");
+        }
+    }
+}
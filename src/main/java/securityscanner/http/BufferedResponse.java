@@ -0,0 +1,80 @@
+package securityscanner.http;
+
+import okhttp3.*;
+
+import java.io.IOException;
+
+/**
+ * HTTP ответ, полностью прочитанный в память: код, заголовки и тело.
+ * Из него можно многократно построить новый {@link Response} для другого запроса
+ * (повторное использование ответа кэшем или несколькими ожидающими вызовами).
+ */
+public final class BufferedResponse {
+
+    private final int code;
+    private final String message;
+    private final Protocol protocol;
+    private final Headers headers;
+    private final byte[] body;
+    private final MediaType contentType;
+    private final Handshake handshake;
+    private final long sentAtMillis;
+    private final long receivedAtMillis;
+
+    private BufferedResponse(Response r, byte[] body, MediaType contentType) {
+        this.code = r.code();
+        this.message = r.message();
+        this.protocol = r.protocol();
+        this.headers = r.headers();
+        this.handshake = r.handshake();
+        this.sentAtMillis = r.sentRequestAtMillis();
+        this.receivedAtMillis = r.receivedResponseAtMillis();
+        this.body = body;
+        this.contentType = contentType;
+    }
+
+    /**
+     * Буферизует ответ, не вычитывая его исходное тело ({@link Response#peekBody}),
+     * поэтому исходный ответ можно вернуть вызывающему коду как есть
+     * @param maxBodyBytes лимит размера тела
+     * @return буферизованный ответ или null если тело длиннее лимита
+     */
+    public static BufferedResponse peek(Response r, long maxBodyBytes) throws IOException {
+        ResponseBody peeked = r.peekBody(maxBodyBytes + 1);
+        byte[] bytes = peeked.bytes();
+        if (bytes.length > maxBodyBytes) return null;
+        ResponseBody original = r.body();
+        return new BufferedResponse(r, bytes, original != null ? original.contentType() : null);
+    }
+
+    /**
+     * Полностью вычитывает и закрывает ответ
+     * @param maxBodyBytes лимит размера тела
+     * @return буферизованный ответ или null если тело длиннее лимита (ответ все равно закрывается)
+     */
+    public static BufferedResponse read(Response r, long maxBodyBytes) throws IOException {
+        try (r) {
+            return peek(r, maxBodyBytes);
+        }
+    }
+
+    /**
+     * Строит новый ответ с копией тела для указанного запроса
+     */
+    public Response toResponse(Request request) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(protocol)
+                .code(code)
+                .message(message)
+                .headers(headers)
+                .handshake(handshake)
+                .body(ResponseBody.create(body, contentType))
+                .sentRequestAtMillis(sentAtMillis)
+                .receivedResponseAtMillis(receivedAtMillis)
+                .build();
+    }
+
+    public int code() { return code; }
+    public int bodySize() { return body.length; }
+}
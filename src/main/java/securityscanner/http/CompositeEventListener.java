@@ -0,0 +1,52 @@
+package securityscanner.http;
+
+import okhttp3.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * EventListener, передающий все события нескольким слушателям по порядку.
+ * Позволяет одновременно вести общую статистику соединений и метрики отдельного вызова.
+ */
+public class CompositeEventListener extends EventListener {
+
+    private final EventListener[] listeners;
+
+    public CompositeEventListener(EventListener... listeners) {
+        this.listeners = listeners;
+    }
+
+    @Override public void callStart(Call call) { for (EventListener l : listeners) l.callStart(call); }
+    @Override public void proxySelectStart(Call call, HttpUrl url) { for (EventListener l : listeners) l.proxySelectStart(call, url); }
+    @Override public void proxySelectEnd(Call call, HttpUrl url, List<Proxy> proxies) { for (EventListener l : listeners) l.proxySelectEnd(call, url, proxies); }
+    @Override public void dnsStart(Call call, String domainName) { for (EventListener l : listeners) l.dnsStart(call, domainName); }
+    @Override public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) { for (EventListener l : listeners) l.dnsEnd(call, domainName, addresses); }
+    @Override public void connectStart(Call call, InetSocketAddress address, Proxy proxy) { for (EventListener l : listeners) l.connectStart(call, address, proxy); }
+    @Override public void secureConnectStart(Call call) { for (EventListener l : listeners) l.secureConnectStart(call); }
+    @Override public void secureConnectEnd(Call call, Handshake handshake) { for (EventListener l : listeners) l.secureConnectEnd(call, handshake); }
+    @Override public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) { for (EventListener l : listeners) l.connectEnd(call, address, proxy, protocol); }
+    @Override public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol, IOException ioe) { for (EventListener l : listeners) l.connectFailed(call, address, proxy, protocol, ioe); }
+    @Override public void connectionAcquired(Call call, Connection connection) { for (EventListener l : listeners) l.connectionAcquired(call, connection); }
+    @Override public void connectionReleased(Call call, Connection connection) { for (EventListener l : listeners) l.connectionReleased(call, connection); }
+    @Override public void requestHeadersStart(Call call) { for (EventListener l : listeners) l.requestHeadersStart(call); }
+    @Override public void requestHeadersEnd(Call call, Request request) { for (EventListener l : listeners) l.requestHeadersEnd(call, request); }
+    @Override public void requestBodyStart(Call call) { for (EventListener l : listeners) l.requestBodyStart(call); }
+    @Override public void requestBodyEnd(Call call, long byteCount) { for (EventListener l : listeners) l.requestBodyEnd(call, byteCount); }
+    @Override public void requestFailed(Call call, IOException ioe) { for (EventListener l : listeners) l.requestFailed(call, ioe); }
+    @Override public void responseHeadersStart(Call call) { for (EventListener l : listeners) l.responseHeadersStart(call); }
+    @Override public void responseHeadersEnd(Call call, Response response) { for (EventListener l : listeners) l.responseHeadersEnd(call, response); }
+    @Override public void responseBodyStart(Call call) { for (EventListener l : listeners) l.responseBodyStart(call); }
+    @Override public void responseBodyEnd(Call call, long byteCount) { for (EventListener l : listeners) l.responseBodyEnd(call, byteCount); }
+    @Override public void responseFailed(Call call, IOException ioe) { for (EventListener l : listeners) l.responseFailed(call, ioe); }
+    @Override public void callEnd(Call call) { for (EventListener l : listeners) l.callEnd(call); }
+    @Override public void callFailed(Call call, IOException ioe) { for (EventListener l : listeners) l.callFailed(call, ioe); }
+    @Override public void canceled(Call call) { for (EventListener l : listeners) l.canceled(call); }
+    @Override public void satisfactionFailure(Call call, Response response) { for (EventListener l : listeners) l.satisfactionFailure(call, response); }
+    @Override public void cacheHit(Call call, Response response) { for (EventListener l : listeners) l.cacheHit(call, response); }
+    @Override public void cacheMiss(Call call) { for (EventListener l : listeners) l.cacheMiss(call); }
+    @Override public void cacheConditionalHit(Call call, Response cachedResponse) { for (EventListener l : listeners) l.cacheConditionalHit(call, cachedResponse); }
+}
@@ -0,0 +1,73 @@
+package securityscanner.http;
+
+import okhttp3.*;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Статистика использования соединений общего HTTP клиента.
+ * Подключается как EventListener и считает новые соединения, TLS рукопожатия
+ * и повторно использованные соединения из пула.
+ */
+public class ConnectionStats extends EventListener {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder connectionsAcquired = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder tlsHandshakes = new LongAdder();
+    private final LongAdder http2Connections = new LongAdder();
+
+    @Override
+    public void callStart(Call call) {
+        calls.increment();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        tlsHandshakes.increment();
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+        connectionsOpened.increment();
+        if (protocol == Protocol.HTTP_2) http2Connections.increment();
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol, java.io.IOException ioe) {
+        connectFailures.increment();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        connectionsAcquired.increment();
+    }
+
+    public long calls() { return calls.sum(); }
+    public long connectionsOpened() { return connectionsOpened.sum(); }
+    public long tlsHandshakes() { return tlsHandshakes.sum(); }
+
+    /**
+     * @return количество запросов, обслуженных уже открытым соединением из пула
+     */
+    public long connectionsReused() {
+        return Math.max(0, connectionsAcquired.sum() - connectionsOpened.sum());
+    }
+
+    /**
+     * @return краткая статистика для вывода в конце сканирования
+     */
+    public String summary() {
+        long acquired = connectionsAcquired.sum();
+        long reused = connectionsReused();
+        double reuseRatio = acquired == 0 ? 0 : 100.0 * reused / acquired;
+        return "HTTP connections: " + calls.sum() + " calls, " + connectionsOpened.sum() + " opened ("
+                + tlsHandshakes.sum() + " TLS handshakes, " + http2Connections.sum() + " HTTP/2), "
+                + reused + " reused (" + String.format(Locale.ROOT, "%.1f", reuseRatio) + "%), "
+                + connectFailures.sum() + " connect failures";
+    }
+}
@@ -0,0 +1,120 @@
+package securityscanner.http;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import securityscanner.metrics.ScanMetrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фабрика единого HTTP клиента сканера.
+ * Все компоненты (аудитор, парсер OpenAPI, RequestExecutor плагинов) получают клиентов,
+ * разделяющих один пул соединений и один Dispatcher, поэтому соединения и TLS сессии
+ * переиспользуются, а HTTP/2 мультиплексирует запросы к одному банку.
+ * Каждый вызов сопровождается слушателем метрик ({@link ScanMetrics}).
+ */
+public class HttpClientFactory {
+
+    private final int maxIdleConnections;
+    private final long keepAliveSeconds;
+    private final int maxRequestsPerHost;
+    private final boolean preferHttp2;
+    private final ConnectionStats stats = new ConnectionStats();
+    private final ScanMetrics metrics = new ScanMetrics();
+    private final HttpClientFactory parent; // Фабрика, пул и Dispatcher которой используются, иначе null
+
+    private OkHttpClient client; // Создается один раз при первом обращении
+
+    /**
+     * Создает фабрику с настройками по умолчанию
+     */
+    public HttpClientFactory() {
+        this(16, 300, 4, true);
+    }
+
+    /**
+     * @param maxIdleConnections размер пула простаивающих соединений
+     * @param keepAliveSeconds время жизни простаивающего соединения, секунд
+     * @param maxRequestsPerHost максимум одновременных асинхронных запросов к одному хосту
+     * @param preferHttp2 предпочитать HTTP/2 (иначе только HTTP/1.1)
+     */
+    public HttpClientFactory(int maxIdleConnections, long keepAliveSeconds, int maxRequestsPerHost, boolean preferHttp2) {
+        this.maxIdleConnections = Math.max(1, maxIdleConnections);
+        this.keepAliveSeconds = Math.max(1, keepAliveSeconds);
+        this.maxRequestsPerHost = Math.max(1, maxRequestsPerHost);
+        this.preferHttp2 = preferHttp2;
+        this.parent = null;
+    }
+
+    private HttpClientFactory(HttpClientFactory parent) {
+        this.maxIdleConnections = parent.maxIdleConnections;
+        this.keepAliveSeconds = parent.keepAliveSeconds;
+        this.maxRequestsPerHost = parent.maxRequestsPerHost;
+        this.preferHttp2 = parent.preferHttp2;
+        this.parent = parent;
+    }
+
+    /**
+     * Создает фабрику, клиенты которой разделяют пул соединений и Dispatcher этой фабрики,
+     * но собирают собственные метрики и статистику соединений.
+     * Используется при сканировании нескольких банков в одном процессе: пул общий,
+     * а метрики и отчеты у каждого банка свои.
+     */
+    public HttpClientFactory derive() {
+        return new HttpClientFactory(this);
+    }
+
+    /**
+     * Возвращает общий HTTP клиент сканера.
+     * Производные клиенты ({@code client().newBuilder()...build()}) разделяют пул соединений,
+     * Dispatcher и сбор статистики.
+     */
+    public synchronized OkHttpClient client() {
+        if (client == null && parent != null) {
+            client = parent.client().newBuilder()
+                    .eventListenerFactory(metrics.listenerFactory(stats))
+                    .build();
+        }
+        if (client == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+            dispatcher.setMaxRequests(Math.max(64, maxRequestsPerHost * 4));
+
+            client = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                    .dispatcher(dispatcher)
+                    .protocols(preferHttp2 ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+                    .eventListenerFactory(metrics.listenerFactory(stats))
+                    .callTimeout(Duration.ofSeconds(30))
+                    .readTimeout(Duration.ofSeconds(30))
+                    .build();
+        }
+        return client;
+    }
+
+    /**
+     * @return статистика переиспользования соединений
+     */
+    public ConnectionStats stats() {
+        return stats;
+    }
+
+    /**
+     * @return метрики запросов всех клиентов фабрики
+     */
+    public ScanMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * @return описание настроек для вывода при запуске
+     */
+    public String describe() {
+        return "pool " + maxIdleConnections + " idle connections, keep-alive " + keepAliveSeconds + "s, "
+                + maxRequestsPerHost + " requests per host, " + (preferHttp2 ? "HTTP/2 preferred" : "HTTP/1.1 only");
+    }
+}
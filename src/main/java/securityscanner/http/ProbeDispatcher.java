@@ -0,0 +1,143 @@
+package securityscanner.http;
+
+import okhttp3.HttpUrl;
+import securityscanner.metrics.PluginProfiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Диспетчер проб плагинов безопасности.
+ * Запускает независимые проверки плагина параллельно и ограничивает
+ * количество одновременных запросов к одному хосту.
+ *
+ * На Java 21+ пробы выполняются в виртуальных потоках (проверка во время выполнения,
+ * т.к. проект собирается под Java 17), иначе - в ограниченном пуле платформенных потоков.
+ * В последовательном режиме пробы выполняются в вызывающем потоке, как раньше.
+ */
+public class ProbeDispatcher implements AutoCloseable {
+
+    private final ExecutorService executor; // null - последовательный режим
+    private final boolean virtualThreads;
+    private final int maxPerHost;
+    private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    private ProbeDispatcher(ExecutorService executor, boolean virtualThreads, int maxPerHost) {
+        this.executor = executor;
+        this.virtualThreads = virtualThreads;
+        this.maxPerHost = maxPerHost;
+    }
+
+    /**
+     * Создает диспетчер, выполняющий пробы последовательно в вызывающем потоке
+     */
+    public static ProbeDispatcher sequential() {
+        return new ProbeDispatcher(null, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Создает параллельный диспетчер
+     * @param preferVirtualThreads использовать виртуальные потоки, если JVM их поддерживает
+     * @param maxPerHost максимальное число одновременных запросов к одному хосту
+     * @return диспетчер с виртуальными или платформенными потоками
+     */
+    public static ProbeDispatcher create(boolean preferVirtualThreads, int maxPerHost) {
+        int cap = Math.max(1, maxPerHost);
+        if (preferVirtualThreads) {
+            ExecutorService vt = newVirtualThreadExecutor();
+            if (vt != null) return new ProbeDispatcher(vt, true, cap);
+            System.out.println("Virtual threads are not available on Java " + Runtime.version().feature()
+                    + ", falling back to platform threads");
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(cap, r -> {
+            Thread t = new Thread(r, "probe-worker-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        return new ProbeDispatcher(pool, false, cap);
+    }
+
+    /**
+     * Создает executor с виртуальным потоком на задачу через reflection (Java 21+)
+     * @return executor или null если виртуальные потоки недоступны
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        if (Runtime.version().feature() < 21) return null;
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public boolean isParallel() { return executor != null; }
+    public boolean isVirtualThreads() { return virtualThreads; }
+    public int maxPerHost() { return maxPerHost; }
+
+    /**
+     * Выполняет пробы и возвращает результаты в порядке передачи,
+     * независимо от порядка их завершения.
+     * @param probes список независимых проверок
+     * @return результаты проверок в исходном порядке
+     * @throws Exception первая ошибка пробы (после завершения всех проб)
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> probes) throws Exception {
+        List<T> results = new ArrayList<>(probes.size());
+        if (executor == null) {
+            for (Callable<T> probe : probes) results.add(probe.call());
+            return results;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(probes.size());
+        // Память и паузы пробы учитываются в профиле плагина
+        for (Callable<T> probe : probes) futures.add(executor.submit(PluginProfiler.propagate(probe)));
+
+        Exception firstError = null;
+        for (Future<T> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (ExecutionException e) {
+                if (firstError == null) {
+                    firstError = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+                results.add(null);
+            }
+        }
+        if (firstError != null) throw firstError;
+        return results;
+    }
+
+    /**
+     * Выполняет сетевой вызов, удерживая разрешение хоста из URL.
+     * Ограничивает число одновременных запросов к одному хосту значением maxPerHost.
+     * @param url целевой URL (используется для определения хоста)
+     * @param call сетевой вызов
+     * @return результат вызова
+     */
+    public <T> T withHostPermit(String url, Callable<T> call) throws Exception {
+        if (executor == null) return call.call();
+
+        Semaphore permits = hostPermits.computeIfAbsent(hostOf(url), h -> new Semaphore(maxPerHost, true));
+        permits.acquire();
+        try {
+            return call.call();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static String hostOf(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        return parsed != null ? parsed.host() + ":" + parsed.port() : url;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) executor.shutdownNow();
+    }
+}
@@ -1,29 +1,78 @@
 package securityscanner.http;
 
 import okhttp3.*;
-import java.time.Duration;
+import securityscanner.core.ExecutionContext;
+import securityscanner.metrics.MetricsTag;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * HTTP клиент для выполнения запросов к API.
  * Обеспечивает централизованное управление таймаутами и логированием.
+ * Помимо блокирующих методов предоставляет асинхронные варианты на базе
+ * {@code Call.enqueue} и пакетное выполнение с выдачей результатов по мере готовности.
  */
 public class RequestExecutor {
 
     private final OkHttpClient http;
     private final boolean verbose;
+    private final ProbeDispatcher probes;
+    private final String metricsSource; // Источник запросов в метриках сканирования
+    private final boolean reuseCached;  // GET запросы могут получить ответ из ResponseCache
+    private final boolean distinct;     // Не объединять одинаковые запросы (SingleFlight)
 
     /**
-     * Создает экземпляр RequestExecutor с настройками таймаутов
+     * Создает экземпляр RequestExecutor поверх общего HTTP клиента
+     * (таймауты и пул соединений задаются в HttpClientFactory)
      * @param http базовый HTTP клиент
      * @param verbose режим подробного логирования
      */
     public RequestExecutor(OkHttpClient http, boolean verbose) {
-        this.http = http.newBuilder()
-                .callTimeout(Duration.ofSeconds(30))
-                .readTimeout(Duration.ofSeconds(30))
-                .build();
+        this(http, verbose, ProbeDispatcher.sequential(), null, false, false);
+    }
+
+    /**
+     * Создает экземпляр RequestExecutor для плагина с общими зависимостями контекста
+     * @param ctx контекст выполнения (HTTP клиент, режим логирования, диспетчер проб)
+     */
+    public RequestExecutor(ExecutionContext ctx) {
+        this(ctx.http, ctx.verbose, ctx.probes, ctx.metricsSource, false, false);
+    }
+
+    private RequestExecutor(OkHttpClient http, boolean verbose, ProbeDispatcher probes, String metricsSource,
+                            boolean reuseCached, boolean distinct) {
+        this.http = http;
         this.verbose = verbose;
+        this.probes = probes != null ? probes : ProbeDispatcher.sequential();
+        this.metricsSource = metricsSource;
+        this.reuseCached = reuseCached;
+        this.distinct = distinct;
+    }
+
+    /**
+     * Возвращает исполнитель, GET запросы которого могут получить ответ из {@link ResponseCache}
+     * (если кэш включен). Подходит плагинам, которые только анализируют ответ;
+     * замеры rate limiting и повторные вызовы должны использовать обычный исполнитель.
+     */
+    public RequestExecutor reusingCachedResponses() {
+        return new RequestExecutor(http, verbose, probes, metricsSource, true, distinct);
+    }
+
+    /**
+     * Возвращает исполнитель, каждый запрос которого выполняется отдельным сетевым вызовом:
+     * одинаковые одновременные запросы не объединяются {@link SingleFlight}.
+     * Нужен проверкам, которые считают ответы сервера (замеры rate limiting, повторные вызовы).
+     */
+    public RequestExecutor distinctCalls() {
+        return new RequestExecutor(http, verbose, probes, metricsSource, reuseCached, true);
     }
 
     /**
@@ -33,10 +82,7 @@ public class RequestExecutor {
      * @return HTTP ответ
      */
     public Response get(String url, Map<String, String> headers) throws Exception {
-        Request.Builder rb = new Request.Builder().url(url).get();
-        headers.forEach(rb::addHeader);
-        if (verbose) System.out.println("GET " + url + " " + headers);
-        return http.newCall(rb.build()).execute();
+        return execute(url, newGet(url, headers));
     }
 
     /**
@@ -47,13 +93,199 @@ public class RequestExecutor {
      * @return HTTP ответ
      */
     public Response postJson(String url, String json, Map<String, String> headers) throws Exception {
+        return execute(url, newPostJson(url, json, headers));
+    }
+
+    /**
+     * Асинхронно выполняет GET запрос
+     * @param url целевой URL
+     * @param headers HTTP заголовки
+     * @return future с HTTP ответом (ответ нужно закрыть после обработки)
+     */
+    public CompletableFuture<Response> getAsync(String url, Map<String, String> headers) {
+        return executeAsync(newGet(url, headers));
+    }
+
+    /**
+     * Асинхронно выполняет POST запрос с JSON телом
+     * @param url целевой URL
+     * @param json JSON тело запроса
+     * @param headers HTTP заголовки
+     * @return future с HTTP ответом (ответ нужно закрыть после обработки)
+     */
+    public CompletableFuture<Response> postJsonAsync(String url, String json, Map<String, String> headers) {
+        return executeAsync(newPostJson(url, json, headers));
+    }
+
+    /**
+     * Асинхронно выполняет произвольный запрос через {@code Call.enqueue}.
+     * Ограничение одновременных запросов к хосту обеспечивает Dispatcher общего клиента.
+     * Отмена future отменяет HTTP вызов.
+     * @param request HTTP запрос
+     * @return future с HTTP ответом
+     */
+    public CompletableFuture<Response> executeAsync(Request request) {
+        Call call = http.newCall(request);
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        future.whenComplete((r, e) -> {
+            if (future.isCancelled()) call.cancel();
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call c, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call c, Response response) {
+                // Если future уже отменен, ответ никому не нужен
+                if (!future.complete(response)) response.close();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Отправляет все запросы сразу и выдает результаты по мере их завершения.
+     * Итератор блокируется до готовности следующего результата; каждый результат
+     * нужно закрыть после обработки. Пакет используется в try-with-resources: если обработка
+     * прервана исключением, {@link Batch#close()} отменяет незавершенные вызовы и закрывает
+     * уже полученные, но не выданные ответы, чтобы они не удерживали соединения общего пула.
+     * @param requests список запросов
+     * @return результаты в порядке завершения (индекс исходного запроса - в {@link BatchResult#index})
+     */
+    public Batch executeBatch(List<Request> requests) {
+        Batch batch = new Batch(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            int index = i;
+            Request request = requests.get(i);
+            CompletableFuture<Response> future = executeAsync(request);
+            batch.calls.add(future);
+            future.whenComplete((r, e) -> batch.add(new BatchResult(index, request, r, e)));
+        }
+        return batch;
+    }
+
+    /**
+     * Создает GET запрос (для асинхронного и пакетного выполнения)
+     */
+    public Request newGet(String url, Map<String, String> headers) {
+        Request.Builder rb = new Request.Builder().url(url).get().tag(MetricsTag.class, tag());
+        if (reuseCached) rb.tag(ResponseCache.Reuse.class, ResponseCache.REUSE);
+        if (distinct) rb.tag(SingleFlight.Distinct.class, SingleFlight.DISTINCT);
+        headers.forEach(rb::addHeader);
+        if (verbose) System.out.println("GET " + url + " " + headers);
+        return rb.build();
+    }
+
+    /**
+     * Создает POST запрос с JSON телом (для асинхронного и пакетного выполнения)
+     */
+    public Request newPostJson(String url, String json, Map<String, String> headers) {
         RequestBody body = RequestBody.create(json, MediaType.parse("application/json"));
-        Request.Builder rb = new Request.Builder().url(url).post(body);
+        Request.Builder rb = new Request.Builder().url(url).post(body).tag(MetricsTag.class, tag());
+        if (distinct) rb.tag(SingleFlight.Distinct.class, SingleFlight.DISTINCT);
         headers.forEach(rb::addHeader);
         if (verbose) {
             System.out.println("POST " + url + " " + headers);
             System.out.println("Body: " + (json.length() > 1000 ? json.substring(0, 1000) + "...(truncated)" : json));
         }
-        return http.newCall(rb.build()).execute();
+        return rb.build();
+    }
+
+    private MetricsTag tag() {
+        return metricsSource != null ? new MetricsTag(metricsSource, null) : null;
+    }
+
+    /**
+     * Выполняет запрос с учетом ограничения одновременных запросов к хосту
+     */
+    private Response execute(String url, Request request) throws Exception {
+        return probes.withHostPermit(url, () -> http.newCall(request).execute());
+    }
+
+    /**
+     * Пакет запросов: результаты выдаются итератором по мере завершения
+     */
+    public static final class Batch implements Iterable<BatchResult>, AutoCloseable {
+        private final List<CompletableFuture<Response>> calls = new ArrayList<>();
+        private final BlockingQueue<BatchResult> completed = new LinkedBlockingQueue<>();
+        private final int total;
+        private volatile boolean closed;
+
+        private Batch(int total) {
+            this.total = total;
+        }
+
+        private void add(BatchResult r) {
+            completed.add(r);
+            // Результат пришел после close(): его уже никто не заберет
+            if (closed) drain();
+        }
+
+        private void drain() {
+            BatchResult r;
+            while ((r = completed.poll()) != null) r.close();
+        }
+
+        @Override
+        public Iterator<BatchResult> iterator() {
+            return new Iterator<>() {
+                private int delivered;
+
+                @Override
+                public boolean hasNext() {
+                    return delivered < total;
+                }
+
+                @Override
+                public BatchResult next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    try {
+                        BatchResult r = completed.take();
+                        delivered++;
+                        return r;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for batch results", e);
+                    }
+                }
+            };
+        }
+
+        /**
+         * Отменяет незавершенные вызовы и закрывает не выданные итератором ответы.
+         * Выданные результаты закрывает тот, кто их обработал.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            for (CompletableFuture<Response> call : calls) call.cancel(true);
+            drain();
+        }
+    }
+
+    /**
+     * Результат одного запроса пакета: ответ или ошибка
+     */
+    public static class BatchResult implements AutoCloseable {
+        public final int index;          // Индекс запроса в исходном списке
+        public final Request request;
+        public final Response response;  // null при ошибке
+        public final Throwable error;    // null при успехе
+
+        BatchResult(int index, Request request, Response response, Throwable error) {
+            this.index = index;
+            this.request = request;
+            this.response = response;
+            this.error = error;
+        }
+
+        public boolean isSuccess() { return response != null; }
+
+        @Override
+        public void close() {
+            if (response != null) response.close();
+        }
     }
-}
\ No newline at end of file
+}
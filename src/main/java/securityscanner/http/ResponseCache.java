@@ -0,0 +1,165 @@
+package securityscanner.http;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш ответов на идемпотентные GET запросы на время сканирования (включается --response-cache).
+ *
+ * Несколько плагинов запрашивают одни и те же эндпоинты (/accounts, /health, /) только
+ * для анализа ответа. Такие запросы помечаются меткой {@link #REUSE} и при повторе
+ * получают сохраненный ответ без обращения к серверу. Ключ - метод, URL и контекст
+ * авторизации (хеш заголовков Authorization, X-Consent-Id, X-Requesting-Bank), поэтому
+ * запросы без токена или с подмененным токеном не получают чужой ответ.
+ * Записи живут не дольше TTL, при переполнении вытесняется давно не использованная.
+ *
+ * Перехватчик стоит перед ограничителем частоты: попадание в кэш не расходует токены.
+ * Запросы без метки (замеры rate limiting, повторные вызовы бизнес-процессов) идут в сеть как обычно.
+ * Ответы 429 и 5xx не кэшируются. Кэш только в памяти - ответы с данными счетов не пишутся на диск.
+ */
+public class ResponseCache implements Interceptor {
+
+    /** Метка запроса: ответ можно взять из кэша и сохранить в кэш */
+    public static final Reuse REUSE = new Reuse();
+
+    public static final long DEFAULT_MAX_BODY_BYTES = 1024 * 1024;
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long maxBodyBytes;
+    private final Map<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param ttlSeconds время жизни записи
+     * @param maxEntries максимальное число записей (LRU)
+     */
+    public ResponseCache(long ttlSeconds, int maxEntries) {
+        this(ttlSeconds, maxEntries, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    public ResponseCache(long ttlSeconds, int maxEntries, long maxBodyBytes) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, ttlSeconds));
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBodyBytes = maxBodyBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= ResponseCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method()) || request.tag(Reuse.class) == null) {
+            return chain.proceed(request);
+        }
+
+        String key = key(request);
+        BufferedResponse cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached.toResponse(request);
+        }
+        misses.increment();
+
+        Response response = chain.proceed(request);
+        if (response.code() != 429 && response.code() < 500) {
+            BufferedResponse buffered = BufferedResponse.peek(response, maxBodyBytes);
+            if (buffered != null) store(key, buffered);
+        }
+        return response;
+    }
+
+    private synchronized BufferedResponse lookup(String key) {
+        Entry e = entries.get(key);
+        if (e == null) return null;
+        if (System.nanoTime() - e.storedAtNanos > ttlNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return e.response;
+    }
+
+    private synchronized void store(String key, BufferedResponse response) {
+        entries.put(key, new Entry(response, System.nanoTime()));
+    }
+
+    /**
+     * Ключ кэша: метод, URL и хеш контекста авторизации. Значения разделяются переводом
+     * строки, которого не бывает в заголовках, а отсутствующий заголовок отличается от
+     * пустого и от строки "null" - разные контексты не дают одинаковый хеш.
+     */
+    static String key(Request request) {
+        String auth = headerPart(request, "Authorization") + "\n" + headerPart(request, "X-Consent-Id")
+                + "\n" + headerPart(request, "X-Requesting-Bank");
+        return request.method() + " " + request.url() + " " + sha256(auth);
+    }
+
+    private static String headerPart(Request request, String name) {
+        String value = request.header(name);
+        return value == null ? "-" : "=" + value;
+    }
+
+    private static String sha256(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 12; i++) sb.append(String.format("%02x", d[i]));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long hits() { return hits.sum(); }
+    public long misses() { return misses.sum(); }
+    public long evictions() { return evictions.sum(); }
+
+    public synchronized int size() { return entries.size(); }
+
+    /**
+     * @return краткая сводка для вывода в конце сканирования
+     */
+    public String summary() {
+        long h = hits.sum(), m = misses.sum();
+        long total = h + m;
+        return "Response cache: " + h + " hits, " + m + " misses"
+                + (total > 0 ? " (" + (h * 100 / total) + "% hit rate)" : "")
+                + ", " + size() + " entries, " + evictions.sum() + " evictions";
+    }
+
+    /**
+     * Тип метки запроса, разрешающей повторное использование ответа
+     */
+    public static final class Reuse {
+        private Reuse() {}
+    }
+
+    private static final class Entry {
+        final BufferedResponse response;
+        final long storedAtNanos;
+
+        Entry(BufferedResponse response, long storedAtNanos) {
+            this.response = response;
+            this.storedAtNanos = storedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package securityscanner.http;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import securityscanner.metrics.MetricsTag;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Бюджет сканирования: предельное время (--time-budget) и число сетевых запросов (--max-requests).
+ *
+ * Стоит в цепочке после кэша ответов и объединения запросов, поэтому учитывает только
+ * запросы, ушедшие в сеть. Запрос сверх бюджета не отправляется: интерцептор бросает
+ * {@link ExhaustedException}, а аудитор отмечает прерванную работу как пропущенную.
+ *
+ * Бюджет распределяется по этапам: этап получает долю остатка бюджета на момент начала
+ * ({@link #startPhase}), неизрасходованная часть переходит к следующим этапам. Внутри этапа
+ * с несколькими участниками (плагины) участник при старте получает равную долю остатка
+ * этапа ({@link #allocate}), по источнику запросов из {@link MetricsTag}.
+ */
+public class ScanBudget implements Interceptor {
+
+    public static final String SCENARIO = "scenario";
+    public static final String PLUGIN = "plugin";
+    public static final String PROBE = "probe";
+
+    private static final String EXHAUSTED = "Scan budget exhausted";
+
+    /**
+     * Запрос не отправлен: бюджет исчерпан
+     */
+    public static final class ExhaustedException extends IOException {
+        ExhaustedException(String reason) {
+            super(EXHAUSTED + ": " + reason);
+        }
+    }
+
+    /**
+     * Пропущенная из-за бюджета работа
+     */
+    public static class Skipped {
+        public String kind;    // scenario / plugin / probe
+        public String item;    // Сценарий ("POST /payments fuzz: amount: null"), id плагина или путь
+        public String reason;
+
+        public Skipped() {}
+
+        Skipped(String kind, String item, String reason) {
+            this.kind = kind;
+            this.item = item;
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * Раздел бюджета в отчете (meta.budget)
+     */
+    public static class Report {
+        public long maxRequests;           // 0 - без ограничения
+        public long timeBudgetSeconds;     // 0 - без ограничения
+        public long requestsUsed;
+        public long requestsDenied;
+        public long elapsedSeconds;
+        public String exhausted;           // Причина исчерпания или null
+        public Map<String, Integer> skippedByKind = new TreeMap<>();
+        public List<Skipped> skipped = new ArrayList<>();
+
+        public Report() {}
+    }
+
+    private final long maxRequests;
+    private final long timeBudgetNanos;
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> usedBySource = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> deniedBySource = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> sourceLimits = new ConcurrentHashMap<>();
+    private final Queue<Skipped> skipped = new ConcurrentLinkedQueue<>();
+
+    private volatile long started = System.nanoTime();
+    private volatile String phase;
+    private volatile long phaseLimit = Long.MAX_VALUE;    // Абсолютное значение счетчика used
+    private volatile long phaseDeadline = Long.MAX_VALUE; // System.nanoTime()
+    private volatile String exhausted;
+    private int parties;
+
+    /**
+     * @param maxRequests предельное число сетевых запросов (0 - без ограничения)
+     * @param timeBudgetSeconds предельное время сканирования, секунд (0 - без ограничения)
+     */
+    public ScanBudget(long maxRequests, long timeBudgetSeconds) {
+        this.maxRequests = Math.max(0, maxRequests);
+        this.timeBudgetNanos = Math.max(0, timeBudgetSeconds) * 1_000_000_000L;
+    }
+
+    public boolean isLimited() {
+        return maxRequests > 0 || timeBudgetNanos > 0;
+    }
+
+    /**
+     * Начинает отсчет времени бюджета
+     */
+    public void start() {
+        started = System.nanoTime();
+    }
+
+    /**
+     * Начинает этап сканирования
+     * @param name этап (для причины пропуска)
+     * @param share доля остатка бюджета, доступная этапу (0..1]
+     * @param participants число участников этапа, между которыми делится его бюджет
+     */
+    public synchronized void startPhase(String name, double share, int participants) {
+        long now = System.nanoTime();
+        phase = name;
+        parties = Math.max(1, participants);
+        sourceLimits.clear();
+        if (maxRequests > 0) {
+            long left = Math.max(0, maxRequests - used.get());
+            phaseLimit = used.get() + (long) Math.ceil(left * share);
+        }
+        if (timeBudgetNanos > 0) {
+            long left = Math.max(0, started + timeBudgetNanos - now);
+            phaseDeadline = now + (long) (left * share);
+        }
+    }
+
+    /**
+     * Выделяет участнику этапа равную долю оставшегося бюджета этапа; доли участников,
+     * завершившихся раньше, достаются следующим
+     * @param source источник запросов участника (MetricsTag.source)
+     */
+    public synchronized void allocate(String source) {
+        if (maxRequests <= 0) return;
+        long left = Math.max(0, phaseLimit - used.get());
+        long share = (long) Math.ceil((double) left / Math.max(1, parties));
+        parties = Math.max(1, parties - 1);
+        sourceLimits.put(source, usedBy(source) + share);
+    }
+
+    /**
+     * Участник этапа завершился без выделения доли (пропущен): его доля остается следующим
+     */
+    public synchronized void release() {
+        parties = Math.max(1, parties - 1);
+    }
+
+    /**
+     * @return причина, по которой новая работа этапа не начинается, или null
+     */
+    public String phaseExhaustedReason() {
+        if (exhausted != null) return exhausted;
+        if (maxRequests > 0 && used.get() >= phaseLimit) return "request budget of " + phase + " phase used";
+        if (timeBudgetNanos > 0 && System.nanoTime() >= phaseDeadline) return "time budget of " + phase + " phase used";
+        return null;
+    }
+
+    public boolean phaseExhausted() {
+        return phaseExhaustedReason() != null;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        if (!isLimited()) return chain.proceed(chain.request());
+        MetricsTag tag = chain.request().tag(MetricsTag.class);
+        String source = tag != null ? tag.source : null;
+
+        String reason = deny(source);
+        if (reason != null) {
+            denied.incrementAndGet();
+            if (source != null) deniedBySource.computeIfAbsent(source, k -> new AtomicLong()).incrementAndGet();
+            throw new ExhaustedException(reason);
+        }
+        return chain.proceed(chain.request());
+    }
+
+    /**
+     * Резервирует запрос в бюджете
+     * @return причина отказа или null, если запрос можно отправить
+     */
+    private String deny(String source) {
+        long now = System.nanoTime();
+        if (timeBudgetNanos > 0 && now - started >= timeBudgetNanos) return exhaust("time budget of " + timeBudgetNanos / 1_000_000_000L + " s used");
+        if (timeBudgetNanos > 0 && now >= phaseDeadline) return "time budget of " + phase + " phase used";
+        long n = used.incrementAndGet();
+        if (maxRequests <= 0) return null;
+        String reason = null;
+        if (n > maxRequests) reason = exhaust("request budget of " + maxRequests + " used");
+        else if (n > phaseLimit) reason = "request budget of " + phase + " phase used";
+        else if (source != null) {
+            Long limit = sourceLimits.get(source);
+            AtomicLong bySource = usedBySource.computeIfAbsent(source, k -> new AtomicLong());
+            // Как и общий счетчик: увеличение с откатом, чтобы параллельные запросы участника не превысили долю
+            if (bySource.incrementAndGet() > (limit != null ? limit : Long.MAX_VALUE)) {
+                bySource.decrementAndGet();
+                reason = "request share of " + source + " used";
+            }
+        }
+        if (reason != null) used.decrementAndGet();
+        return reason;
+    }
+
+    private String exhaust(String reason) {
+        if (exhausted == null) {
+            exhausted = reason;
+            System.out.println("Scan budget exhausted (" + reason + "), remaining work is skipped");
+        }
+        return reason;
+    }
+
+    private long usedBy(String source) {
+        AtomicLong n = usedBySource.get(source);
+        return n != null ? n.get() : 0;
+    }
+
+    /**
+     * @return сколько запросов источника не отправлено из-за бюджета
+     */
+    public long deniedFor(String source) {
+        AtomicLong n = deniedBySource.get(source);
+        return n != null ? n.get() : 0;
+    }
+
+    /**
+     * Отмечает работу, пропущенную из-за бюджета
+     */
+    public void skip(String kind, String item, String reason) {
+        skipped.add(new Skipped(kind, item, reason));
+    }
+
+    /**
+     * @return true если сообщение описывает отказ бюджета (finding о сбое запроса, а не о проблеме API)
+     */
+    public static boolean isBudgetMessage(String message) {
+        return message != null && message.contains(EXHAUSTED);
+    }
+
+    /**
+     * @return раздел бюджета для отчета или null, если бюджет не задан
+     */
+    public Report report() {
+        if (!isLimited()) return null;
+        Report r = new Report();
+        r.maxRequests = maxRequests;
+        r.timeBudgetSeconds = timeBudgetNanos / 1_000_000_000L;
+        r.requestsUsed = used.get();
+        r.requestsDenied = denied.get();
+        r.elapsedSeconds = (System.nanoTime() - started) / 1_000_000_000L;
+        r.exhausted = exhausted;
+        for (Skipped s : skipped) {
+            r.skipped.add(s);
+            r.skippedByKind.merge(s.kind, 1, Integer::sum);
+        }
+        return r;
+    }
+
+    /**
+     * @return краткая сводка для вывода в конце сканирования
+     */
+    public String summary() {
+        Report r = report();
+        if (r == null) return "Scan budget: unlimited";
+        return "Scan budget: " + r.requestsUsed + (maxRequests > 0 ? "/" + maxRequests : "") + " requests, "
+                + r.elapsedSeconds + (r.timeBudgetSeconds > 0 ? "/" + r.timeBudgetSeconds : "") + " s"
+                + (r.skipped.isEmpty() ? ", nothing skipped" : ", skipped " + r.skippedByKind);
+    }
+}
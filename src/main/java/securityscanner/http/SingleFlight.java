@@ -0,0 +1,115 @@
+package securityscanner.http;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Объединение одновременных одинаковых запросов (single-flight).
+ *
+ * Параллельные плагины часто в один момент отправляют побайтно одинаковые GET запросы
+ * (тот же URL и те же заголовки, включая Authorization и X-Consent-Id). Первый запрос
+ * выполняется в сеть, остальные ждут его и получают копию буферизованного ответа.
+ * Объединяются только идемпотентные GET/HEAD запросы; запросы с меткой {@link #DISTINCT}
+ * (замеры rate limiting, повторные вызовы бизнес-процессов) всегда выполняются отдельно.
+ *
+ * Если первый запрос завершился ошибкой или его тело превышает лимит буфера,
+ * ожидающие запросы выполняются самостоятельно.
+ */
+public class SingleFlight implements Interceptor {
+
+    /** Метка запроса: не объединять с другими */
+    public static final Distinct DISTINCT = new Distinct();
+
+    private final long maxBodyBytes;
+    private final ConcurrentMap<String, CompletableFuture<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlight() {
+        this(ResponseCache.DEFAULT_MAX_BODY_BYTES);
+    }
+
+    /**
+     * @param maxBodyBytes лимит размера тела, которое раздается ожидающим запросам
+     */
+    public SingleFlight(long maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String method = request.method();
+        if (!("GET".equals(method) || "HEAD".equals(method)) || request.tag(Distinct.class) != null) {
+            return chain.proceed(request);
+        }
+
+        String key = method + " " + request.url() + " " + request.headers().toMultimap();
+        CompletableFuture<BufferedResponse> mine = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            BufferedResponse shared = await(leader);
+            if (shared != null) {
+                coalesced.increment();
+                return shared.toResponse(request);
+            }
+            return chain.proceed(request);
+        }
+
+        leaders.increment();
+        try {
+            Response response = chain.proceed(request);
+            try {
+                mine.complete(BufferedResponse.peek(response, maxBodyBytes));
+            } catch (IOException | RuntimeException e) {
+                // Ответ уже получен, но не передан вызывающему - освобождаем соединение
+                response.close();
+                throw e;
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            mine.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static BufferedResponse await(CompletableFuture<BufferedResponse> leader) throws IOException {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for identical in-flight request");
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    public long coalesced() { return coalesced.sum(); }
+
+    /**
+     * @return краткая сводка для вывода в конце сканирования
+     */
+    public String summary() {
+        return "Request coalescing: " + coalesced.sum() + " requests served by identical in-flight calls ("
+                + leaders.sum() + " network calls eligible)";
+    }
+
+    /**
+     * Тип метки запроса, запрещающей объединение
+     */
+    public static final class Distinct {
+        private Distinct() {}
+    }
+}
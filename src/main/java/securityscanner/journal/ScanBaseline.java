@@ -0,0 +1,151 @@
+package securityscanner.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import securityscanner.core.model.Finding;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Результаты последнего сканирования API вместе с отпечатками спецификации
+ * (для --incremental). Для каждой операции, плагина и пробы хранятся отпечаток
+ * той части спецификации, от которой они зависят, и findings. При следующем
+ * сканировании работа с тем же отпечатком не выполняется, а ее findings
+ * берутся из базовой линии.
+ *
+ * Файл: {reportsDir}/baseline/{host}-{hash}.json, перезаписывается атомарно после каждого сканирования.
+ */
+public class ScanBaseline {
+
+    public static final String OPERATION = "operations";
+    public static final String PLUGIN = "plugins";
+    public static final String PROBE = "probes";
+
+    private static final ObjectMapper OM = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Результат одной единицы работы
+     */
+    public static class Entry {
+        public String fingerprint;
+        public List<Finding> findings = new ArrayList<>();
+
+        public Entry() {}
+
+        Entry(String fingerprint, List<Finding> findings) {
+            this.fingerprint = fingerprint;
+            this.findings = new ArrayList<>(findings);
+        }
+    }
+
+    // Поля сериализуются Jackson как есть
+    public String baseUrl;
+    public String openapi;
+    public String updatedAt;
+    public String context;  // Общий отпечаток спецификации и параметры сканирования
+    public Map<String, Entry> operations = new TreeMap<>();
+    public Map<String, Entry> plugins = new TreeMap<>();
+    public Map<String, Entry> probes = new TreeMap<>();
+
+    public ScanBaseline() {}
+
+    /**
+     * Создает пустую базовую линию для заполнения текущим сканированием
+     * @param context отпечаток общего контекста (при его изменении базовая линия не используется)
+     */
+    public static ScanBaseline create(String baseUrl, String openapi, String context) {
+        ScanBaseline b = new ScanBaseline();
+        b.baseUrl = baseUrl;
+        b.openapi = openapi;
+        b.context = context;
+        return b;
+    }
+
+    /**
+     * @return файл базовой линии для базового URL API
+     */
+    public static Path fileFor(Path dir, String baseUrl) {
+        String host = baseUrl.replaceFirst("^[a-zA-Z]+://", "").replaceAll("[^A-Za-z0-9.-]+", "_");
+        if (host.length() > 40) host = host.substring(0, 40);
+        return dir.resolve(host + "-" + shortHash(baseUrl) + ".json");
+    }
+
+    /**
+     * Загружает базовую линию предыдущего сканирования
+     * @return базовая линия или null если файла нет или он поврежден
+     */
+    public static ScanBaseline load(Path file) {
+        if (!Files.exists(file)) return null;
+        try {
+            return OM.readValue(file.toFile(), ScanBaseline.class);
+        } catch (IOException e) {
+            System.out.println("Scan baseline is unreadable, running full scan: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return findings сохраненной работы, если ее отпечаток совпадает, иначе null
+     */
+    public synchronized List<Finding> reuse(String kind, String key, String fingerprint) {
+        Entry e = section(kind).get(key);
+        if (e == null || fingerprint == null || !fingerprint.equals(e.fingerprint)) return null;
+        return e.findings;
+    }
+
+    /**
+     * Сохраняет результат работы текущего сканирования
+     * @param kind operations / plugins / probes
+     */
+    public synchronized void record(String kind, String key, String fingerprint, List<Finding> findings) {
+        if (fingerprint == null) return;
+        section(kind).put(key, new Entry(fingerprint, findings));
+    }
+
+    private Map<String, Entry> section(String kind) {
+        switch (kind) {
+            case OPERATION: return operations;
+            case PLUGIN: return plugins;
+            case PROBE: return probes;
+            default: throw new IllegalArgumentException("Unknown baseline section: " + kind);
+        }
+    }
+
+    /**
+     * @return отпечатки операций (для описания изменений спецификации)
+     */
+    public synchronized Map<String, String> operationFingerprints() {
+        Map<String, String> out = new TreeMap<>();
+        operations.forEach((k, v) -> out.put(k, v.fingerprint));
+        return out;
+    }
+
+    /**
+     * Атомарно записывает базовую линию (через временный файл)
+     */
+    public synchronized void save(Path file) throws IOException {
+        updatedAt = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        OM.writeValue(tmp.toFile(), this);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String shortHash(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return String.format("%02x%02x%02x%02x", d[0], d[1], d[2], d[3]);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
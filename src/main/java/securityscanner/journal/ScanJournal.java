@@ -0,0 +1,263 @@
+package securityscanner.journal;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import securityscanner.core.model.Finding;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Журнал сканирования на диске: завершенные сценарии, плагины и пробы вместе с их findings,
+ * а также созданное согласие. Каждая запись - отдельная строка JSON, дописывается и
+ * сбрасывается на диск сразу после завершения работы, поэтому при прерывании сканирования
+ * (Ctrl+C, падение, долгая пауза 429) теряется только незавершенная работа.
+ *
+ * Сканирование с --resume &lt;scan-id&gt; дописывает тот же журнал: выполненная работа
+ * пропускается, а ее findings берутся из журнала. Оборванная последняя строка игнорируется.
+ * Заголовок журнала хранит спецификацию, базовый URL и параметры генерации сценариев (fuzz,
+ * сокращение сценариев): продолжение с другой целью или другим набором сценариев не допускается,
+ * иначе в отчет попали бы findings и согласие другого сканирования.
+ */
+public class ScanJournal implements AutoCloseable {
+
+    public static final String SCENARIO = "scenario";
+    public static final String PLUGIN = "plugin";
+    public static final String PROBE = "probe";
+
+    private static final TypeReference<List<Finding>> FINDINGS = new TypeReference<>() {};
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final String scanId;
+    private final Path file;
+    private final boolean resumed;
+    private final Map<String, List<Finding>> completed = new HashMap<>();
+    private final BufferedWriter out;
+
+    private String openapi;
+    private String baseUrl;
+    private String scenarioSettings = "";
+    private String consentId;
+    private String consentStatus;
+    private Instant consentValidUntil;
+
+    private ScanJournal(String scanId, Path file, boolean resumed) throws IOException {
+        this.scanId = scanId;
+        this.file = file;
+        this.resumed = resumed;
+        if (resumed) load();
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Начинает новый журнал с новым идентификатором сканирования
+     * @param dir каталог журналов
+     * @param scenarioSettings параметры, от которых зависит набор сценариев
+     */
+    public static ScanJournal create(Path dir, String openapi, String baseUrl, String scenarioSettings) throws IOException {
+        Files.createDirectories(dir);
+        String scanId = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+                + "-" + Integer.toHexString(ThreadLocalRandom.current().nextInt(0x1000, 0x10000));
+        ScanJournal journal = new ScanJournal(scanId, dir.resolve(scanId + ".jsonl"), false);
+        ObjectNode header = journal.entry("scan");
+        header.put("openapi", openapi);
+        header.put("baseUrl", baseUrl);
+        header.put("scenarios", scenarioSettings);
+        journal.openapi = openapi;
+        journal.baseUrl = baseUrl;
+        journal.scenarioSettings = scenarioSettings;
+        journal.append(header);
+        return journal;
+    }
+
+    /**
+     * Открывает журнал прерванного сканирования для продолжения
+     * @param dir каталог журналов
+     * @param scanId идентификатор сканирования
+     * @param scenarioSettings параметры, от которых зависит набор сценариев
+     * @throws IllegalStateException если журнал не найден, относится к другой спецификации или
+     *                               другому базовому URL, или сценарии генерировались с другими параметрами
+     */
+    public static ScanJournal resume(Path dir, String scanId, String openapi, String baseUrl,
+                                     String scenarioSettings) throws IOException {
+        Path file = dir.resolve(scanId + ".jsonl");
+        if (!Files.exists(file)) {
+            throw new IllegalStateException("Scan journal not found: " + file.toAbsolutePath());
+        }
+        ScanJournal journal = new ScanJournal(scanId, file, true);
+        if (!Objects.equals(journal.openapi, openapi) || !Objects.equals(journal.baseUrl, baseUrl)) {
+            journal.close();
+            throw new IllegalStateException("Scan " + scanId + " was run against " + journal.baseUrl
+                    + " with spec " + journal.openapi + " (now " + baseUrl + " with spec " + openapi
+                    + "); resume with the same --base-url and --openapi");
+        }
+        if (!journal.scenarioSettings.equals(scenarioSettings)) {
+            journal.close();
+            throw new IllegalStateException("Scan " + scanId + " generated scenarios with different settings ("
+                    + describe(journal.scenarioSettings) + ", now " + describe(scenarioSettings)
+                    + "); resume with the same --fuzz-budget, --fuzz-seed and --prune-scenarios");
+        }
+        journal.append(journal.entry("resume"));
+        return journal;
+    }
+
+    private void load() throws IOException {
+        int lineNo = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            JsonNode e;
+            try {
+                e = om.readTree(line);
+            } catch (IOException ex) {
+                // Запись, оборванная при прерывании сканирования
+                System.out.println("Scan journal: skipping incomplete entry at line " + lineNo);
+                continue;
+            }
+            switch (e.path("type").asText()) {
+                case "scan":
+                    openapi = e.path("openapi").asText(null);
+                    baseUrl = e.path("baseUrl").asText(null);
+                    // Журналы без поля scenarios писались без fuzz и сокращения сценариев
+                    scenarioSettings = e.path("scenarios").asText("");
+                    break;
+                case "done":
+                    completed.put(key(e.path("kind").asText(), e.path("key").asText()),
+                            om.convertValue(e.path("findings"), FINDINGS));
+                    break;
+                case "consent":
+                    consentId = e.path("consentId").asText(null);
+                    consentStatus = e.path("status").asText(null);
+                    consentValidUntil = e.hasNonNull("validUntil") ? Instant.parse(e.get("validUntil").asText()) : null;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    public String scanId() { return scanId; }
+    public Path file() { return file; }
+    public boolean isResumed() { return resumed; }
+
+    /**
+     * @return id согласия из журнала, если срок его действия не истек, иначе null
+     */
+    public String consentId() {
+        if (consentId == null) return null;
+        if (consentValidUntil != null && Instant.now().isAfter(consentValidUntil)) return null;
+        return consentId;
+    }
+
+    /**
+     * @return true если согласие из журнала было одобрено (иначе оно еще ожидало подтверждения)
+     */
+    public boolean isConsentApproved() {
+        return "approved".equals(consentStatus);
+    }
+
+    /**
+     * Записывает созданное или одобренное согласие
+     * @param status pending / approved
+     * @param validUntil срок действия согласия (null - неизвестен)
+     */
+    public void recordConsent(String consentId, String status, Instant validUntil) {
+        if (validUntil == null && consentId.equals(this.consentId)) validUntil = consentValidUntil;
+        this.consentId = consentId;
+        this.consentStatus = status;
+        this.consentValidUntil = validUntil;
+        ObjectNode e = entry("consent");
+        e.put("consentId", consentId);
+        e.put("status", status);
+        if (validUntil != null) e.put("validUntil", validUntil.toString());
+        append(e);
+    }
+
+    /**
+     * @return findings завершенной работы или null если работа еще не выполнялась
+     */
+    public List<Finding> completed(String kind, String key) {
+        synchronized (completed) {
+            return completed.get(key(kind, key));
+        }
+    }
+
+    /**
+     * @return количество завершенных единиц работы в журнале
+     */
+    public int completedCount() {
+        synchronized (completed) {
+            return completed.size();
+        }
+    }
+
+    /**
+     * Записывает завершенную работу и ее findings
+     * @param kind scenario / plugin / probe
+     * @param key ключ работы (уникален в пределах kind)
+     */
+    public void recordCompleted(String kind, String key, List<Finding> findings) {
+        List<Finding> copy = new ArrayList<>(findings);
+        synchronized (completed) {
+            completed.put(key(kind, key), copy);
+        }
+        ObjectNode e = entry("done");
+        e.put("kind", kind);
+        e.put("key", key);
+        e.set("findings", om.valueToTree(copy));
+        append(e);
+    }
+
+    /**
+     * Отмечает окончание сканирования (отчеты сформированы)
+     */
+    public void recordFinished() {
+        append(entry("finished"));
+    }
+
+    private ObjectNode entry(String type) {
+        ObjectNode e = om.createObjectNode();
+        e.put("type", type);
+        e.put("at", Instant.now().toString());
+        return e;
+    }
+
+    private static String describe(String scenarioSettings) {
+        return scenarioSettings.isEmpty() ? "defaults" : scenarioSettings.substring(1);
+    }
+
+    private static String key(String kind, String key) {
+        return kind + " " + key;
+    }
+
+    private synchronized void append(ObjectNode e) {
+        try {
+            out.write(om.writeValueAsString(e));
+            out.newLine();
+            out.flush();
+        } catch (IOException ex) {
+            // Сбой журнала не прерывает сканирование - теряется только возможность продолжения
+            System.err.println("Scan journal write failed: " + ex.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException ignore) {
+        }
+    }
+}
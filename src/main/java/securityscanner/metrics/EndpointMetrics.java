@@ -0,0 +1,67 @@
+package securityscanner.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики запросов одного эндпоинта одного источника
+ */
+public final class EndpointMetrics {
+
+    public final String source;
+    public final String method;
+    public final String endpoint;
+
+    final LatencyHistogram latency = new LatencyHistogram();
+    private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder queuedMicros = new LongAdder();
+
+    EndpointMetrics(String source, String method, String endpoint) {
+        this.source = source;
+        this.method = method;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Учитывает завершенный запрос
+     * @param micros время запроса, мкс
+     * @param status HTTP статус (0 - ответа нет)
+     * @param queued время ожидания до начала сетевой части (ограничитель частоты, очередь Dispatcher), мкс
+     */
+    void record(long micros, int status, long in, long out, int retryCount, boolean failed, long queued) {
+        latency.record(micros);
+        if (queued > 0) queuedMicros.add(queued);
+        if (status > 0) statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status == 429) throttled.increment();
+        if (failed) errors.increment();
+        if (in > 0) bytesIn.add(in);
+        if (out > 0) bytesOut.add(out);
+        if (retryCount > 0) retries.add(retryCount);
+    }
+
+    public LatencyHistogram latency() { return latency; }
+    public long count() { return latency.count(); }
+    public long bytesIn() { return bytesIn.sum(); }
+    public long bytesOut() { return bytesOut.sum(); }
+    public long errors() { return errors.sum(); }
+    public long retries() { return retries.sum(); }
+    public long throttled() { return throttled.sum(); }
+    public long queuedMicros() { return queuedMicros.sum(); }
+
+    /**
+     * @return количество ответов по HTTP статусам (отсортировано по статусу)
+     */
+    public Map<Integer, Long> statuses() {
+        Map<Integer, Long> out = new TreeMap<>();
+        statuses.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+}
@@ -0,0 +1,90 @@
+package securityscanner.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасная гистограмма задержек с логарифмически-линейными корзинами
+ * (по схеме HdrHistogram). Значения до 128 мкс хранятся точно, дальше каждая
+ * степень двойки делится на 64 корзины, поэтому относительная погрешность
+ * перцентилей не превышает ~1.6% при фиксированном объеме памяти.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;                      // 128 точных значений
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;                   // 64 корзины на степень двойки
+    private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Записывает одно значение
+     * @param micros задержка в микросекундах
+     */
+    public void record(long micros) {
+        long v = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(v));
+        total.increment();
+        sum.add(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    public long count() { return total.sum(); }
+    public long max() { return max.get(); }
+
+    public double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile перцентиль от 0 до 100
+     * @return верхняя граница корзины, в которую попадает перцентиль, мкс
+     */
+    public long percentile(double percentile) {
+        long n = total.sum();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100.0 * n);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Накопленное количество значений не больше границы (для гистограммы Prometheus)
+     * @param boundMicros граница, мкс
+     */
+    public long countAtOrBelow(long boundMicros) {
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (upperBound(i) > boundMicros) break;
+            seen += counts.get(i);
+        }
+        return seen;
+    }
+
+    public long sumMicros() { return sum.sum(); }
+
+    static int indexOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int shift = msb - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) ((v >>> shift) - HALF);
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long sub = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,16 @@
+package securityscanner.metrics;
+
+/**
+ * Метка запроса для метрик: источник (сценарии, пробы общих путей, id плагина)
+ * и эндпоинт, под которым запрос учитывается. Передается через {@code Request.tag}.
+ */
+public final class MetricsTag {
+
+    public final String source;
+    public final String endpoint; // null - путь из URL запроса
+
+    public MetricsTag(String source, String endpoint) {
+        this.source = source;
+        this.endpoint = endpoint;
+    }
+}
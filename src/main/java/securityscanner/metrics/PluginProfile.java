@@ -0,0 +1,32 @@
+package securityscanner.metrics;
+
+/**
+ * Профиль выполнения одного плагина: время, запросы, трафик, выделенная память и паузы
+ */
+public final class PluginProfile {
+
+    public final String pluginId;
+    public final String title;
+    public final boolean failed;
+    public final long wallMillis;
+    public final long requests;
+    public final long bytesIn;
+    public final long bytesOut;
+    /** Байты, выделенные потоками плагина (-1 если JVM не поддерживает учет) */
+    public final long allocatedBytes;
+    /** Паузы плагина и ожидание в ограничителе частоты, суммарно по всем потокам плагина */
+    public final long sleepMillis;
+
+    PluginProfile(String pluginId, String title, boolean failed, long wallMillis, long requests,
+                  long bytesIn, long bytesOut, long allocatedBytes, long sleepMillis) {
+        this.pluginId = pluginId;
+        this.title = title;
+        this.failed = failed;
+        this.wallMillis = wallMillis;
+        this.requests = requests;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.allocatedBytes = allocatedBytes;
+        this.sleepMillis = sleepMillis;
+    }
+}
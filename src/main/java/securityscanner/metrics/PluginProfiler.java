@@ -0,0 +1,173 @@
+package securityscanner.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Профилировщик плагинов: оборачивает выполнение плагина и собирает время выполнения,
+ * число запросов и трафик (из {@link ScanMetrics} по источнику = id плагина),
+ * выделенную память (ThreadMXBean) и время пауз.
+ *
+ * Память и паузы учитываются в потоке плагина и в потоках его проб
+ * ({@link #propagate} переносит профиль в поток пробы). Асинхронные вызовы OkHttp
+ * выполняются в потоках Dispatcher и в выделенную память плагина не попадают.
+ * Ожидание в ограничителе частоты берется из метрик запросов, поэтому учитывается
+ * независимо от потока.
+ */
+public class PluginProfiler {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+    private final ScanMetrics metrics;
+    private final Queue<PluginProfile> profiles = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param metrics метрики запросов сканирования (null - без запросов и трафика)
+     */
+    public PluginProfiler(ScanMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Выполняет плагин с профилированием. Профиль сохраняется и при ошибке плагина.
+     * @param pluginId id плагина (источник запросов в метриках)
+     * @param title название плагина для отчета
+     * @param task выполнение плагина
+     */
+    public <T> T profile(String pluginId, String title, Callable<T> task) throws Exception {
+        ScanMetrics.SourceTotals before = totals(pluginId);
+        Scope scope = new Scope();
+        Scope outer = CURRENT.get();
+        CURRENT.set(scope);
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = task.call();
+            failed = false;
+            return result;
+        } finally {
+            long wall = System.nanoTime() - start;
+            scope.addAllocated(allocatedBefore, allocatedBytes());
+            if (outer != null) CURRENT.set(outer); else CURRENT.remove();
+
+            ScanMetrics.SourceTotals after = totals(pluginId);
+            long queuedMicros = after.queuedMicros - before.queuedMicros;
+            profiles.add(new PluginProfile(pluginId, title, failed,
+                    TimeUnit.NANOSECONDS.toMillis(wall),
+                    after.requests - before.requests,
+                    after.bytesIn - before.bytesIn,
+                    after.bytesOut - before.bytesOut,
+                    THREADS != null ? scope.allocated.sum() : -1,
+                    TimeUnit.NANOSECONDS.toMillis(scope.sleptNanos.sum()) + queuedMicros / 1000));
+        }
+    }
+
+    private ScanMetrics.SourceTotals totals(String source) {
+        return metrics != null ? metrics.totals(source) : new ScanMetrics.SourceTotals(0, 0, 0, 0);
+    }
+
+    /**
+     * Переносит профиль текущего плагина в задачу, выполняемую в другом потоке:
+     * выделенная задачей память и ее паузы учитываются в профиле плагина
+     * @param task проба плагина
+     * @return обертка задачи (или сама задача, если плагин не профилируется)
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) return task;
+        return () -> {
+            Scope outer = CURRENT.get();
+            CURRENT.set(scope);
+            long allocatedBefore = allocatedBytes();
+            try {
+                return task.call();
+            } finally {
+                scope.addAllocated(allocatedBefore, allocatedBytes());
+                if (outer != null) CURRENT.set(outer); else CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Пауза плагина с учетом в профиле (вместо Thread.sleep)
+     * @param millis длительность паузы, мс
+     */
+    public static void sleep(long millis) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            Thread.sleep(millis);
+        } finally {
+            Scope scope = CURRENT.get();
+            if (scope != null) scope.sleptNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return профили плагинов, по убыванию времени выполнения
+     */
+    public List<PluginProfile> profiles() {
+        List<PluginProfile> list = new ArrayList<>(profiles);
+        list.sort(Comparator.comparingLong((PluginProfile p) -> p.wallMillis).reversed()
+                .thenComparing(p -> p.pluginId));
+        return list;
+    }
+
+    /**
+     * @return краткая сводка для вывода в конце сканирования
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder("Plugin performance:");
+        for (PluginProfile p : profiles()) {
+            sb.append("\n  ").append(p.pluginId).append(": ").append(p.wallMillis).append(" ms, ")
+              .append(p.requests).append(" requests, ").append((p.bytesIn + p.bytesOut) / 1024).append(" KB, ");
+            if (p.allocatedBytes >= 0) sb.append(p.allocatedBytes / 1024).append(" KB allocated, ");
+            sb.append(p.sleepMillis).append(" ms sleeping");
+            if (p.failed) sb.append(" (failed)");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return байты, выделенные текущим потоком, или -1 если учет недоступен
+     *         (JVM без поддержки или виртуальный поток)
+     */
+    private static long allocatedBytes() {
+        if (THREADS == null) return -1;
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+        try {
+            if (!sun.isThreadAllocatedMemorySupported()) return null;
+            if (!sun.isThreadAllocatedMemoryEnabled()) sun.setThreadAllocatedMemoryEnabled(true);
+            return sun;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Накопители профиля одного выполнения плагина (общие для потоков его проб)
+     */
+    private static final class Scope {
+        final LongAdder allocated = new LongAdder();
+        final LongAdder sleptNanos = new LongAdder();
+
+        void addAllocated(long before, long after) {
+            if (before >= 0 && after >= before) allocated.add(after - before);
+        }
+    }
+}
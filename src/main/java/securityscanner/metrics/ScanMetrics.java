@@ -0,0 +1,303 @@
+package securityscanner.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.*;
+import securityscanner.http.CompositeEventListener;
+import securityscanner.http.ScanBudget;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Реестр метрик сканирования: гистограммы задержек, коды ответов, объем трафика,
+ * повторы и ответы 429 по каждому эндпоинту и источнику запросов.
+ *
+ * Данные собираются EventListener'ом отдельного вызова OkHttp ({@link #listenerFactory}),
+ * источник и эндпоинт берутся из метки {@link MetricsTag} запроса. Время запроса считается
+ * от начала сетевой части вызова, поэтому ожидание в ограничителе частоты в него не входит.
+ * В конце сканирования метрики выгружаются в JSON и в текстовый формат Prometheus.
+ */
+public class ScanMetrics {
+
+    private static final String UNTAGGED = "other";
+    // Границы гистограммы Prometheus, секунды
+    private static final double[] PROMETHEUS_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> sources = new ConcurrentHashMap<>();
+    private final Instant startedAt = Instant.now();
+
+    /**
+     * Фабрика слушателей: на каждый вызов создается собственный слушатель метрик,
+     * события также передаются общему слушателю (статистике соединений)
+     * @param shared общий слушатель или null
+     */
+    public EventListener.Factory listenerFactory(EventListener shared) {
+        return call -> {
+            EventListener perCall = new CallListener();
+            return shared == null ? perCall : new CompositeEventListener(shared, perCall);
+        };
+    }
+
+    /**
+     * @return метрики эндпоинта (создаются при первом обращении)
+     */
+    public EndpointMetrics endpoint(String source, String method, String endpoint) {
+        String key = source + " " + method + " " + endpoint;
+        return endpoints.computeIfAbsent(key, k -> new EndpointMetrics(source, method, endpoint));
+    }
+
+    private void record(String source, String method, String endpoint, long micros,
+                        int status, long in, long out, int retries, boolean failed, long queued) {
+        endpoint(source, method, endpoint).record(micros, status, in, out, retries, failed, queued);
+        sources.computeIfAbsent(source, s -> new LatencyHistogram()).record(micros);
+    }
+
+    /**
+     * @return метрики эндпоинтов, по убыванию суммарного времени запросов
+     */
+    public List<EndpointMetrics> endpoints() {
+        List<EndpointMetrics> list = new ArrayList<>(endpoints.values());
+        list.sort(Comparator.comparingLong((EndpointMetrics e) -> e.latency.sumMicros()).reversed()
+                .thenComparing(e -> e.source + e.method + e.endpoint));
+        return list;
+    }
+
+    public long totalRequests() {
+        long n = 0;
+        for (EndpointMetrics e : endpoints.values()) n += e.count();
+        return n;
+    }
+
+    /**
+     * Суммирует метрики всех эндпоинтов источника
+     * @param source источник запросов (например, id плагина)
+     */
+    public SourceTotals totals(String source) {
+        long requests = 0, in = 0, out = 0, queued = 0;
+        for (EndpointMetrics e : endpoints.values()) {
+            if (!e.source.equals(source)) continue;
+            requests += e.count();
+            in += e.bytesIn();
+            out += e.bytesOut();
+            queued += e.queuedMicros();
+        }
+        return new SourceTotals(requests, in, out, queued);
+    }
+
+    /**
+     * @return краткая сводка для вывода в конце сканирования
+     */
+    public String summary() {
+        long requests = 0, errors = 0, throttled = 0, in = 0, out = 0;
+        for (EndpointMetrics e : endpoints.values()) {
+            requests += e.count();
+            errors += e.errors();
+            throttled += e.throttled();
+            in += e.bytesIn();
+            out += e.bytesOut();
+        }
+        StringBuilder sb = new StringBuilder("Request metrics: " + requests + " requests, " + errors + " errors, "
+                + throttled + " throttled (429), " + in / 1024 + " KB in, " + out / 1024 + " KB out");
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(sources).entrySet()) {
+            LatencyHistogram h = e.getValue();
+            sb.append("\n  ").append(e.getKey()).append(": ").append(h.count()).append(" requests, p50 ")
+              .append(millis(h.percentile(50))).append(" ms, p95 ").append(millis(h.percentile(95)))
+              .append(" ms, max ").append(millis(h.max())).append(" ms");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Выгружает метрики в JSON дерево
+     */
+    public ObjectNode toJson(ObjectMapper om) {
+        ObjectNode root = om.createObjectNode();
+        root.put("startedAt", startedAt.toString());
+        root.put("durationSeconds", (System.currentTimeMillis() - startedAt.toEpochMilli()) / 1000.0);
+        root.put("totalRequests", totalRequests());
+
+        ObjectNode bySource = root.putObject("sources");
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(sources).entrySet()) {
+            writeLatency(bySource.putObject(e.getKey()), e.getValue());
+        }
+
+        ArrayNode list = root.putArray("endpoints");
+        for (EndpointMetrics e : endpoints()) {
+            ObjectNode n = list.addObject();
+            n.put("source", e.source);
+            n.put("method", e.method);
+            n.put("endpoint", e.endpoint);
+            writeLatency(n, e.latency);
+            ObjectNode st = n.putObject("statuses");
+            e.statuses().forEach((k, v) -> st.put(String.valueOf(k), v));
+            n.put("bytesIn", e.bytesIn());
+            n.put("bytesOut", e.bytesOut());
+            n.put("errors", e.errors());
+            n.put("retries", e.retries());
+            n.put("throttled", e.throttled());
+            n.put("queuedMs", millis(e.queuedMicros()));
+        }
+        return root;
+    }
+
+    private static void writeLatency(ObjectNode n, LatencyHistogram h) {
+        n.put("count", h.count());
+        ObjectNode ms = n.putObject("latencyMs");
+        ms.put("mean", Math.round(h.mean() / 10.0) / 100.0);
+        ms.put("p50", millis(h.percentile(50)));
+        ms.put("p90", millis(h.percentile(90)));
+        ms.put("p95", millis(h.percentile(95)));
+        ms.put("p99", millis(h.percentile(99)));
+        ms.put("max", millis(h.max()));
+        ms.put("totalMs", millis(h.sumMicros()));
+    }
+
+    /**
+     * Выгружает метрики в текстовый формат Prometheus (exposition format 0.0.4)
+     */
+    public String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        List<EndpointMetrics> list = endpoints();
+
+        sb.append("# HELP scanner_request_duration_seconds Scanner request latency per endpoint\n");
+        sb.append("# TYPE scanner_request_duration_seconds histogram\n");
+        for (EndpointMetrics e : list) {
+            String labels = labels(e);
+            for (double le : PROMETHEUS_BUCKETS) {
+                sb.append("scanner_request_duration_seconds_bucket{").append(labels).append(",le=\"")
+                  .append(le).append("\"} ").append(e.latency.countAtOrBelow((long) (le * 1_000_000))).append('\n');
+            }
+            sb.append("scanner_request_duration_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ")
+              .append(e.count()).append('\n');
+            sb.append("scanner_request_duration_seconds_sum{").append(labels).append("} ")
+              .append(e.latency.sumMicros() / 1_000_000.0).append('\n');
+            sb.append("scanner_request_duration_seconds_count{").append(labels).append("} ")
+              .append(e.count()).append('\n');
+        }
+
+        sb.append("# HELP scanner_responses_total Responses per endpoint and HTTP status\n");
+        sb.append("# TYPE scanner_responses_total counter\n");
+        for (EndpointMetrics e : list) {
+            for (Map.Entry<Integer, Long> s : e.statuses().entrySet()) {
+                sb.append("scanner_responses_total{").append(labels(e)).append(",status=\"").append(s.getKey())
+                  .append("\"} ").append(s.getValue()).append('\n');
+            }
+        }
+
+        counter(sb, list, "scanner_response_bytes_total", "Response body bytes received", EndpointMetrics::bytesIn);
+        counter(sb, list, "scanner_request_bytes_total", "Request body bytes sent", EndpointMetrics::bytesOut);
+        counter(sb, list, "scanner_request_errors_total", "Requests failed without a response", EndpointMetrics::errors);
+        counter(sb, list, "scanner_request_retries_total", "Additional attempts within a call", EndpointMetrics::retries);
+        counter(sb, list, "scanner_throttled_total", "Responses with status 429", EndpointMetrics::throttled);
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, List<EndpointMetrics> list, String name, String help,
+                                java.util.function.ToLongFunction<EndpointMetrics> value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        for (EndpointMetrics e : list) {
+            sb.append(name).append('{').append(labels(e)).append("} ").append(value.applyAsLong(e)).append('\n');
+        }
+    }
+
+    private static String labels(EndpointMetrics e) {
+        return "source=\"" + escape(e.source) + "\",method=\"" + escape(e.method)
+                + "\",endpoint=\"" + escape(e.endpoint) + "\"";
+    }
+
+    private static String escape(String v) {
+        return v == null ? "" : v.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    /**
+     * Итоги запросов одного источника
+     */
+    public static final class SourceTotals {
+        public final long requests;
+        public final long bytesIn;
+        public final long bytesOut;
+        public final long queuedMicros;
+
+        SourceTotals(long requests, long bytesIn, long bytesOut, long queuedMicros) {
+            this.requests = requests;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.queuedMicros = queuedMicros;
+        }
+    }
+
+    /**
+     * Слушатель одного вызова: засекает сетевую часть, считает байты, статус и повторы
+     */
+    private final class CallListener extends EventListener {
+        private final long createdNanos = System.nanoTime();
+        private long networkStartNanos;
+        private int attempts;
+        private int connectFailures;
+        private int status;
+        private long bytesIn;
+        private long bytesOut;
+
+        private void markNetworkStart() {
+            if (networkStartNanos == 0) networkStartNanos = System.nanoTime();
+        }
+
+        @Override public void dnsStart(Call call, String domainName) { markNetworkStart(); }
+        @Override public void connectStart(Call call, InetSocketAddress address, Proxy proxy) { markNetworkStart(); }
+        @Override public void connectionAcquired(Call call, Connection connection) { markNetworkStart(); }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol, IOException ioe) {
+            connectFailures++;
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            markNetworkStart();
+            attempts++;
+        }
+
+        @Override public void requestBodyEnd(Call call, long byteCount) { bytesOut += byteCount; }
+        @Override public void responseHeadersEnd(Call call, Response response) { status = response.code(); }
+        @Override public void responseBodyEnd(Call call, long byteCount) { bytesIn += byteCount; }
+
+        @Override public void callEnd(Call call) { finish(call, false); }
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            // Запрос сверх бюджета сканирования не отправлялся, отказы учитывает ScanBudget
+            if (ioe instanceof ScanBudget.ExhaustedException) return;
+            finish(call, true);
+        }
+
+        private void finish(Call call, boolean failed) {
+            // Ответ без обращения к сети (кэш ответов) - не запрос к серверу
+            if (networkStartNanos == 0 && !failed) return;
+            long start = networkStartNanos != 0 ? networkStartNanos : createdNanos;
+            long micros = (System.nanoTime() - start) / 1000;
+            long queued = (start - createdNanos) / 1000;
+            Request request = call.request();
+            MetricsTag tag = request.tag(MetricsTag.class);
+            String source = tag != null && tag.source != null ? tag.source : UNTAGGED;
+            String endpoint = tag != null && tag.endpoint != null ? tag.endpoint : request.url().encodedPath();
+            int retries = Math.max(0, attempts - 1) + connectFailures;
+            record(source, request.method(), endpoint, micros, status, bytesIn, bytesOut, retries, failed && status == 0, queued);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package securityscanner.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Хеширует JSON канонически (поля объектов по алфавиту). Текстовые поля description и summary
+ * не учитываются: правка документации не меняет хеш. Схемы после подстановки $ref - общие
+ * экземпляры, поэтому хеш контейнера запоминается по идентичности узла.
+ * Экземпляр не потокобезопасен; используется на время одного расчета.
+ */
+public final class CanonicalJsonHasher {
+
+    private static final Set<String> IGNORED_FIELDS = Set.of("description", "summary");
+
+    private final Map<JsonNode, byte[]> memo = new IdentityHashMap<>();
+
+    /**
+     * @return SHA-256 канонического представления узла (пустой массив для отсутствующего узла)
+     */
+    public byte[] hash(JsonNode node) {
+        if (node == null || node.isMissingNode()) return new byte[0];
+        if (!node.isContainerNode()) {
+            MessageDigest md = sha256();
+            md.update((byte) node.getNodeType().ordinal());
+            md.update(node.asText().getBytes(StandardCharsets.UTF_8));
+            return md.digest();
+        }
+        byte[] cached = memo.get(node);
+        if (cached != null) return cached;
+
+        MessageDigest md = sha256();
+        if (node.isArray()) {
+            md.update((byte) '[');
+            for (JsonNode child : node) md.update(hash(child));
+        } else {
+            md.update((byte) '{');
+            List<String> names = new ArrayList<>();
+            node.fieldNames().forEachRemaining(names::add);
+            Collections.sort(names);
+            for (String name : names) {
+                JsonNode child = node.get(name);
+                // Текст документации; свойство схемы с именем description - объект и учитывается
+                if (IGNORED_FIELDS.contains(name) && child.isTextual()) continue;
+                md.update(name.getBytes(StandardCharsets.UTF_8));
+                md.update((byte) ':');
+                md.update(hash(child));
+            }
+        }
+        byte[] digest = md.digest();
+        memo.put(node, digest);
+        return digest;
+    }
+
+    /**
+     * @return hex строка хеша узла
+     */
+    public String hex(JsonNode node) {
+        return hex(hash(node));
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+}
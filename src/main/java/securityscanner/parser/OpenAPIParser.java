@@ -13,11 +13,28 @@ import java.util.Locale;
  */
 public class OpenAPIParser {
 
-    private final OkHttpClient http = new OkHttpClient.Builder()
-            .callTimeout(Duration.ofSeconds(20))
-            .build();
+    private final OkHttpClient http;
 
     private JsonNode root; // Кэш загруженной OpenAPI спецификации
+    private volatile OperationIndex index = OperationIndex.build(null); // Индекс схем ответов по root
+    private String refSummary = "";
+
+    /**
+     * Создает парсер с собственным HTTP клиентом
+     */
+    public OpenAPIParser() {
+        this(new OkHttpClient());
+    }
+
+    /**
+     * Создает парсер, загружающий спецификацию через общий HTTP клиент сканера
+     * @param http общий HTTP клиент (пул соединений переиспользуется)
+     */
+    public OpenAPIParser(OkHttpClient http) {
+        this.http = http.newBuilder()
+                .callTimeout(Duration.ofSeconds(20))
+                .build();
+    }
 
     /**
      * Извлекает первый URL сервера из OpenAPI спецификации
@@ -26,7 +43,7 @@ public class OpenAPIParser {
      */
     public String extractFirstServerUrl(String openapiLocation) throws Exception {
         JsonNode r = load(openapiLocation);
-        this.root = r;
+        setRoot(r);
         JsonNode servers = r.path("servers");
         if (servers.isArray() && servers.size() > 0) {
             JsonNode url = servers.get(0).path("url");
@@ -42,10 +59,46 @@ public class OpenAPIParser {
      */
     public JsonNode getOpenApiRoot(String openapiLocation) throws Exception {
         if (root != null) return root;
-        root = load(openapiLocation);
+        setRoot(load(openapiLocation));
         return root;
     }
 
+    /**
+     * Запоминает спецификацию, разрешает в ней $ref и один раз строит индекс схем ответов
+     */
+    private void setRoot(JsonNode r) {
+        this.refSummary = SchemaRefResolver.inlineRefs(r);
+        this.root = r;
+        this.index = OperationIndex.build(r);
+    }
+
+    /**
+     * @return статистика разрешения $ref при загрузке спецификации
+     */
+    public String refSummary() {
+        return refSummary;
+    }
+
+    /**
+     * @return индекс схем ответов загруженной спецификации
+     */
+    public OperationIndex operationIndex() {
+        return index;
+    }
+
+    /**
+     * Находит JSON Schema ответа конкретной операции через индекс спецификации.
+     * В отличие от resolveResponseSchemaFromRoot учитывает HTTP метод и шаблоны путей.
+     * @param method HTTP метод запроса
+     * @param path шаблон или конкретный путь эндпоинта
+     * @param status HTTP статус код
+     * @param contentType content-type ответа
+     * @return JSON Schema или null если не найдена
+     */
+    public JsonNode findResponseSchema(String method, String path, int status, String contentType) {
+        return index.find(method, path, status, contentType);
+    }
+
     /**
      * Находит JSON Schema для ответа по пути, статусу и content-type
      * @param openapiLocation путь к OpenAPI спецификации
@@ -55,42 +108,8 @@ public class OpenAPIParser {
      * @return JSON Schema или null если не найдена
      */
     public JsonNode resolveResponseSchema(String openapiLocation, String path, int status, String contentType) throws Exception {
-        JsonNode r = getOpenApiRoot(openapiLocation);
-        JsonNode paths = r.path("paths");
-        if (paths.isMissingNode()) return null;
-
-        JsonNode pathNode = paths.path(path);
-        if (pathNode.isMissingNode()) return null;
-
-        // Поиск операции по HTTP методу
-        JsonNode op = pathNode.path("get");
-        if (op.isMissingNode()) op = pathNode.path("post");
-        if (op.isMissingNode()) op = pathNode.path("put");
-        if (op.isMissingNode()) op = pathNode.path("delete");
-        if (op.isMissingNode()) return null;
-
-        String statusKey = String.valueOf(status);
-        JsonNode resp = op.path("responses").path(statusKey);
-        if (resp.isMissingNode()) {
-            // Иногда схемы находятся под "default"
-            resp = op.path("responses").path("default");
-            if (resp.isMissingNode()) return null;
-        }
-
-        JsonNode content = resp.path("content");
-        if (content.isMissingNode() || !content.isObject()) return null;
-
-        // Нормализация content-type (application/json; charset=utf-8 → application/json)
-        String ct = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "application/json";
-        if (ct.contains(";")) ct = ct.substring(0, ct.indexOf(';')).trim();
-
-        JsonNode ctNode = content.path(ct);
-        if (ctNode.isMissingNode()) {
-            // Попытка использовать application/json по умолчанию
-            ctNode = content.path("application/json");
-            if (ctNode.isMissingNode()) return null;
-        }
-        return ctNode.path("schema").isMissingNode() ? null : ctNode.path("schema");
+        getOpenApiRoot(openapiLocation);
+        return index.find(null, path, status, contentType);
     }
 
     /**
@@ -126,6 +145,8 @@ public class OpenAPIParser {
      */
     public JsonNode resolveResponseSchemaFromRoot(JsonNode r, String path, int status, String contentType) {
         if (r == null) return null;
+        // Для загруженной спецификации используем индекс, построенный при загрузке
+        if (r == root) return index.find(null, path, status, contentType);
         JsonNode paths = r.path("paths");
         if (paths.isMissingNode()) return null;
 
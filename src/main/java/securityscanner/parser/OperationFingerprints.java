@@ -0,0 +1,134 @@
+package securityscanner.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Отпечатки операций OpenAPI спецификации для инкрементального сканирования.
+ *
+ * Отпечаток операции - SHA-256 от канонического JSON операции вместе с параметрами
+ * path item. Локальные $ref к моменту расчета уже подставлены ({@link SchemaRefResolver}),
+ * поэтому изменение схемы, на которую ссылается операция, меняет и ее отпечаток.
+ * Поля description и summary не учитываются ({@link CanonicalJsonHasher}): правка документации
+ * не требует повторного сканирования.
+ * Общий отпечаток покрывает servers, security и securitySchemes - при его изменении
+ * пересканируется все.
+ */
+public final class OperationFingerprints {
+
+    private static final List<String> METHODS = List.of("get", "post", "put", "delete", "patch", "head", "options");
+
+    private final String global;
+    private final Map<String, String> operations; // "GET /path" -> отпечаток
+    private final Map<String, List<String>> keysByPath;
+
+    private OperationFingerprints(String global, Map<String, String> operations, Map<String, List<String>> keysByPath) {
+        this.global = global;
+        this.operations = operations;
+        this.keysByPath = keysByPath;
+    }
+
+    /**
+     * Рассчитывает отпечатки всех операций спецификации
+     * @param root корень спецификации (с подставленными $ref)
+     */
+    public static OperationFingerprints compute(JsonNode root) {
+        CanonicalJsonHasher hasher = new CanonicalJsonHasher();
+        Map<String, String> operations = new TreeMap<>();
+        Map<String, List<String>> keysByPath = new TreeMap<>();
+
+        JsonNode paths = root.path("paths");
+        Iterator<String> it = paths.fieldNames();
+        while (it.hasNext()) {
+            String path = it.next();
+            JsonNode item = paths.get(path);
+            for (String m : METHODS) {
+                JsonNode op = item.path(m);
+                if (!op.isObject()) continue;
+                String key = m.toUpperCase(Locale.ROOT) + " " + path;
+                MessageDigest md = sha256();
+                md.update(key.getBytes(StandardCharsets.UTF_8));
+                md.update(hasher.hash(item.path("parameters")));
+                md.update(hasher.hash(op));
+                operations.put(key, hex(md.digest()));
+                keysByPath.computeIfAbsent(path, p -> new ArrayList<>()).add(key);
+            }
+        }
+
+        MessageDigest md = sha256();
+        md.update(hasher.hash(root.path("servers")));
+        md.update(hasher.hash(root.path("security")));
+        md.update(hasher.hash(root.path("components").path("securitySchemes")));
+        return new OperationFingerprints(hex(md.digest()),
+                Collections.unmodifiableMap(operations), Collections.unmodifiableMap(keysByPath));
+    }
+
+    /** @return общий отпечаток (servers, security, securitySchemes) */
+    public String global() { return global; }
+
+    /** @return отпечатки операций по ключу "METHOD /path" */
+    public Map<String, String> operations() { return operations; }
+
+    /**
+     * @return отпечаток операции или null если операции нет в спецификации
+     */
+    public String of(String method, String path) {
+        return operations.get(method.toUpperCase(Locale.ROOT) + " " + path);
+    }
+
+    /**
+     * Отпечаток набора путей, от которых зависит плагин или проба: путь совпадает
+     * с целевым или вложен в него (/accounts покрывает /accounts/{id}).
+     * Отсутствующие в спецификации пути дают постоянный отпечаток.
+     * @param targets целевые пути; пустой набор - вся спецификация
+     */
+    public String forTargets(Collection<String> targets) {
+        MessageDigest md = sha256();
+        for (Map.Entry<String, List<String>> e : keysByPath.entrySet()) {
+            if (!targets.isEmpty() && !matchesAny(e.getKey(), targets)) continue;
+            for (String key : e.getValue()) {
+                md.update(key.getBytes(StandardCharsets.UTF_8));
+                md.update(operations.get(key).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        if (targets.isEmpty()) md.update(global.getBytes(StandardCharsets.UTF_8));
+        return hex(md.digest());
+    }
+
+    private static boolean matchesAny(String path, Collection<String> targets) {
+        for (String t : targets) {
+            if (path.equals(t)) return true;
+            if (!"/".equals(t) && path.startsWith(t + "/")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Сравнивает с отпечатками предыдущего сканирования
+     * @return краткое описание изменений для вывода
+     */
+    public String describeChanges(Map<String, String> previous) {
+        int added = 0, changed = 0, removed = 0;
+        for (Map.Entry<String, String> e : operations.entrySet()) {
+            String old = previous.get(e.getKey());
+            if (old == null) added++;
+            else if (!old.equals(e.getValue())) changed++;
+        }
+        for (String key : previous.keySet()) {
+            if (!operations.containsKey(key)) removed++;
+        }
+        return operations.size() + " operations: " + added + " added, " + changed + " changed, "
+                + removed + " removed, " + (operations.size() - added - changed) + " unchanged";
+    }
+
+    private static MessageDigest sha256() {
+        return CanonicalJsonHasher.sha256();
+    }
+
+    private static String hex(byte[] bytes) {
+        return CanonicalJsonHasher.hex(bytes);
+    }
+}
@@ -0,0 +1,224 @@
+package securityscanner.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.*;
+
+/**
+ * Индекс схем ответов OpenAPI спецификации.
+ * Строится один раз при загрузке: (метод, шаблон пути, статус, media type) → schema, и после
+ * этого не меняется.
+ *
+ * Поиск учитывает фактический HTTP метод и шаблоны путей вида {@code /accounts/{id}}:
+ * результат сопоставления конкретного пути (без query) с шаблоном запоминается в кэше
+ * ограниченного размера, давно не использованные пути вытесняются.
+ */
+public final class OperationIndex {
+
+    // Порядок перебора методов, если метод запроса не указан (как в исходной логике парсера)
+    private static final List<String> FALLBACK_METHODS = List.of("get", "post", "put", "delete");
+    private static final Set<String> HTTP_METHODS =
+            Set.of("get", "post", "put", "patch", "delete", "head", "options", "trace");
+    private static final String DEFAULT_MEDIA_TYPE = "application/json";
+    private static final int MAX_RESOLVED_PATHS = 4096;
+
+    private final Map<String, JsonNode> schemas;              // "method template status media" → schema
+    private final Set<String> statuses;                       // "method template status" - описанные ответы
+    private final Map<String, Set<String>> methodsByTemplate; // шаблон → методы с описанными ответами
+    private final List<PathTemplate> templates;               // шаблоны с параметрами, конкретные - первыми
+    private final Map<String, Optional<String>> resolvedPaths = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Optional<String>> eldest) {
+                    return size() > MAX_RESOLVED_PATHS;
+                }
+            });
+
+    private OperationIndex(Map<String, JsonNode> schemas, Set<String> statuses,
+                           Map<String, Set<String>> methodsByTemplate, List<PathTemplate> templates) {
+        this.schemas = schemas;
+        this.statuses = statuses;
+        this.methodsByTemplate = methodsByTemplate;
+        this.templates = templates;
+    }
+
+    /**
+     * Строит индекс по корневому узлу спецификации
+     * @param root корневой узел OpenAPI спецификации (может быть null)
+     * @return индекс (пустой, если путей нет)
+     */
+    public static OperationIndex build(JsonNode root) {
+        Map<String, JsonNode> schemas = new HashMap<>();
+        Set<String> statuses = new HashSet<>();
+        Map<String, Set<String>> methodsByTemplate = new HashMap<>();
+        List<PathTemplate> templates = new ArrayList<>();
+
+        JsonNode paths = root == null ? null : root.path("paths");
+        if (paths != null && paths.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> pit = paths.fields();
+            while (pit.hasNext()) {
+                Map.Entry<String, JsonNode> pe = pit.next();
+                String template = pe.getKey();
+                if (template.contains("{")) templates.add(new PathTemplate(template));
+
+                Set<String> methods = new LinkedHashSet<>();
+                Iterator<Map.Entry<String, JsonNode>> mit = pe.getValue().fields();
+                while (mit.hasNext()) {
+                    Map.Entry<String, JsonNode> me = mit.next();
+                    String method = me.getKey().toLowerCase(Locale.ROOT);
+                    if (!HTTP_METHODS.contains(method)) continue;
+                    methods.add(method);
+                    indexResponses(schemas, statuses, method, template, me.getValue().path("responses"));
+                }
+                methodsByTemplate.put(template, Collections.unmodifiableSet(methods));
+            }
+        }
+        templates.sort(Comparator.comparingInt(PathTemplate::literalSegments).reversed());
+        return new OperationIndex(Collections.unmodifiableMap(schemas), Collections.unmodifiableSet(statuses),
+                Collections.unmodifiableMap(methodsByTemplate),
+                Collections.unmodifiableList(templates));
+    }
+
+    private static void indexResponses(Map<String, JsonNode> schemas, Set<String> statuses,
+                                       String method, String template, JsonNode responses) {
+        if (!responses.isObject()) return;
+        Iterator<Map.Entry<String, JsonNode>> rit = responses.fields();
+        while (rit.hasNext()) {
+            Map.Entry<String, JsonNode> re = rit.next();
+            String status = re.getKey().toUpperCase(Locale.ROOT);
+            statuses.add(method + " " + template + " " + status);
+            JsonNode content = re.getValue().path("content");
+            if (!content.isObject()) continue;
+            Iterator<Map.Entry<String, JsonNode>> cit = content.fields();
+            while (cit.hasNext()) {
+                Map.Entry<String, JsonNode> ce = cit.next();
+                JsonNode schema = ce.getValue().path("schema");
+                if (schema.isMissingNode()) continue;
+                schemas.put(key(method, template, status, normalizeMediaType(ce.getKey())), schema);
+            }
+        }
+    }
+
+    /**
+     * Находит схему ответа операции
+     * @param method HTTP метод запроса (null - перебор get/post/put/delete, как раньше)
+     * @param path шаблон или конкретный путь эндпоинта
+     * @param status HTTP статус код
+     * @param contentType content-type ответа (null - application/json)
+     * @return JSON Schema или null если не найдена
+     */
+    public JsonNode find(String method, String path, int status, String contentType) {
+        String template = resolveTemplate(path);
+        if (template == null) return null;
+
+        String media = contentType == null ? DEFAULT_MEDIA_TYPE : normalizeMediaType(contentType);
+        Set<String> methods = methodsByTemplate.getOrDefault(template, Set.of());
+        if (method != null) {
+            String m = method.toLowerCase(Locale.ROOT);
+            return methods.contains(m) ? findForOperation(m, template, status, media) : null;
+        }
+        for (String m : FALLBACK_METHODS) {
+            if (methods.contains(m)) return findForOperation(m, template, status, media);
+        }
+        return null;
+    }
+
+    /**
+     * Статус: точный код → диапазон (2XX) → default; media type: точный → application/json.
+     * Как и раньше, описанный ответ без подходящего content не переходит к default.
+     */
+    private JsonNode findForOperation(String method, String template, int status, String media) {
+        String[] statusKeys = {String.valueOf(status), (status / 100) + "XX", "DEFAULT"};
+        for (String statusKey : statusKeys) {
+            if (!hasStatus(method, template, statusKey)) continue;
+            JsonNode schema = schemas.get(key(method, template, statusKey, media));
+            if (schema == null) schema = schemas.get(key(method, template, statusKey, DEFAULT_MEDIA_TYPE));
+            return schema;
+        }
+        return null;
+    }
+
+    private boolean hasStatus(String method, String template, String statusKey) {
+        return statuses.contains(method + " " + template + " " + statusKey);
+    }
+
+    /**
+     * Сопоставляет путь с шаблоном спецификации: точное совпадение или шаблон с параметрами
+     */
+    private String resolveTemplate(String path) {
+        if (path == null) return null;
+        int q = path.indexOf('?');
+        String p = q >= 0 ? path.substring(0, q) : path;
+        if (methodsByTemplate.containsKey(p)) return p;
+
+        Optional<String> resolved = resolvedPaths.get(p);
+        if (resolved == null) {
+            resolved = Optional.empty();
+            String[] segments = PathTemplate.split(p);
+            for (PathTemplate t : templates) {
+                if (t.matches(segments)) {
+                    resolved = Optional.of(t.template);
+                    break;
+                }
+            }
+            resolvedPaths.put(p, resolved);
+        }
+        return resolved.orElse(null);
+    }
+
+    /**
+     * @return количество проиндексированных схем ответов
+     */
+    public int size() { return schemas.size(); }
+
+    private static String key(String method, String template, String status, String media) {
+        return method + " " + template + " " + status + " " + media;
+    }
+
+    private static String normalizeMediaType(String contentType) {
+        String ct = contentType.toLowerCase(Locale.ROOT);
+        if (ct.contains(";")) ct = ct.substring(0, ct.indexOf(';'));
+        return ct.trim();
+    }
+
+    /**
+     * Шаблон пути с параметрами: сегменты {name} совпадают с любым непустым сегментом
+     */
+    private static final class PathTemplate {
+        final String template;
+        final String[] segments;
+        final int literalSegments;
+
+        PathTemplate(String template) {
+            this.template = template;
+            this.segments = split(template);
+            int literals = 0;
+            for (String s : segments) if (!isParameter(s)) literals++;
+            this.literalSegments = literals;
+        }
+
+        int literalSegments() { return literalSegments; }
+
+        boolean matches(String[] path) {
+            if (path.length != segments.length) return false;
+            for (int i = 0; i < segments.length; i++) {
+                if (isParameter(segments[i])) {
+                    if (path[i].isEmpty()) return false;
+                } else if (!segments[i].equals(path[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        static boolean isParameter(String segment) {
+            return segment.startsWith("{") && segment.endsWith("}");
+        }
+
+        static String[] split(String path) {
+            String p = path;
+            if (p.startsWith("/")) p = p.substring(1);
+            return p.split("/", -1);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package securityscanner.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.*;
+
+/**
+ * Разрешает локальные ссылки {@code $ref} ("#/components/schemas/...") в OpenAPI спецификации.
+ * Ссылки заменяются самими схемами прямо в дереве спецификации, один раз при загрузке,
+ * поэтому валидатор получает самодостаточные схемы без повторного разрешения.
+ *
+ * Каждая ссылка разрешается один раз: все места использования получают один и тот же
+ * экземпляр узла. Циклическая ссылка заменяется пустой схемой {@code {}} (любое значение),
+ * внешние и неразрешимые ссылки остаются как есть.
+ *
+ * Цикл определяется и по тексту ссылки (цепочки $ref), и по узлам: схема components может
+ * встретиться при обходе дерева раньше любой ссылки на нее, и ссылка на обходимый в этот
+ * момент узел тоже замыкает цикл. Поэтому граф узлов после подстановки остается ациклическим.
+ */
+final class SchemaRefResolver {
+
+    private final JsonNode root;
+    private final Map<String, JsonNode> resolved = new HashMap<>();
+    private final Set<String> inProgress = new HashSet<>();                                  // Цепочки $ref
+    private final Set<JsonNode> active = Collections.newSetFromMap(new IdentityHashMap<>()); // Обходимые узлы
+    private final Set<JsonNode> walked = Collections.newSetFromMap(new IdentityHashMap<>()); // Обойденные узлы
+
+    private int refsInlined;
+    private int cyclesBroken;
+    private int unresolved;
+
+    private SchemaRefResolver(JsonNode root) {
+        this.root = root;
+    }
+
+    /**
+     * Заменяет локальные $ref в дереве спецификации разрешенными схемами
+     * @param root корневой узел OpenAPI спецификации (изменяется на месте)
+     * @return краткая статистика разрешения для вывода
+     */
+    static String inlineRefs(JsonNode root) {
+        if (root == null) return "";
+        SchemaRefResolver r = new SchemaRefResolver(root);
+        r.resolve(root);
+        return "OpenAPI $ref: " + r.resolved.size() + " distinct refs, " + r.refsInlined + " inlined, "
+                + r.cyclesBroken + " cycles broken, " + r.unresolved + " unresolved";
+    }
+
+    /**
+     * @return узел, которым нужно заменить исходный (тот же узел, если замены нет)
+     */
+    private JsonNode resolve(JsonNode node) {
+        if (!node.isContainerNode()) return node;
+        if (node.isObject()) {
+            JsonNode ref = node.get("$ref");
+            if (ref != null && ref.isTextual()) return resolveRef(ref.asText(), node);
+        }
+        // Общий узел, уже подставленный в другом месте, повторно не обходится
+        if (walked.contains(node) || !active.add(node)) return node;
+        walkChildren(node);
+        active.remove(node);
+        walked.add(node);
+        return node;
+    }
+
+    private void walkChildren(JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode obj = (ObjectNode) node;
+            List<String> names = new ArrayList<>();
+            obj.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                JsonNode child = obj.get(name);
+                JsonNode replacement = resolve(child);
+                if (replacement != child) obj.set(name, replacement);
+            }
+        } else if (node.isArray()) {
+            ArrayNode arr = (ArrayNode) node;
+            for (int i = 0; i < arr.size(); i++) {
+                JsonNode child = arr.get(i);
+                JsonNode replacement = resolve(child);
+                if (replacement != child) arr.set(i, replacement);
+            }
+        }
+    }
+
+    private JsonNode resolveRef(String ref, JsonNode refNode) {
+        if (!ref.startsWith("#")) {
+            unresolved++;
+            return refNode;
+        }
+        JsonNode done = resolved.get(ref);
+        if (done != null) {
+            refsInlined++;
+            return done;
+        }
+
+        JsonNode target;
+        try {
+            target = root.at(ref.substring(1));
+        } catch (IllegalArgumentException e) {
+            target = null;
+        }
+        if (target == null || target.isMissingNode()) {
+            unresolved++;
+            return refNode;
+        }
+
+        if (inProgress.contains(ref) || active.contains(target)) {
+            // Рекурсивная схема не может быть развернута в дерево - допускаем любое значение
+            cyclesBroken++;
+            return JsonNodeFactory.instance.objectNode();
+        }
+
+        inProgress.add(ref);
+        JsonNode result = resolve(target);
+        inProgress.remove(ref);
+        resolved.put(ref, result);
+        refsInlined++;
+        return result;
+    }
+}
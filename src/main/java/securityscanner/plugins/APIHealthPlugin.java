@@ -7,6 +7,7 @@ import securityscanner.core.model.Finding;
 import securityscanner.http.RequestExecutor;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Плагин для проверки здоровья и доступности API
@@ -16,11 +17,12 @@ public class APIHealthPlugin implements SecurityPlugin {
     @Override public String id() { return "API: Health"; }
     @Override public String title() { return "API Health Check"; }
     @Override public String description() { return "Проверка доступности и корректности основных эндпоинтов"; }
+    @Override public Set<String> targetPaths() { return Set.of("/", "/health", "/.well-known/jwks.json", "/products", "/info"); }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
         List<Finding> out = new ArrayList<>();
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx).reusingCachedResponses();
 
         // Только безопасные эндпоинты без проблем со схемой
         String[] safeEndpoints = {
@@ -34,18 +36,25 @@ public class APIHealthPlugin implements SecurityPlugin {
         Map<String, String> headers = new HashMap<>();
         if (ctx.accessToken != null) headers.put("Authorization", "Bearer " + ctx.accessToken);
 
+        // Эндпоинты проверяются независимо друг от друга
+        List<Callable<List<Finding>>> probes = new ArrayList<>();
         for (String endpoint : safeEndpoints) {
-            String url = ctx.baseUrl + endpoint;
-            try (Response r = rex.get(url, headers)) {
-                analyzeHealthResponse(out, endpoint, r);
-            } catch (Exception e) {
-                out.add(Finding.of(endpoint, "GET", 0, id(),
-                        Finding.Severity.MEDIUM,
-                        "Эндпоинт недоступен: " + e.getMessage(),
-                        "",
-                        "Проверьте доступность эндпоинта"));
-            }
+            probes.add(() -> {
+                List<Finding> found = new ArrayList<>();
+                String url = ctx.baseUrl + endpoint;
+                try (Response r = rex.get(url, headers)) {
+                    analyzeHealthResponse(found, endpoint, r);
+                } catch (Exception e) {
+                    found.add(Finding.of(endpoint, "GET", 0, id(),
+                            Finding.Severity.MEDIUM,
+                            "Эндпоинт недоступен: " + e.getMessage(),
+                            "",
+                            "Проверьте доступность эндпоинта"));
+                }
+                return found;
+            });
         }
+        for (List<Finding> found : ctx.probes.invokeAll(probes)) out.addAll(found);
 
         return out;
     }
@@ -7,6 +7,7 @@ import securityscanner.core.model.Finding;
 import securityscanner.http.RequestExecutor;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Плагин для проверки Broken Authentication - OWASP API2
@@ -16,11 +17,12 @@ public class AuthenticationPlugin implements SecurityPlugin {
     @Override public String id() { return "API2: BrokenAuth"; }
     @Override public String title() { return "Broken Authentication"; }
     @Override public String description() { return "Проверка слабой аутентификации и авторизации"; }
+    @Override public Set<String> targetPaths() { return Set.of("/accounts", "/cards", "/products", "/payments"); }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
         List<Finding> out = new ArrayList<>();
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx).reusingCachedResponses();
 
         // Тест 1: Проверка валидности текущего токена
         if (ctx.accessToken != null) {
@@ -83,28 +85,35 @@ public class AuthenticationPlugin implements SecurityPlugin {
     /**
      * Проверяет возможность доступа к защищенным эндпоинтам без аутентификации
      */
-    private void testAccessWithoutToken(List<Finding> out, ExecutionContext ctx, RequestExecutor rex) {
+    private void testAccessWithoutToken(List<Finding> out, ExecutionContext ctx, RequestExecutor rex) throws Exception {
         String[] sensitiveEndpoints = {"/accounts", "/cards", "/payments"};
-        
+
+        // Эндпоинты проверяются независимо, пробы выполняются параллельно
+        List<Callable<List<Finding>>> probes = new ArrayList<>();
         for (String endpoint : sensitiveEndpoints) {
-            String url = ctx.baseUrl + endpoint;
-            try (Response r = rex.get(url, Collections.emptyMap())) {
-                if (r.code() == 200) {
-                    out.add(Finding.of(endpoint, "GET", r.code(), id(),
-                            Finding.Severity.HIGH,
-                            "Эндпоинт доступен без аутентификации",
-                            "",
-                            "Требуйте аутентификацию для всех защищенных эндпоинтов"));
-                } else if (r.code() == 401 || r.code() == 403) {
-                    out.add(Finding.of(endpoint, "GET", r.code(), id(),
-                            Finding.Severity.INFO,
-                            "Эндпоинт правильно требует аутентификацию",
-                            "",
-                            ""));
+            probes.add(() -> {
+                List<Finding> found = new ArrayList<>();
+                String url = ctx.baseUrl + endpoint;
+                try (Response r = rex.get(url, Collections.emptyMap())) {
+                    if (r.code() == 200) {
+                        found.add(Finding.of(endpoint, "GET", r.code(), id(),
+                                Finding.Severity.HIGH,
+                                "Эндпоинт доступен без аутентификации",
+                                "",
+                                "Требуйте аутентификацию для всех защищенных эндпоинтов"));
+                    } else if (r.code() == 401 || r.code() == 403) {
+                        found.add(Finding.of(endpoint, "GET", r.code(), id(),
+                                Finding.Severity.INFO,
+                                "Эндпоинт правильно требует аутентификацию",
+                                "",
+                                ""));
+                    }
+                } catch (Exception e) {
+                    // Игнорируем ошибки подключения
                 }
-            } catch (Exception e) {
-                // Игнорируем ошибки подключения
-            }
+                return found;
+            });
         }
+        for (List<Finding> found : ctx.probes.invokeAll(probes)) out.addAll(found);
     }
 }
\ No newline at end of file
@@ -3,8 +3,10 @@ package securityscanner.plugins;
 import okhttp3.HttpUrl;
 import okhttp3.Response;
 import securityscanner.core.ExecutionContext;
+import securityscanner.core.PluginResource;
 import securityscanner.core.SecurityPlugin;
 import securityscanner.core.model.Finding;
+import securityscanner.http.BoundedBody;
 import securityscanner.http.RequestExecutor;
 
 import java.util.*;
@@ -17,6 +19,11 @@ public class BolaPlugin implements SecurityPlugin {
     @Override public String id() { return "API1: BOLA"; }
     @Override public String title() { return "Broken Object Level Authorization"; }
     @Override public String description() { return "Проверка возможности доступа к данным других пользователей через подмену client_id"; }
+    @Override public Set<String> targetPaths() { return Set.of("/accounts"); }
+
+    // Вердикт BOLA имеет смысл только после проверки валидности токена
+    @Override public Set<String> dependsOn() { return Set.of("API2: BrokenAuth"); }
+    @Override public Set<PluginResource> resources() { return Set.of(PluginResource.CONSENT); }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
@@ -32,13 +39,6 @@ public class BolaPlugin implements SecurityPlugin {
             return out;
         }
 
-        // Задержка перед проверкой BOLA чтобы избежать rate limiting
-        try { 
-            Thread.sleep(2000); 
-        } catch (InterruptedException e) { 
-            Thread.currentThread().interrupt(); 
-        }
-
         // Пытаемся получить доступ к данным другого пользователя
         String other = "team999-1";
         HttpUrl.Builder ub = Objects.requireNonNull(HttpUrl.parse(ctx.baseUrl + "/accounts")).newBuilder();
@@ -50,10 +50,10 @@ public class BolaPlugin implements SecurityPlugin {
         if (ctx.requestingBank != null) headers.put("X-Requesting-Bank", ctx.requestingBank);
         if (ctx.consentId != null) headers.put("X-Consent-Id", ctx.consentId);
 
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx).reusingCachedResponses();
         try (Response r = rex.get(url, headers)) {
             int code = r.code();
-            String body = r.body() != null ? r.body().string() : "";
+            String body = BoundedBody.read(r).text();
             
             if (code == 429) {
                 out.add(Finding.of("/accounts?client_id="+other, "GET", code, id(),
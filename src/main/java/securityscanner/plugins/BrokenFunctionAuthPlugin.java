@@ -4,9 +4,11 @@ import okhttp3.Response;
 import securityscanner.core.ExecutionContext;
 import securityscanner.core.SecurityPlugin;
 import securityscanner.core.model.Finding;
+import securityscanner.http.BoundedBody;
 import securityscanner.http.RequestExecutor;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Плагин для проверки Broken Function Level Authorization - OWASP API5
@@ -16,11 +18,12 @@ public class BrokenFunctionAuthPlugin implements SecurityPlugin {
     @Override public String id() { return "API5: BrokenFunctionAuth"; }
     @Override public String title() { return "Broken Function Level Authorization"; }
     @Override public String description() { return "Проверка несанкционированного доступа к административным функциям"; }
+    @Override public Set<String> targetPaths() { return Set.of("/admin", "/system/health", "/debug", "/metrics"); }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
         List<Finding> out = new ArrayList<>();
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx).reusingCachedResponses();
 
         // Эндпоинты, которые должны быть доступны только администраторам
         String[] adminEndpoints = {
@@ -36,28 +39,35 @@ public class BrokenFunctionAuthPlugin implements SecurityPlugin {
         if (ctx.accessToken != null) headers.put("Authorization", "Bearer " + ctx.accessToken);
         if (ctx.requestingBank != null) headers.put("X-Requesting-Bank", ctx.requestingBank);
 
+        // Каждый административный эндпоинт проверяется отдельной пробой
+        List<Callable<List<Finding>>> probes = new ArrayList<>();
         for (String endpoint : adminEndpoints) {
-            String url = ctx.baseUrl + endpoint;
-            
-            try (Response r = rex.get(url, headers)) {
-                int code = r.code();
-                String body = r.body() != null ? r.body().string() : "";
-                
-                if (code == 200 || code == 201) {
-                    out.add(Finding.of(endpoint, "GET", code, id(),
-                            Finding.Severity.HIGH,
-                            "Административный эндпоинт доступен обычному пользователю",
-                            snippet(body)));
-                } else if (code == 403 || code == 401) {
-                    out.add(Finding.of(endpoint, "GET", code, id(),
-                            Finding.Severity.INFO,
-                            "Административный эндпоинт правильно защищен",
-                            snippet(body)));
+            probes.add(() -> {
+                List<Finding> found = new ArrayList<>();
+                String url = ctx.baseUrl + endpoint;
+
+                try (Response r = rex.get(url, headers)) {
+                    int code = r.code();
+                    String body = BoundedBody.read(r).text();
+
+                    if (code == 200 || code == 201) {
+                        found.add(Finding.of(endpoint, "GET", code, id(),
+                                Finding.Severity.HIGH,
+                                "Административный эндпоинт доступен обычному пользователю",
+                                snippet(body)));
+                    } else if (code == 403 || code == 401) {
+                        found.add(Finding.of(endpoint, "GET", code, id(),
+                                Finding.Severity.INFO,
+                                "Административный эндпоинт правильно защищен",
+                                snippet(body)));
+                    }
+                } catch (Exception e) {
+                    // Игнорируем ошибки подключения - эндпоинт может не существовать
                 }
-            } catch (Exception e) {
-                // Игнорируем ошибки подключения - эндпоинт может не существовать
-            }
+                return found;
+            });
         }
+        for (List<Finding> found : ctx.probes.invokeAll(probes)) out.addAll(found);
 
         return out;
     }
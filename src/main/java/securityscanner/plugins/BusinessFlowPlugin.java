@@ -2,11 +2,15 @@ package securityscanner.plugins;
 
 import okhttp3.Response;
 import securityscanner.core.ExecutionContext;
+import securityscanner.core.PluginResource;
 import securityscanner.core.SecurityPlugin;
 import securityscanner.core.model.Finding;
 import securityscanner.http.RequestExecutor;
+import securityscanner.http.ScanBudget;
+import securityscanner.metrics.PluginProfiler;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Плагин для проверки Unrestricted Access to Sensitive Business Flows - OWASP API6
@@ -16,11 +20,15 @@ public class BusinessFlowPlugin implements SecurityPlugin {
     @Override public String id() { return "API6: BusinessFlow"; }
     @Override public String title() { return "Unrestricted Access to Sensitive Business Flows"; }
     @Override public String description() { return "Проверка неограниченного доступа к чувствительным бизнес-процессам"; }
+    @Override public Set<String> targetPaths() { return Set.of("/account-consents/request", "/payments", "/transactions", "/product-agreements"); }
+
+    // Повторные вызовы считают успешные ответы - 429 от чужой нагрузки исказят результат
+    @Override public Set<PluginResource> resources() { return Set.of(PluginResource.RATE_LIMIT_SENSITIVE); }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
         List<Finding> out = new ArrayList<>();
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx).distinctCalls();
 
         // Бизнес-процессы, которые могут быть уязвимы для автоматизации
         String[] businessFlowEndpoints = {
@@ -34,10 +42,13 @@ public class BusinessFlowPlugin implements SecurityPlugin {
         if (ctx.accessToken != null) headers.put("Authorization", "Bearer " + ctx.accessToken);
         if (ctx.requestingBank != null) headers.put("X-Requesting-Bank", ctx.requestingBank);
 
-        // Тестируем возможность быстрого повторного вызова бизнес-процессов
+        // Тестируем возможность быстрого повторного вызова бизнес-процессов.
+        // Разные бизнес-процессы проверяются параллельно, вызовы одного процесса - последовательно
+        List<Callable<List<Finding>>> probes = new ArrayList<>();
         for (String endpoint : businessFlowEndpoints) {
-            out.addAll(testBusinessFlowRate(ctx, rex, endpoint, headers));
+            probes.add(() -> testBusinessFlowRate(ctx, rex, endpoint, headers));
         }
+        for (List<Finding> found : ctx.probes.invokeAll(probes)) out.addAll(found);
 
         return out;
     }
@@ -57,7 +68,7 @@ public class BusinessFlowPlugin implements SecurityPlugin {
             try {
                 // Добавляем задержку между вызовами
                 if (i > 0) {
-                    Thread.sleep(500);
+                    PluginProfiler.sleep(500);
                 }
 
                 Response r;
@@ -74,6 +85,8 @@ public class BusinessFlowPlugin implements SecurityPlugin {
                 }
 
                 r.close();
+            } catch (ScanBudget.ExhaustedException e) {
+                return out;
             } catch (Exception e) {
                 // Игнорируем ошибки
             }
@@ -2,10 +2,12 @@ package securityscanner.plugins;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.Request;
 import okhttp3.Response;
 import securityscanner.core.ExecutionContext;
 import securityscanner.core.SecurityPlugin;
 import securityscanner.core.model.Finding;
+import securityscanner.http.BoundedBody;
 import securityscanner.http.RequestExecutor;
 
 import java.util.*;
@@ -20,11 +22,12 @@ public class InjectionPlugin implements SecurityPlugin {
     @Override public String id() { return "API8:Injection"; }
     @Override public String title() { return "SQL/NoSQL/Command Injection"; }
     @Override public String description() { return "Проверка на инъекции в параметрах запроса и теле"; }
+    @Override public Set<String> targetPaths() { return Set.of("/accounts"); }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
         List<Finding> out = new ArrayList<>();
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx);
 
         // SQL инъекции в query параметрах
         String[] sqlPayloads = {"' OR '1'='1", "1; DROP TABLE users", "' UNION SELECT 1,2,3--", 
@@ -37,26 +40,46 @@ public class InjectionPlugin implements SecurityPlugin {
         if (ctx.accessToken != null) headers.put("Authorization", "Bearer " + ctx.accessToken);
         if (ctx.requestingBank != null) headers.put("X-Requesting-Bank", ctx.requestingBank);
 
-        // Тестируем SQL инъекции в параметрах запроса
+        // Все payload отправляются сразу, ответы анализируются по мере поступления
+        List<Request> requests = new ArrayList<>();
+        List<String[]> meta = new ArrayList<>(); // {payload, method, type}
+
+        // SQL инъекции в параметрах запроса
         for (String payload : sqlPayloads) {
-            String url = ctx.baseUrl + "/accounts?client_id=" + payload;
-            try (Response r = rex.get(url, headers)) {
-                String body = r.body() != null ? r.body().string() : "";
-                analyzeResponse(out, "/accounts", "GET", r.code(), payload, body, "SQL");
-            }
+            requests.add(rex.newGet(ctx.baseUrl + "/accounts?client_id=" + payload, headers));
+            meta.add(new String[]{payload, "GET", "SQL"});
         }
 
-        // Тестируем NoSQL инъекции в теле запроса
+        // NoSQL инъекции в теле запроса
         for (String payload : nosqlPayloads) {
-            String url = ctx.baseUrl + "/accounts";
             ObjectNode body = om.createObjectNode();
             body.put("client_id", payload);
-            
-            try (Response r = rex.postJson(url, om.writeValueAsString(body), headers)) {
-                String responseBody = r.body() != null ? r.body().string() : "";
-                analyzeResponse(out, "/accounts", "POST", r.code(), payload, responseBody, "NoSQL");
+            requests.add(rex.newPostJson(ctx.baseUrl + "/accounts", om.writeValueAsString(body), headers));
+            meta.add(new String[]{payload, "POST", "NoSQL"});
+        }
+
+        // Находки собираются по индексу запроса, чтобы порядок в отчете не зависел от порядка ответов
+        List<List<Finding>> byRequest = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) byRequest.add(new ArrayList<>());
+        Exception firstError = null;
+        try (RequestExecutor.Batch batch = rex.executeBatch(requests)) {
+            for (RequestExecutor.BatchResult result : batch) {
+                try (result) {
+                    if (!result.isSuccess()) {
+                        if (firstError == null) {
+                            firstError = result.error instanceof Exception ? (Exception) result.error : new Exception(result.error);
+                        }
+                        continue;
+                    }
+                    String[] m = meta.get(result.index);
+                    Response r = result.response;
+                    String body = BoundedBody.read(r).text();
+                    analyzeResponse(byRequest.get(result.index), "/accounts", m[1], r.code(), m[0], body, m[2]);
+                }
             }
         }
+        if (firstError != null) throw firstError;
+        for (List<Finding> found : byRequest) out.addAll(found);
 
         return out;
     }
@@ -4,11 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import okhttp3.Response;
 import securityscanner.core.ExecutionContext;
+import securityscanner.core.PluginResource;
 import securityscanner.core.SecurityPlugin;
 import securityscanner.core.model.Finding;
+import securityscanner.http.BoundedBody;
 import securityscanner.http.RequestExecutor;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Плагин для проверки Broken Object Property Level Authorization - OWASP API3
@@ -20,17 +23,21 @@ public class ObjectPropertyAuthPlugin implements SecurityPlugin {
     @Override public String id() { return "API3: ObjectPropertyAuth"; }
     @Override public String title() { return "Broken Object Property Level Authorization"; }
     @Override public String description() { return "Проверка авторизации на уровне свойств объектов - избыточное раскрытие данных и массовое присваивание"; }
+    @Override public Set<String> targetPaths() { return Set.of("/accounts"); }
+    @Override public Set<PluginResource> resources() { return Set.of(PluginResource.CONSENT); }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
         List<Finding> out = new ArrayList<>();
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx).reusingCachedResponses();
 
-        // Тест 1: Excessive Data Exposure - проверка чувствительных данных в ответах
-        out.addAll(testExcessiveDataExposure(ctx, rex));
-        
-        // Тест 2: Mass Assignment - попытка модификации read-only полей
-        out.addAll(testMassAssignment(ctx, rex));
+        // Тесты независимы и выполняются как отдельные пробы:
+        // 1. Excessive Data Exposure - проверка чувствительных данных в ответах
+        // 2. Mass Assignment - попытка модификации read-only полей
+        List<Callable<List<Finding>>> probes = List.of(
+                () -> testExcessiveDataExposure(ctx, rex),
+                () -> testMassAssignment(ctx, rex));
+        for (List<Finding> found : ctx.probes.invokeAll(probes)) out.addAll(found);
 
         return out;
     }
@@ -51,7 +58,7 @@ public class ObjectPropertyAuthPlugin implements SecurityPlugin {
         
         try (Response r = rex.get(url, headers)) {
             if (r.code() == 200) {
-                String body = r.body() != null ? r.body().string() : "";
+                String body = BoundedBody.read(r).text();
                 analyzeForSensitiveData(out, body, "/accounts");
             }
         } catch (Exception e) {
@@ -84,7 +91,7 @@ public class ObjectPropertyAuthPlugin implements SecurityPlugin {
 
         try (Response r = rex.postJson(url, om.writeValueAsString(body), headers)) {
             int code = r.code();
-            String resp = r.body() != null ? r.body().string() : "";
+            String resp = BoundedBody.read(r).text();
             
             if (code >= 200 && code < 300) {
                 out.add(Finding.of("/accounts", "POST", code, id(),
@@ -2,9 +2,12 @@ package securityscanner.plugins;
 
 import okhttp3.Response;
 import securityscanner.core.ExecutionContext;
+import securityscanner.core.PluginResource;
 import securityscanner.core.SecurityPlugin;
 import securityscanner.core.model.Finding;
 import securityscanner.http.RequestExecutor;
+import securityscanner.http.ScanBudget;
+import securityscanner.metrics.PluginProfiler;
 
 import java.util.*;
 
@@ -16,6 +19,12 @@ public class ResourceConsumptionPlugin implements SecurityPlugin {
     @Override public String id() { return "API4: ResourceConsumption"; }
     @Override public String title() { return "Unrestricted Resource Consumption"; }
     @Override public String description() { return "Проверка неограниченного потребления ресурсов (Rate Limiting)"; }
+    @Override public Set<String> targetPaths() { return Set.of("/accounts"); }
+
+    // Измерение rate limiting выполняется без фоновой нагрузки других плагинов
+    @Override public Set<PluginResource> resources() {
+        return Set.of(PluginResource.CONSENT, PluginResource.RATE_LIMIT_SENSITIVE);
+    }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
@@ -37,7 +46,7 @@ public class ResourceConsumptionPlugin implements SecurityPlugin {
         if (ctx.requestingBank != null && ctx.interbankClientId != null) headers.put("X-Requesting-Bank", ctx.requestingBank);
         if (ctx.consentId != null && ctx.interbankClientId != null) headers.put("X-Consent-Id", ctx.consentId);
 
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx).distinctCalls();
         int requests = 5; // Уменьшенное количество запросов для теста
         int successfulCalls = 0;
         int rateLimitedCalls = 0;
@@ -45,12 +54,14 @@ public class ResourceConsumptionPlugin implements SecurityPlugin {
         for (int i = 0; i < requests; i++) {
             try {
                 // Увеличиваем задержку между запросами
-                if (i > 0) Thread.sleep(3000);
+                if (i > 0) PluginProfiler.sleep(3000);
                 
                 try (Response r = rex.get(url, headers)) {
                     if (r.code() == 200) successfulCalls++;
                     if (r.code() == 429) rateLimitedCalls++;
                 }
+            } catch (ScanBudget.ExhaustedException e) {
+                return out; // Бюджет сканирования исчерпан: по неполной серии вывод о rate limiting не делается
             } catch (Exception e) {
                 // Игнорируем ошибки
             }
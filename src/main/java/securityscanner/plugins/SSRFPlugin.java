@@ -7,6 +7,7 @@ import securityscanner.core.model.Finding;
 import securityscanner.http.RequestExecutor;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Плагин для проверки Server Side Request Forgery (SSRF) - OWASP API7
@@ -16,11 +17,12 @@ public class SSRFPlugin implements SecurityPlugin {
     @Override public String id() { return "API7: SSRF"; }
     @Override public String title() { return "Server Side Request Forgery"; }
     @Override public String description() { return "Проверка уязвимостей Server-Side Request Forgery"; }
+    @Override public Set<String> targetPaths() { return Set.of("/webhooks", "/callbacks", "/notifications", "/import", "/fetch"); }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
         List<Finding> out = new ArrayList<>();
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx);
 
         // Эндпоинты, которые могут быть уязвимы к SSRF
         String[] ssrfEndpoints = {
@@ -44,11 +46,14 @@ public class SSRFPlugin implements SecurityPlugin {
         Map<String, String> headers = new HashMap<>();
         if (ctx.accessToken != null) headers.put("Authorization", "Bearer " + ctx.accessToken);
 
+        // Каждая пара эндпоинт/payload - независимая проба
+        List<Callable<List<Finding>>> probes = new ArrayList<>();
         for (String endpoint : ssrfEndpoints) {
             for (String payload : ssrfPayloads) {
-                out.addAll(testSSRFVulnerability(ctx, rex, endpoint, payload, headers));
+                probes.add(() -> testSSRFVulnerability(ctx, rex, endpoint, payload, headers));
             }
         }
+        for (List<Finding> found : ctx.probes.invokeAll(probes)) out.addAll(found);
 
         return out;
     }
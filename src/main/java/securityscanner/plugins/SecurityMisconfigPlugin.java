@@ -4,9 +4,11 @@ import okhttp3.Response;
 import securityscanner.core.ExecutionContext;
 import securityscanner.core.SecurityPlugin;
 import securityscanner.core.model.Finding;
+import securityscanner.http.BoundedBody;
 import securityscanner.http.RequestExecutor;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Плагин для проверки Security Misconfiguration - OWASP API8 
@@ -16,11 +18,12 @@ public class SecurityMisconfigPlugin implements SecurityPlugin {
     @Override public String id() { return "API8: SecurityMisconfig"; }
     @Override public String title() { return "Security Misconfiguration"; }
     @Override public String description() { return "Проверка типичных misconfiguration и security headers"; }
+    @Override public Set<String> targetPaths() { return Set.of("/", "/debug", "/actuator", "/metrics", "/status", "/test"); }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
         List<Finding> out = new ArrayList<>();
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx).reusingCachedResponses();
 
         Map<String, String> headers = new HashMap<>();
         if (ctx.accessToken != null) headers.put("Authorization", "Bearer " + ctx.accessToken);
@@ -78,25 +81,32 @@ public class SecurityMisconfigPlugin implements SecurityPlugin {
      */
     private void checkDebugEndpoints(List<Finding> out, ExecutionContext ctx, RequestExecutor rex, Map<String, String> headers) throws Exception {
         String[] debugEndpoints = {"/debug", "/actuator", "/metrics", "/status", "/test"};
-        
+
+        // Debug эндпоинты проверяются параллельными пробами
+        List<Callable<List<Finding>>> probes = new ArrayList<>();
         for (String endpoint : debugEndpoints) {
-            String url = ctx.baseUrl + endpoint;
-            try (Response r = rex.get(url, headers)) {
-                if (r.code() == 200) {
-                    String body = r.body() != null ? r.body().string() : "";
-                    // Проверяем, не содержит ли ответ чувствительной информации
-                    if (body.contains("memory") || body.contains("heap") || 
-                        body.contains("database") || body.contains("config")) {
-                        out.add(Finding.of(endpoint, "GET", r.code(), id(),
-                            Finding.Severity.MEDIUM,
-                            "Debug эндпоинт раскрывает системную информацию",
-                            snippet(body)));
+            probes.add(() -> {
+                List<Finding> found = new ArrayList<>();
+                String url = ctx.baseUrl + endpoint;
+                try (Response r = rex.get(url, headers)) {
+                    if (r.code() == 200) {
+                        String body = BoundedBody.read(r).text();
+                        // Проверяем, не содержит ли ответ чувствительной информации
+                        if (body.contains("memory") || body.contains("heap") ||
+                            body.contains("database") || body.contains("config")) {
+                            found.add(Finding.of(endpoint, "GET", r.code(), id(),
+                                Finding.Severity.MEDIUM,
+                                "Debug эндпоинт раскрывает системную информацию",
+                                snippet(body)));
+                        }
                     }
+                } catch (Exception e) {
+                    // Игнорируем ошибки подключения
                 }
-            } catch (Exception e) {
-                // Игнорируем ошибки подключения
-            }
+                return found;
+            });
         }
+        for (List<Finding> found : ctx.probes.invokeAll(probes)) out.addAll(found);
     }
 
     /**
@@ -4,9 +4,11 @@ import okhttp3.Response;
 import securityscanner.core.ExecutionContext;
 import securityscanner.core.SecurityPlugin;
 import securityscanner.core.model.Finding;
+import securityscanner.http.BoundedBody;
 import securityscanner.http.RequestExecutor;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Плагин для проверки Unsafe Consumption of APIs - OWASP API10
@@ -17,11 +19,12 @@ public class UnsafeConsumptionPlugin implements SecurityPlugin {
     @Override public String id() { return "API10:UnsafeConsumption"; }
     @Override public String title() { return "Unsafe Consumption of APIs"; }
     @Override public String description() { return "Проверка небезопасного взаимодействия с внешними API"; }
+    @Override public Set<String> targetPaths() { return Set.of("/payments/external", "/webhooks", "/callbacks", "/redirect"); }
 
     @Override
     public List<Finding> run(ExecutionContext ctx) throws Exception {
         List<Finding> out = new ArrayList<>();
-        RequestExecutor rex = new RequestExecutor(ctx.http, ctx.verbose);
+        RequestExecutor rex = new RequestExecutor(ctx);
 
         // Проверка внешних ссылок и редиректов
         String[] externalCheckEndpoints = {
@@ -34,32 +37,39 @@ public class UnsafeConsumptionPlugin implements SecurityPlugin {
         Map<String, String> headers = new HashMap<>();
         if (ctx.accessToken != null) headers.put("Authorization", "Bearer " + ctx.accessToken);
 
+        // Эндпоинты проверяются параллельными пробами
+        List<Callable<List<Finding>>> probes = new ArrayList<>();
         for (String endpoint : externalCheckEndpoints) {
-            String url = ctx.baseUrl + endpoint;
-            
-            try (Response r = rex.get(url, headers)) {
-                int code = r.code();
-                
-                // Проверка редиректов на внешние домены
-                if (code >= 300 && code < 400) {
-                    String location = r.header("Location");
-                    if (location != null && isExternalUrl(location, ctx.baseUrl)) {
-                        out.add(Finding.of(endpoint, "GET", code, id(),
-                                Finding.Severity.MEDIUM,
-                                "Редирект на внешний домен: " + location,
-                                ""));
+            probes.add(() -> {
+                List<Finding> found = new ArrayList<>();
+                String url = ctx.baseUrl + endpoint;
+
+                try (Response r = rex.get(url, headers)) {
+                    int code = r.code();
+
+                    // Проверка редиректов на внешние домены
+                    if (code >= 300 && code < 400) {
+                        String location = r.header("Location");
+                        if (location != null && isExternalUrl(location, ctx.baseUrl)) {
+                            found.add(Finding.of(endpoint, "GET", code, id(),
+                                    Finding.Severity.MEDIUM,
+                                    "Редирект на внешний домен: " + location,
+                                    ""));
+                        }
                     }
+
+                    // Проверка внешних ссылок в теле ответа
+                    if (code == 200) {
+                        String body = BoundedBody.read(r).text();
+                        checkForExternalUrls(found, endpoint, body, ctx.baseUrl);
+                    }
+                } catch (Exception e) {
+                    // Игнорируем недоступные эндпоинты
                 }
-                
-                // Проверка внешних ссылок в теле ответа
-                if (code == 200) {
-                    String body = r.body() != null ? r.body().string() : "";
-                    checkForExternalUrls(out, endpoint, body, ctx.baseUrl);
-                }
-            } catch (Exception e) {
-                // Игнорируем недоступные эндпоинты
-            }
+                return found;
+            });
         }
+        for (List<Finding> found : ctx.probes.invokeAll(probes)) out.addAll(found);
 
         // Проверка webhook/callback эндпоинтов на SSRF уязвимости
         checkSSRFVulnerabilities(out, ctx, rex);
@@ -70,7 +80,7 @@ public class UnsafeConsumptionPlugin implements SecurityPlugin {
     /**
      * Проверяет эндпоинты на потенциальные SSRF уязвимости
      */
-    private void checkSSRFVulnerabilities(List<Finding> out, ExecutionContext ctx, RequestExecutor rex) {
+    private void checkSSRFVulnerabilities(List<Finding> out, ExecutionContext ctx, RequestExecutor rex) throws Exception {
         // Тест на потенциальные SSRF уязвимости через параметры URL
         String[] ssrfPayloads = {
             "http://localhost:8080/admin",
@@ -82,21 +92,27 @@ public class UnsafeConsumptionPlugin implements SecurityPlugin {
         Map<String, String> headers = new HashMap<>();
         if (ctx.accessToken != null) headers.put("Authorization", "Bearer " + ctx.accessToken);
 
+        List<Callable<List<Finding>>> probes = new ArrayList<>();
         for (String payload : ssrfPayloads) {
-            // Использование современного метода encode с указанием charset
-            String testUrl = ctx.baseUrl + "/webhooks?url=" + java.net.URLEncoder.encode(payload, java.nio.charset.StandardCharsets.UTF_8);
-            
-            try (Response r = rex.get(testUrl, headers)) {
-                if (r.isSuccessful()) {
-                    out.add(Finding.of("/webhooks", "GET", r.code(), id(),
-                            Finding.Severity.HIGH,
-                            "Возможная SSRF уязвимость: эндпоинт принял URL " + payload,
-                            ""));
+            probes.add(() -> {
+                List<Finding> found = new ArrayList<>();
+                // Использование современного метода encode с указанием charset
+                String testUrl = ctx.baseUrl + "/webhooks?url=" + java.net.URLEncoder.encode(payload, java.nio.charset.StandardCharsets.UTF_8);
+
+                try (Response r = rex.get(testUrl, headers)) {
+                    if (r.isSuccessful()) {
+                        found.add(Finding.of("/webhooks", "GET", r.code(), id(),
+                                Finding.Severity.HIGH,
+                                "Возможная SSRF уязвимость: эндпоинт принял URL " + payload,
+                                ""));
+                    }
+                } catch (Exception e) {
+                    // Игнорируем ошибки
                 }
-            } catch (Exception e) {
-                // Игнорируем ошибки
-            }
+                return found;
+            });
         }
+        for (List<Finding> found : ctx.probes.invokeAll(probes)) out.addAll(found);
     }
 
     /**
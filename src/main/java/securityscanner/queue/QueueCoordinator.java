@@ -0,0 +1,190 @@
+package securityscanner.queue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Координатор распределенного сканирования: раскладывает задачи по шардам очереди и
+ * собирает результаты исполнителей. Для каждой задачи возвращается future, которое
+ * завершается, когда результат шарда появится в done/, поэтому аудитор объединяет
+ * результаты так же, как при локальном выполнении.
+ *
+ * Сбор результатов и возврат зависших шардов выполняет фоновый поток. Координатор может
+ * сам выполнять шарды (локальные исполнители), тогда сканирование идет и без внешних процессов.
+ */
+public class QueueCoordinator implements AutoCloseable {
+
+    private final WorkQueue queue;
+    private final String jobId;
+    private final int shardSize;
+    private final Duration shardTimeout;
+    private final long pollMillis;
+
+    private final ConcurrentMap<String, CompletableFuture<WorkQueue.TaskResult>> waiting = new ConcurrentHashMap<>();
+    private final List<WorkQueue.Task> buffer = new ArrayList<>();
+    private final Set<String> collected = new HashSet<>();
+    private final Map<String, Integer> shardsByWorker = new TreeMap<>();
+    private final List<Thread> localWorkers = new ArrayList<>();
+    private int shardSeq;
+    private volatile int requeued;
+
+    private Thread collector;
+    private volatile boolean running = true;
+
+    /**
+     * @param shardSize число сценариев в шарде
+     * @param shardTimeout время, после которого захваченный шард возвращается в очередь
+     */
+    public QueueCoordinator(WorkQueue queue, String jobId, int shardSize, Duration shardTimeout, long pollMillis) {
+        this.queue = queue;
+        this.jobId = jobId;
+        this.shardSize = Math.max(1, shardSize);
+        this.shardTimeout = shardTimeout;
+        this.pollMillis = pollMillis;
+    }
+
+    /**
+     * Запускает сбор результатов и локальных исполнителей
+     * @param workers число исполнителей в процессе координатора (0 - только внешние)
+     * @param runner выполнение задачи локальным исполнителем
+     */
+    public synchronized void start(int workers, QueueWorker.TaskRunner runner) {
+        collector = new Thread(this::collectLoop, "queue-collector");
+        collector.setDaemon(true);
+        collector.start();
+        for (int i = 0; i < workers; i++) {
+            Thread t = new Thread(new QueueWorker(queue, jobId, runner, pollMillis), "queue-local-worker-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+            localWorkers.add(t);
+        }
+    }
+
+    /**
+     * Добавляет задачу в текущий шард; шард публикуется при заполнении или по {@link #flush()}
+     */
+    public synchronized CompletableFuture<WorkQueue.TaskResult> submit(WorkQueue.Task task) throws IOException {
+        CompletableFuture<WorkQueue.TaskResult> f = register(task);
+        buffer.add(task);
+        if (buffer.size() >= shardSize) flush();
+        return f;
+    }
+
+    /**
+     * Публикует задачу отдельным шардом без ожидания заполнения
+     */
+    public synchronized CompletableFuture<WorkQueue.TaskResult> submitNow(WorkQueue.Task task) throws IOException {
+        CompletableFuture<WorkQueue.TaskResult> f = register(task);
+        buffer.add(task);
+        flush();
+        return f;
+    }
+
+    private CompletableFuture<WorkQueue.TaskResult> register(WorkQueue.Task task) {
+        CompletableFuture<WorkQueue.TaskResult> f = new CompletableFuture<>();
+        if (waiting.putIfAbsent(task.key, f) != null) {
+            throw new IllegalArgumentException("Duplicate work queue task: " + task.key);
+        }
+        return f;
+    }
+
+    /**
+     * Публикует незаполненный шард
+     */
+    public synchronized void flush() throws IOException {
+        if (buffer.isEmpty()) return;
+        WorkQueue.Shard shard = new WorkQueue.Shard();
+        shard.jobId = jobId;
+        shard.id = String.format("shard-%05d", ++shardSeq);
+        shard.tasks = new ArrayList<>(buffer);
+        buffer.clear();
+        queue.enqueue(shard);
+    }
+
+    private void collectLoop() {
+        while (running) {
+            try {
+                collectOnce();
+                int n = queue.requeueStale(shardTimeout);
+                if (n > 0) {
+                    requeued += n;
+                    System.out.println("Work queue: " + n + " stalled shards returned to the queue");
+                }
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Work queue collector: " + e.getMessage());
+            }
+        }
+    }
+
+    private void collectOnce() throws IOException {
+        List<WorkQueue.ShardResult> results;
+        synchronized (collected) {
+            results = queue.collect(collected);
+        }
+        for (WorkQueue.ShardResult r : results) {
+            if (!jobId.equals(r.jobId)) continue;
+            synchronized (shardsByWorker) {
+                shardsByWorker.merge(r.worker, 1, Integer::sum);
+            }
+            for (WorkQueue.TaskResult tr : r.results) {
+                CompletableFuture<WorkQueue.TaskResult> f = waiting.remove(tr.key);
+                if (f != null) f.complete(tr);
+            }
+        }
+    }
+
+    /**
+     * @return сводка по исполнителям для вывода
+     */
+    public String summary() {
+        synchronized (shardsByWorker) {
+            int total = shardsByWorker.values().stream().mapToInt(Integer::intValue).sum();
+            return "Work queue " + queue.dir() + ": " + shardSeq + " shards, " + total + " completed by "
+                    + shardsByWorker.size() + " workers " + shardsByWorker
+                    + (requeued > 0 ? ", " + requeued + " requeued" : "");
+        }
+    }
+
+    /**
+     * Закрывает очередь: исполнители выходят, незавершенные задачи завершаются как невыполненные
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            queue.close();
+        } catch (IOException e) {
+            System.err.println("Work queue close failed: " + e.getMessage());
+        }
+        List<Thread> threads;
+        synchronized (this) {
+            threads = new ArrayList<>(localWorkers);
+        }
+        for (Thread t : threads) t.interrupt();
+        if (collector != null) {
+            collector.interrupt();
+            threads.add(collector);
+        }
+        for (Thread t : threads) {
+            try {
+                t.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        try {
+            collectOnce();
+        } catch (IOException ignore) {
+        }
+        waiting.forEach((key, f) -> f.complete(new WorkQueue.TaskResult(key, false, List.of())));
+        waiting.clear();
+    }
+}
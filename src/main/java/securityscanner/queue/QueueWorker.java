@@ -0,0 +1,93 @@
+package securityscanner.queue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Исполнитель очереди: забирает шарды, выполняет их задачи и публикует результаты.
+ * Работает, пока координатор не закроет очередь и в ней не останется свободных шардов.
+ * Используется в отдельных процессах (--queue-worker) и внутри координатора.
+ */
+public class QueueWorker implements Runnable {
+
+    /**
+     * Выполнение одной задачи (сценарий или плагин)
+     */
+    @FunctionalInterface
+    public interface TaskRunner {
+        WorkQueue.TaskResult run(WorkQueue.Task task);
+    }
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    private final WorkQueue queue;
+    private final String jobId;
+    private final TaskRunner runner;
+    private final String workerId;
+    private final long pollMillis;
+
+    private int shards;
+    private int tasks;
+
+    /**
+     * @param jobId задание, шарды которого выполняет исполнитель
+     * @param pollMillis интервал опроса очереди, когда свободных шардов нет
+     */
+    public QueueWorker(WorkQueue queue, String jobId, TaskRunner runner, long pollMillis) {
+        this.queue = queue;
+        this.jobId = jobId;
+        this.runner = runner;
+        this.pollMillis = pollMillis;
+        // host-pid-N: уникален среди процессов, работающих с общим каталогом
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName().replace('@', '-')
+                .replaceAll("[^A-Za-z0-9._-]", "_") + "-" + SEQ.incrementAndGet();
+    }
+
+    public String workerId() { return workerId; }
+    public int shards() { return shards; }
+    public int tasks() { return tasks; }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WorkQueue.Shard shard = queue.claim(workerId);
+                if (shard == null) {
+                    if (queue.isClosed()) return;
+                    Thread.sleep(pollMillis);
+                    continue;
+                }
+                if (!jobId.equals(shard.jobId)) {
+                    // Очередь пересоздана новым координатором - шард не этого задания
+                    queue.release(shard);
+                    System.out.println("Work queue was reset by another coordinator, worker " + workerId + " stops");
+                    return;
+                }
+                execute(shard);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Work queue worker " + workerId + " failed: " + e.getMessage());
+        }
+    }
+
+    private void execute(WorkQueue.Shard shard) throws IOException {
+        WorkQueue.ShardResult result = new WorkQueue.ShardResult();
+        result.jobId = jobId;
+        result.shardId = shard.id;
+        result.worker = workerId;
+        for (WorkQueue.Task task : shard.tasks) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Незавершенный шард выполнит другой исполнитель
+                queue.release(shard);
+                return;
+            }
+            result.results.add(runner.run(task));
+        }
+        queue.complete(shard, result);
+        shards++;
+        tasks += shard.tasks.size();
+    }
+}
@@ -0,0 +1,311 @@
+package securityscanner.queue;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import securityscanner.core.model.Finding;
+import securityscanner.generator.ScenarioGenerator;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Очередь работы сканирования в общем каталоге (распределенное сканирование без брокера).
+ *
+ * Координатор записывает задание (job.json, spec.json) и шарды задач в pending/. Исполнитель
+ * забирает шард атомарным переименованием pending/{shard} -&gt; claimed/{shard}#{worker}: из
+ * нескольких исполнителей переименование удается только одному. Результат шарда записывается
+ * во временный файл и атомарно переносится в done/. Шард, который исполнитель держит дольше
+ * таймаута (исполнитель завис или остановлен), возвращается в pending/.
+ * Маркер closed означает, что координатор завершил сканирование и исполнители могут выйти.
+ *
+ * Каталог должен находиться на одной файловой системе (атомарное переименование).
+ * job.json содержит токен доступа и id согласия - доступ к каталогу нужно ограничить.
+ */
+public class WorkQueue {
+
+    public static final String SCENARIO = "scenario";
+    public static final String PLUGIN = "plugin";
+
+    private static final ObjectMapper OM = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            // fuzz тела содержат числа вне диапазона double (1e400) - сохраняем их без потерь
+            .configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true);
+
+    /**
+     * Параметры сканирования, общие для всех исполнителей
+     */
+    public static class Job {
+        public String jobId;
+        public String baseUrl;
+        public String openapi;
+        public String accessToken;
+        public String consentId;
+        public String requestingBank;
+        public String interbankClientId;
+        public List<String> extraHeaders = new ArrayList<>();
+        public String createdAt;
+
+        public Job() {}
+    }
+
+    /**
+     * Единица работы: сценарий или плагин
+     */
+    public static class Task {
+        public String kind;     // scenario / plugin
+        public String key;      // Уникален в пределах задания
+        public ScenarioGenerator.Scenario scenario;
+        public String pluginId;
+
+        public Task() {}
+
+        public static Task scenario(String key, ScenarioGenerator.Scenario s) {
+            Task t = new Task();
+            t.kind = SCENARIO;
+            t.key = key;
+            t.scenario = s;
+            return t;
+        }
+
+        public static Task plugin(String pluginId) {
+            Task t = new Task();
+            t.kind = PLUGIN;
+            t.key = PLUGIN + ":" + pluginId;
+            t.pluginId = pluginId;
+            return t;
+        }
+    }
+
+    /**
+     * Результат задачи
+     */
+    public static class TaskResult {
+        public String key;
+        public boolean completed;   // false - ответ не получен, задача не должна считаться выполненной
+        public List<Finding> findings = new ArrayList<>();
+        public List<String> behaviours = new ArrayList<>(); // Сигнатуры ответов сценария для планировщика
+
+        public TaskResult() {}
+
+        public TaskResult(String key, boolean completed, List<Finding> findings) {
+            this.key = key;
+            this.completed = completed;
+            this.findings = new ArrayList<>(findings);
+        }
+    }
+
+    /**
+     * Шард - группа задач, которую исполнитель забирает целиком
+     */
+    public static class Shard {
+        public String jobId;
+        public String id;
+        public List<Task> tasks = new ArrayList<>();
+
+        @JsonIgnore
+        Path claimedFile;       // Файл в claimed/, пока шард выполняется
+
+        public Shard() {}
+    }
+
+    /**
+     * Результаты задач шарда
+     */
+    public static class ShardResult {
+        public String jobId;
+        public String shardId;
+        public String worker;
+        public List<TaskResult> results = new ArrayList<>();
+
+        public ShardResult() {}
+    }
+
+    private final Path dir;
+    private final Path pending;
+    private final Path claimed;
+    private final Path done;
+    private final Path tmp;
+
+    private WorkQueue(Path dir) throws IOException {
+        this.dir = dir;
+        this.pending = dir.resolve("pending");
+        this.claimed = dir.resolve("claimed");
+        this.done = dir.resolve("done");
+        this.tmp = dir.resolve("tmp");
+        for (Path p : List.of(pending, claimed, done, tmp)) Files.createDirectories(p);
+    }
+
+    /**
+     * Создает пустую очередь для нового задания (координатор): файлы прошлого задания удаляются
+     */
+    public static WorkQueue create(Path dir) throws IOException {
+        WorkQueue q = new WorkQueue(dir);
+        Files.deleteIfExists(q.closedMarker());
+        Files.deleteIfExists(q.jobFile());
+        Files.deleteIfExists(q.specFile());
+        for (Path p : List.of(q.pending, q.claimed, q.done, q.tmp)) {
+            for (Path f : list(p)) Files.deleteIfExists(f);
+        }
+        return q;
+    }
+
+    /**
+     * Открывает очередь существующего каталога (исполнитель)
+     */
+    public static WorkQueue open(Path dir) throws IOException {
+        return new WorkQueue(dir);
+    }
+
+    public Path dir() { return dir; }
+    private Path jobFile() { return dir.resolve("job.json"); }
+    public Path specFile() { return dir.resolve("spec.json"); }
+    private Path closedMarker() { return dir.resolve("closed"); }
+
+    /**
+     * Публикует задание и спецификацию (с подставленными $ref) для исполнителей
+     */
+    public void writeJob(Job job, JsonNode spec) throws IOException {
+        writeAtomically(specFile(), spec);
+        writeAtomically(jobFile(), job);
+    }
+
+    /**
+     * @return задание или null, если координатор его еще не опубликовал
+     */
+    public Job readJob() throws IOException {
+        if (!Files.exists(jobFile())) return null;
+        return OM.readValue(jobFile().toFile(), Job.class);
+    }
+
+    /**
+     * Добавляет шард в очередь
+     */
+    public void enqueue(Shard shard) throws IOException {
+        writeAtomically(pending.resolve(shard.id + ".json"), shard);
+    }
+
+    /**
+     * Забирает первый свободный шард
+     * @param workerId идентификатор исполнителя (часть имени файла в claimed/)
+     * @return шард или null, если свободных шардов нет
+     */
+    public Shard claim(String workerId) throws IOException {
+        for (Path f : list(pending)) {
+            String name = f.getFileName().toString();
+            Path target = claimed.resolve(name + "#" + workerId);
+            try {
+                // Время захвата - для возврата зависших шардов. Ставится до переноса: файл появляется
+                // в claimed/ уже со свежим временем, и координатор не может принять только что
+                // захваченный шард за зависший
+                Files.setLastModifiedTime(f, FileTime.from(Instant.now()));
+                Files.move(f, target, StandardCopyOption.ATOMIC_MOVE);
+                Shard shard = OM.readValue(Files.readAllBytes(target), Shard.class);
+                shard.claimedFile = target;
+                return shard;
+            } catch (NoSuchFileException e) {
+                // Шард забрал другой исполнитель или координатор успел вернуть его в очередь
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Публикует результаты шарда и освобождает его
+     */
+    public void complete(Shard shard, ShardResult result) throws IOException {
+        writeAtomically(done.resolve(shard.id + ".json"), result);
+        if (shard.claimedFile != null) Files.deleteIfExists(shard.claimedFile);
+    }
+
+    /**
+     * Возвращает шард в очередь без результатов (исполнитель останавливается)
+     */
+    public void release(Shard shard) throws IOException {
+        if (shard.claimedFile == null) return;
+        try {
+            Files.move(shard.claimedFile, pending.resolve(shard.id + ".json"), StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException ignore) {
+            // Шард уже возвращен координатором
+        }
+    }
+
+    /**
+     * Читает результаты шардов, которые еще не были прочитаны
+     * @param seen id уже прочитанных шардов (дополняется)
+     */
+    public List<ShardResult> collect(Set<String> seen) throws IOException {
+        List<ShardResult> out = new ArrayList<>();
+        for (Path f : list(done)) {
+            String id = stripJson(f.getFileName().toString());
+            if (seen.contains(id)) continue;
+            out.add(OM.readValue(f.toFile(), ShardResult.class));
+            seen.add(id);
+        }
+        return out;
+    }
+
+    /**
+     * Возвращает в очередь шарды, захваченные дольше таймаута
+     * @return количество возвращенных шардов
+     */
+    public int requeueStale(Duration timeout) throws IOException {
+        int requeued = 0;
+        Instant deadline = Instant.now().minus(timeout);
+        for (Path f : list(claimed)) {
+            String name = f.getFileName().toString();
+            String shardFile = name.substring(0, name.lastIndexOf('#'));
+            try {
+                if (Files.getLastModifiedTime(f).toInstant().isAfter(deadline)) continue;
+                if (Files.exists(done.resolve(shardFile))) {
+                    Files.deleteIfExists(f);
+                    continue;
+                }
+                Files.move(f, pending.resolve(shardFile), StandardCopyOption.ATOMIC_MOVE);
+                requeued++;
+            } catch (NoSuchFileException ignore) {
+                // Исполнитель успел завершить шард
+            }
+        }
+        return requeued;
+    }
+
+    public int pendingCount() throws IOException { return list(pending).size(); }
+    public int claimedCount() throws IOException { return list(claimed).size(); }
+
+    /**
+     * Отмечает завершение задания: исполнители выходят, когда очередь пуста
+     */
+    public void close() throws IOException {
+        if (!Files.exists(closedMarker())) Files.createFile(closedMarker());
+    }
+
+    public boolean isClosed() {
+        return Files.exists(closedMarker());
+    }
+
+    private void writeAtomically(Path target, Object value) throws IOException {
+        Path t = tmp.resolve(target.getFileName() + "." + UUID.randomUUID());
+        OM.writeValue(t.toFile(), value);
+        Files.move(t, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            List<Path> out = new ArrayList<>();
+            s.forEach(out::add);
+            out.sort(Comparator.comparing(p -> p.getFileName().toString()));
+            return out;
+        }
+    }
+
+    private static String stripJson(String name) {
+        return name.endsWith(".json") ? name.substring(0, name.length() - 5) : name;
+    }
+}
@@ -1,5 +1,6 @@
 package securityscanner.report;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.lowagie.text.*;
@@ -7,6 +8,9 @@ import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfWriter;
 import securityscanner.core.model.Finding;
+import securityscanner.http.ScanBudget;
+import securityscanner.metrics.PluginProfile;
+import securityscanner.metrics.ScanMetrics;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -27,9 +31,17 @@ import java.util.Set;
  */
 public class ReportWriter {
 
+    private static final int MAX_SKIPPED_IN_PDF = 100;
+
     private final ObjectMapper om = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
     private String reportsDir = "reports";
 
+    /**
+     * Задает каталог для отчетов (по умолчанию reports)
+     */
+    public void setReportsDir(String reportsDir) { this.reportsDir = reportsDir; }
+    public String getReportsDir() { return reportsDir; }
+
     /**
      * Мета-информация для отчета
      */
@@ -41,6 +53,9 @@ public class ReportWriter {
         public String bankName;
         public String scannerVersion = "1.0";
         public ScanSummary summary;
+        public java.util.List<PluginProfile> performance = new ArrayList<>();
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public ScanBudget.Report budget;   // Только при --time-budget / --max-requests
 
         public Meta() {}
     }
@@ -69,6 +84,33 @@ public class ReportWriter {
         public Report() {}
     }
 
+    /**
+     * Результат сканирования одного банка в сводном отчете (--targets)
+     */
+    public static class TargetSummary {
+        public String name;
+        public String baseUrl;
+        public String status;          // completed / failed
+        public String error;
+        public long durationSeconds;
+        public ScanSummary summary;
+        public java.util.List<String> reports = new ArrayList<>();
+
+        public TargetSummary() {}
+    }
+
+    /**
+     * Сводный отчет сканирования нескольких банков
+     */
+    public static class CombinedReport {
+        public String generatedAt;
+        public String scannerVersion = "1.0";
+        public ScanSummary total;
+        public java.util.List<TargetSummary> targets;
+
+        public CombinedReport() {}
+    }
+
     /**
      * Генерирует отчет в формата JSON
      * @param title заголовок отчета
@@ -78,6 +120,24 @@ public class ReportWriter {
      * @return файл с JSON отчетом
      */
     public File writeJson(String title, String openapi, String baseUrl, java.util.List<Finding> findings) throws Exception {
+        return writeJson(title, openapi, baseUrl, findings, java.util.List.of());
+    }
+
+    /**
+     * Генерирует отчет в формата JSON с профилями выполнения плагинов
+     * @param performance профили плагинов (meta.performance)
+     */
+    public File writeJson(String title, String openapi, String baseUrl, java.util.List<Finding> findings,
+                          java.util.List<PluginProfile> performance) throws Exception {
+        return writeJson(title, openapi, baseUrl, findings, performance, null);
+    }
+
+    /**
+     * Генерирует отчет в формата JSON с профилями плагинов и использованием бюджета сканирования
+     * @param budget бюджет и пропущенная работа (meta.budget), null - бюджет не задан
+     */
+    public File writeJson(String title, String openapi, String baseUrl, java.util.List<Finding> findings,
+                          java.util.List<PluginProfile> performance, ScanBudget.Report budget) throws Exception {
         ensureReportsDir();
         
         // Создаем сводку
@@ -93,6 +153,8 @@ public class ReportWriter {
         r.meta.generatedAt = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
         r.meta.bankName = bankName;
         r.meta.summary = summary;
+        r.meta.performance = performance;
+        r.meta.budget = budget;
         r.findings = findings;
 
         String name = generateReportName(extractBankCodeFromUrl(baseUrl), "json");
@@ -101,6 +163,51 @@ public class ReportWriter {
         return file;
     }
     
+    /**
+     * Сохраняет сводный отчет сканирования нескольких банков
+     * @param targets результаты по банкам
+     * @param findings findings всех банков (для общей сводки)
+     * @return файл со сводным отчетом
+     */
+    public File writeCombinedSummary(java.util.List<TargetSummary> targets, java.util.List<Finding> findings) throws Exception {
+        ensureReportsDir();
+
+        CombinedReport r = new CombinedReport();
+        r.generatedAt = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        r.total = createSummary(findings);
+        r.targets = targets;
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        File file = new File(reportsDir + "/MultiBank-Summary-" + timestamp + ".json");
+        om.writeValue(file, r);
+        return file;
+    }
+
+    /**
+     * Создает сводку по findings (количество по severity и категориям OWASP)
+     */
+    public ScanSummary summarize(java.util.List<Finding> findings) {
+        return createSummary(findings);
+    }
+
+    /**
+     * Сохраняет метрики запросов сканирования в JSON и в текстовом формате Prometheus
+     * @param baseUrl базовый URL API (для имени файла)
+     * @param metrics метрики сканирования
+     * @return файлы с метриками (.json и .prom)
+     */
+    public java.util.List<File> writeMetrics(String baseUrl, ScanMetrics metrics) throws Exception {
+        ensureReportsDir();
+        String bankCode = extractBankCodeFromUrl(baseUrl);
+
+        File json = new File(reportsDir + "/" + generateMetricsName(bankCode, "json"));
+        om.writeValue(json, metrics.toJson(om));
+
+        File prom = new File(reportsDir + "/" + generateMetricsName(bankCode, "prom"));
+        Files.writeString(prom.toPath(), metrics.toPrometheus());
+        return java.util.List.of(json, prom);
+    }
+
     /**
      * Создает сводку по findings с полным покрытием OWASP API Top 10
      */
@@ -172,6 +279,24 @@ public class ReportWriter {
      * @return файл с PDF отчетом
      */
     public File writePdf(String title, String openapi, String baseUrl, java.util.List<Finding> findings) throws Exception {
+        return writePdf(title, openapi, baseUrl, findings, java.util.List.of());
+    }
+
+    /**
+     * Генерирует отчет в формате PDF с разделом производительности сканера
+     * @param performance профили плагинов (пустой список - раздел не выводится)
+     */
+    public File writePdf(String title, String openapi, String baseUrl, java.util.List<Finding> findings,
+                         java.util.List<PluginProfile> performance) throws Exception {
+        return writePdf(title, openapi, baseUrl, findings, performance, null);
+    }
+
+    /**
+     * Генерирует отчет в формате PDF с разделами производительности и бюджета сканирования
+     * @param budget бюджет и пропущенная работа (null - раздел не выводится)
+     */
+    public File writePdf(String title, String openapi, String baseUrl, java.util.List<Finding> findings,
+                         java.util.List<PluginProfile> performance, ScanBudget.Report budget) throws Exception {
         ensureReportsDir();
         String name = generateReportName(extractBankCodeFromUrl(baseUrl), "pdf");
         File file = new File(reportsDir + "/" + name);
@@ -369,11 +494,89 @@ public class ReportWriter {
         doc.add(new Paragraph("• Обеспечьте правильную обработку ошибок без раскрытия информации", txt));
         doc.add(new Paragraph("• Внедрите комплексное логирование и мониторинг", txt));
         doc.add(new Paragraph("• Обновляйте зависимости и фреймворки", txt));
+
+        if (!performance.isEmpty()) {
+            doc.add(new Paragraph(" "));
+            addPerformanceSection(doc, performance, h2, h3, txt);
+        }
+        if (budget != null) {
+            doc.add(new Paragraph(" "));
+            addBudgetSection(doc, budget, h2, txt);
+        }
         
         doc.close();
         return file;
     }
 
+    /**
+     * Раздел "Scanner performance": затраты сканера по плагинам, по убыванию времени выполнения
+     */
+    private void addPerformanceSection(Document doc, java.util.List<PluginProfile> performance,
+                                       Font h2, Font h3, Font txt) {
+        doc.add(new Paragraph("Scanner performance:", h2));
+        doc.add(new Paragraph("Время сна включает паузы плагина и ожидание ограничителя частоты во всех потоках плагина", txt));
+        doc.add(new Paragraph(" "));
+
+        PdfPTable table = new PdfPTable(7);
+        table.setWidthPercentage(100);
+        table.setWidths(new float[]{30, 10, 10, 12, 12, 13, 13});
+        table.addCell(createCell("Plugin", h3));
+        table.addCell(createCell("Wall time, s", h3));
+        table.addCell(createCell("Requests", h3));
+        table.addCell(createCell("Received, KB", h3));
+        table.addCell(createCell("Sent, KB", h3));
+        table.addCell(createCell("Allocated, MB", h3));
+        table.addCell(createCell("Sleeping, s", h3));
+
+        long totalWall = 0, totalRequests = 0, totalIn = 0, totalOut = 0, totalSleep = 0;
+        for (PluginProfile p : performance) {
+            table.addCell(createCell(safe(p.pluginId) + (p.failed ? " (failed)" : ""), txt));
+            table.addCell(createCell(String.format(java.util.Locale.ROOT, "%.2f", p.wallMillis / 1000.0), txt));
+            table.addCell(createCell(String.valueOf(p.requests), txt));
+            table.addCell(createCell(String.valueOf(p.bytesIn / 1024), txt));
+            table.addCell(createCell(String.valueOf(p.bytesOut / 1024), txt));
+            table.addCell(createCell(p.allocatedBytes >= 0
+                    ? String.format(java.util.Locale.ROOT, "%.1f", p.allocatedBytes / (1024.0 * 1024)) : "n/a", txt));
+            table.addCell(createCell(String.format(java.util.Locale.ROOT, "%.2f", p.sleepMillis / 1000.0), txt));
+            totalWall += p.wallMillis;
+            totalRequests += p.requests;
+            totalIn += p.bytesIn;
+            totalOut += p.bytesOut;
+            totalSleep += p.sleepMillis;
+        }
+        doc.add(table);
+        doc.add(new Paragraph("Total plugin time: " + String.format(java.util.Locale.ROOT, "%.2f", totalWall / 1000.0)
+                + " s (plugins run in parallel), requests: " + totalRequests
+                + ", traffic: " + (totalIn + totalOut) / 1024 + " KB, sleeping: "
+                + String.format(java.util.Locale.ROOT, "%.2f", totalSleep / 1000.0) + " s", txt));
+    }
+
+    /**
+     * Раздел "Scan budget": использование бюджета и работа, не выполненная из-за него
+     */
+    private void addBudgetSection(Document doc, ScanBudget.Report budget, Font h2, Font txt) {
+        doc.add(new Paragraph("Scan budget:", h2));
+        doc.add(new Paragraph("Requests: " + budget.requestsUsed
+                + (budget.maxRequests > 0 ? " of " + budget.maxRequests : "")
+                + ", time: " + budget.elapsedSeconds + " s"
+                + (budget.timeBudgetSeconds > 0 ? " of " + budget.timeBudgetSeconds + " s" : ""), txt));
+        if (budget.exhausted != null) doc.add(new Paragraph("Budget exhausted: " + budget.exhausted, txt));
+        if (budget.skipped.isEmpty()) {
+            doc.add(new Paragraph("Все запланированные проверки выполнены", txt));
+            return;
+        }
+        doc.add(new Paragraph("Не выполнено из-за бюджета: " + budget.skippedByKind
+                + " (полный список - в JSON отчете, meta.budget.skipped)", txt));
+        int shown = 0;
+        for (ScanBudget.Skipped sk : budget.skipped) {
+            if (shown++ == MAX_SKIPPED_IN_PDF) {
+                doc.add(new Paragraph("... и еще " + (budget.skipped.size() - MAX_SKIPPED_IN_PDF), txt));
+                break;
+            }
+            doc.add(new Paragraph("• [" + sk.kind + "] " + safe(sk.item) + " - " + safe(sk.reason), txt));
+        }
+    }
+
     /**
      * Извлекает полное название банка из URL
      */
@@ -411,6 +614,14 @@ public class ReportWriter {
         return bankCode + "-SecurityReport-" + timestamp + "." + extension;
     }
 
+    /**
+     * Генерирует имя файла метрик с кодом банка и timestamp
+     */
+    private String generateMetricsName(String bankCode, String extension) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return bankCode + "-ScanMetrics-" + timestamp + "." + extension;
+    }
+
     /**
      * Создает папку reports если она не существует
      */
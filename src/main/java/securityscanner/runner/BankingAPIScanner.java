@@ -1,6 +1,7 @@
 package securityscanner.runner;
 
 import securityscanner.auditor.APISecurityAuditor;
+import securityscanner.generator.SchemaFuzzer;
 
 import java.util.*;
 
@@ -38,6 +39,28 @@ public class BankingAPIScanner {
     public static void main(String[] args) throws Exception {
         Map<String, String> p = parseArgs(args);
 
+        System.out.println("Starting Banking API Security Scanner...");
+        String targets = p.getOrDefault("targets", "");
+        if (!targets.isBlank()) {
+            // Несколько банков в одном процессе: параметры командной строки общие для всех целей
+            MultiTargetScanner.fromFile(java.nio.file.Paths.get(targets), p).run();
+            return;
+        }
+        String queueWorker = p.getOrDefault("queue-worker", "");
+        if (!queueWorker.isBlank()) {
+            // Исполнитель распределенного сканирования: задание берется из каталога очереди
+            createAuditor(p).runQueueWorker(queueWorker);
+            return;
+        }
+        createAuditor(p).run();
+    }
+
+    /**
+     * Создает и настраивает аудитор по параметрам командной строки
+     * (при сканировании нескольких банков - по параметрам одной цели)
+     * @param p параметры и их значения
+     */
+    static APISecurityAuditor createAuditor(Map<String, String> p) {
         // Парсинг параметров командной строки
         String openapi = p.getOrDefault("openapi", "");
         String baseUrl = p.getOrDefault("base-url", "");
@@ -48,6 +71,34 @@ public class BankingAPIScanner {
         String interbankClient = p.getOrDefault("client", "");               // client_id клиента для межбанка
         boolean createConsent = Boolean.parseBoolean(p.getOrDefault("create-consent", "false"));
         boolean verbose = Boolean.parseBoolean(p.getOrDefault("verbose", "false"));
+        int concurrency = Integer.parseInt(p.getOrDefault("concurrency", "1")); // параллельные сценарии
+        boolean virtualThreads = Boolean.parseBoolean(p.getOrDefault("virtual-threads", "false"));
+        int maxPerHost = Integer.parseInt(p.getOrDefault("max-per-host", "4"));
+        double rateLimit = Double.parseDouble(p.getOrDefault("rate-limit", "2"));  // начальная скорость, req/s
+        double maxRate = Double.parseDouble(p.getOrDefault("max-rate", "20"));     // потолок скорости, req/s
+        int poolSize = Integer.parseInt(p.getOrDefault("pool-size", "16"));        // простаивающие соединения
+        long keepAlive = Long.parseLong(p.getOrDefault("keep-alive", "300"));      // секунд
+        boolean http2 = Boolean.parseBoolean(p.getOrDefault("http2", "true"));
+        String resume = p.getOrDefault("resume", "");                              // id прерванного сканирования
+        boolean incremental = Boolean.parseBoolean(p.getOrDefault("incremental", "false"));
+        boolean prune = Boolean.parseBoolean(p.getOrDefault("prune-scenarios", "false"));  // классы эквивалентности
+        int fuzzBudget = Integer.parseInt(p.getOrDefault("fuzz-budget", "0"));     // fuzz тел на операцию
+        long fuzzSeed = Long.parseLong(p.getOrDefault("fuzz-seed", String.valueOf(SchemaFuzzer.DEFAULT_SEED)));
+        long timeBudget = Long.parseLong(p.getOrDefault("time-budget", "0"));     // секунд, 0 - без ограничения
+        long maxRequests = Long.parseLong(p.getOrDefault("max-requests", "0"));   // 0 - без ограничения
+        boolean budgeted = timeBudget > 0 || maxRequests > 0;
+        // С бюджетом по умолчанию порядок по покрытию: при нехватке бюджета отбрасываются менее важные сценарии
+        String schedule = p.getOrDefault("schedule", budgeted ? "coverage" : "spec");
+        if (!schedule.equals("spec") && !schedule.equals("coverage")) {
+            throw new IllegalArgumentException("--schedule must be spec or coverage: " + schedule);
+        }
+        long responseCacheTtl = Long.parseLong(p.getOrDefault("response-cache", "0")); // секунд, 0 - выключен
+        int responseCacheSize = Integer.parseInt(p.getOrDefault("response-cache-size", "512"));
+        boolean coalesce = Boolean.parseBoolean(p.getOrDefault("coalesce", "true"));       // single-flight
+        String queueDir = p.getOrDefault("queue-dir", "");                         // распределенное сканирование
+        int shardSize = Integer.parseInt(p.getOrDefault("shard-size", "20"));
+        int queueLocalWorkers = Integer.parseInt(p.getOrDefault("queue-local-workers", "1"));
+        long shardTimeout = Long.parseLong(p.getOrDefault("shard-timeout", "600"));  // секунд
 
         // Доп. заголовки: --add-header "X-Requesting-Bank:team184" (можно указать несколько раз)
         List<String> extraHeaders = new ArrayList<>();
@@ -56,14 +107,27 @@ public class BankingAPIScanner {
         }
 
         // Вывод информации о конфигурации
-        System.out.println("Starting Banking API Security Scanner...");
         System.out.println("openapi=" + openapi);
         System.out.println("base-url=" + (baseUrl.isBlank() ? "(auto from OpenAPI)" : baseUrl));
         System.out.println("auth=" + (authArg.isBlank() ? "(will resolve)" : authArg.substring(0, Math.min(authArg.length(), 16)) + "..."));
         System.out.println("client-id=" + (clientId == null ? "" : clientId));
         System.out.println("requesting-bank=" + (requestingBank == null ? "" : requestingBank));
         System.out.println("create-consent=" + createConsent);
+        System.out.println("concurrency=" + concurrency);
+        if (virtualThreads) System.out.println("virtual-threads=ON, max-per-host=" + maxPerHost);
+        System.out.println("rate-limit=" + rateLimit + " req/s (max " + maxRate + ")");
         if (!extraHeaders.isEmpty()) System.out.println("extra headers: " + extraHeaders);
+        if (!resume.isBlank()) System.out.println("resume=" + resume);
+        if (incremental) System.out.println("incremental=ON");
+        if (prune) System.out.println("prune-scenarios=ON");
+        if (fuzzBudget > 0) System.out.println("fuzz-budget=" + fuzzBudget + " per operation (seed " + fuzzSeed + ")");
+        if (schedule.equals("coverage")) System.out.println("schedule=coverage");
+        if (budgeted) System.out.println("scan budget: " + (timeBudget > 0 ? timeBudget + " s" : "no time limit")
+                + ", " + (maxRequests > 0 ? maxRequests + " requests" : "no request limit"));
+        if (!coalesce) System.out.println("coalesce=OFF");
+        if (responseCacheTtl > 0) System.out.println("response-cache=" + responseCacheTtl + "s (max " + responseCacheSize + " entries)");
+        if (!queueDir.isBlank()) System.out.println("queue-dir=" + queueDir + " (shard-size " + shardSize
+                + ", local workers " + queueLocalWorkers + ")");
         if (verbose) System.out.println("verbose=ON");
 
         // Инициализация и запуск аудитора безопасности
@@ -77,7 +141,20 @@ public class BankingAPIScanner {
         auditor.setInterbankClientId(interbankClient);
         auditor.setCreateConsent(createConsent);
         auditor.setExtraHeaders(extraHeaders);
-
-        auditor.run();
+        auditor.setConcurrency(concurrency);
+        auditor.setVirtualThreads(virtualThreads);
+        auditor.setMaxPerHost(maxPerHost);
+        auditor.setRateLimit(rateLimit, maxRate);
+        auditor.setConnectionPool(poolSize, keepAlive, http2);
+        auditor.setResumeScanId(resume);
+        auditor.setIncremental(incremental);
+        auditor.setPruneScenarios(prune);
+        auditor.setFuzzing(fuzzBudget, fuzzSeed);
+        auditor.setCoverageScheduling(schedule.equals("coverage"));
+        auditor.setScanBudget(maxRequests, timeBudget);
+        auditor.setResponseCache(responseCacheTtl, responseCacheSize);
+        auditor.setCoalesceRequests(coalesce);
+        auditor.setWorkQueue(queueDir, shardSize, queueLocalWorkers, shardTimeout);
+        return auditor;
     }
 }
\ No newline at end of file
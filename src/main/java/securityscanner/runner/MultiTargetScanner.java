@@ -0,0 +1,214 @@
+package securityscanner.runner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import securityscanner.auditor.APISecurityAuditor;
+import securityscanner.core.model.Finding;
+import securityscanner.http.HttpClientFactory;
+import securityscanner.report.ReportWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Сканирование нескольких банков в одном процессе (--targets targets.json).
+ *
+ * Файл целей - JSON массив (или объект с полем targets). Каждый элемент задает параметры
+ * командной строки для одного банка (openapi, base-url, client-id, client-secret, client,
+ * create-consent, ...) и имя цели (name). Не указанные в цели параметры берутся из командной
+ * строки. Значения вида ${VAR} подставляются из переменных окружения, поэтому секреты
+ * можно не хранить в файле.
+ *
+ * Аудиторы всех банков работают одновременно: ограничитель частоты, журнал, кэш ответов
+ * и метрики у каждого свои, пул соединений и Dispatcher общие. Отчеты банка пишутся
+ * в reports/{name}, после завершения всех целей - сводный отчет reports/MultiBank-Summary-*.json.
+ */
+public class MultiTargetScanner {
+
+    private static final Pattern ENV_VAR = Pattern.compile("\\$\\{([A-Za-z_][A-Za-z0-9_]*)}");
+    private static final String REPORTS_DIR = "reports";
+
+    private final Map<String, String> common;
+    private final List<Map<String, String>> targets;
+    private final ReportWriter reportWriter = new ReportWriter();
+
+    /**
+     * @param common общие параметры командной строки
+     * @param targets параметры целей (ключ name - имя цели)
+     */
+    MultiTargetScanner(Map<String, String> common, List<Map<String, String>> targets) {
+        if (targets.isEmpty()) throw new IllegalArgumentException("Targets file contains no targets");
+        if (!common.getOrDefault("resume", "").isBlank()) {
+            throw new IllegalArgumentException("--resume applies to a single bank; set \"resume\" for the target in the targets file");
+        }
+        this.common = common;
+        this.targets = targets;
+    }
+
+    /**
+     * Загружает цели из файла
+     * @param file JSON файл целей
+     * @param common общие параметры командной строки
+     */
+    public static MultiTargetScanner fromFile(Path file, Map<String, String> common) throws IOException {
+        return new MultiTargetScanner(common, loadTargets(file));
+    }
+
+    static List<Map<String, String>> loadTargets(Path file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file.toFile());
+        JsonNode list = root.isArray() ? root : root.path("targets");
+        if (!list.isArray()) throw new IllegalArgumentException("Targets file must be a JSON array or an object with \"targets\": " + file);
+
+        List<Map<String, String>> out = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        int index = 0;
+        for (JsonNode t : list) {
+            index++;
+            if (!t.isObject()) throw new IllegalArgumentException("Target #" + index + " is not a JSON object");
+            Map<String, String> options = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = t.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> f = fields.next();
+                if (f.getValue().isContainerNode()) {
+                    throw new IllegalArgumentException("Target #" + index + ": option \"" + f.getKey() + "\" must be a single value");
+                }
+                options.put(f.getKey(), expandEnv(f.getValue().asText()));
+            }
+            String name = options.getOrDefault("name", "");
+            if (name.isBlank()) name = defaultName(options.getOrDefault("base-url", ""), index);
+            if (!name.matches("[A-Za-z0-9._-]+")) throw new IllegalArgumentException("Invalid target name: " + name);
+            if (!names.add(name)) throw new IllegalArgumentException("Duplicate target name: " + name);
+            options.put("name", name);
+            out.add(options);
+        }
+        return out;
+    }
+
+    /**
+     * Имя цели по умолчанию - первая часть имени хоста (vbank для https://vbank.open.bankingapi.ru)
+     */
+    private static String defaultName(String baseUrl, int index) {
+        String host = baseUrl.replaceFirst("^[a-zA-Z]+://", "").replaceFirst("[:/].*$", "");
+        String first = host.contains(".") ? host.substring(0, host.indexOf('.')) : host;
+        return first.matches("[A-Za-z0-9_-]+") ? first : "target" + index;
+    }
+
+    private static String expandEnv(String value) {
+        Matcher m = ENV_VAR.matcher(value);
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            String env = System.getenv(m.group(1));
+            if (env == null) throw new IllegalArgumentException("Environment variable is not set: " + m.group(1));
+            m.appendReplacement(sb, Matcher.quoteReplacement(env));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Сканирует все цели одновременно и формирует сводный отчет
+     * @throws IllegalStateException если сканирование хотя бы одного банка завершилось ошибкой
+     */
+    public void run() throws Exception {
+        HttpClientFactory shared = new HttpClientFactory(
+                Integer.parseInt(common.getOrDefault("pool-size", "16")),
+                Long.parseLong(common.getOrDefault("keep-alive", "300")),
+                Integer.parseInt(common.getOrDefault("max-per-host", "4")),
+                Boolean.parseBoolean(common.getOrDefault("http2", "true")));
+
+        // Аудиторы настраиваются последовательно, чтобы вывод конфигурации не перемешивался
+        Map<String, APISecurityAuditor> auditors = new LinkedHashMap<>();
+        for (Map<String, String> target : targets) {
+            Map<String, String> options = new LinkedHashMap<>(common);
+            options.remove("targets");
+            options.remove("parallel-targets");
+            options.putAll(target);
+            String name = options.remove("name");
+            if (!options.getOrDefault("queue-dir", "").isBlank() && !target.containsKey("queue-dir")) {
+                // Общий каталог очереди из командной строки: у каждой цели свой подкаталог
+                options.put("queue-dir", options.get("queue-dir") + "/" + name);
+            }
+
+            System.out.println("=== Target " + name + " ===");
+            APISecurityAuditor auditor = BankingAPIScanner.createAuditor(options);
+            auditor.setHttpClientFactory(shared.derive());
+            auditor.setReportsDir(REPORTS_DIR + "/" + name);
+            auditors.put(name, auditor);
+        }
+
+        int parallel = Integer.parseInt(common.getOrDefault("parallel-targets", String.valueOf(auditors.size())));
+        parallel = Math.max(1, Math.min(parallel, auditors.size()));
+        System.out.println("Scanning " + auditors.size() + " targets, " + parallel + " at a time: " + auditors.keySet());
+
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallel, r -> {
+            Thread t = new Thread(r, "target-scan-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Map<String, Future<ReportWriter.TargetSummary>> futures = new LinkedHashMap<>();
+        try {
+            auditors.forEach((name, auditor) -> futures.put(name, pool.submit(() -> scanTarget(name, auditor))));
+
+            List<ReportWriter.TargetSummary> results = new ArrayList<>();
+            List<Finding> allFindings = new ArrayList<>();
+            for (Map.Entry<String, Future<ReportWriter.TargetSummary>> e : futures.entrySet()) {
+                results.add(e.getValue().get());
+                allFindings.addAll(auditors.get(e.getKey()).getReportedFindings());
+            }
+            report(results, allFindings);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private ReportWriter.TargetSummary scanTarget(String name, APISecurityAuditor auditor) {
+        ReportWriter.TargetSummary s = new ReportWriter.TargetSummary();
+        s.name = name;
+        long start = System.nanoTime();
+        try {
+            auditor.run();
+            s.status = "completed";
+        } catch (Exception e) {
+            s.status = "failed";
+            s.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            System.err.println("[" + name + "] Scan failed: " + s.error);
+        }
+        s.durationSeconds = (System.nanoTime() - start) / 1_000_000_000L;
+        s.baseUrl = auditor.getBaseUrl();
+        s.summary = reportWriter.summarize(auditor.getReportedFindings());
+        for (File f : auditor.getReportFiles()) s.reports.add(f.getPath());
+        return s;
+    }
+
+    private void report(List<ReportWriter.TargetSummary> results, List<Finding> allFindings) throws Exception {
+        File summaryFile = reportWriter.writeCombinedSummary(results, allFindings);
+
+        System.out.println();
+        System.out.println("=== Multi-bank scan summary ===");
+        long failed = 0;
+        for (ReportWriter.TargetSummary s : results) {
+            if ("failed".equals(s.status)) {
+                failed++;
+                System.out.printf("  %-12s failed    %5d s  %s%n", s.name, s.durationSeconds, s.error);
+            } else {
+                System.out.printf("  %-12s completed %5d s  %d findings (High %d, Medium %d, Low %d, Info %d)%n",
+                        s.name, s.durationSeconds, s.summary.totalFindings,
+                        s.summary.high, s.summary.medium, s.summary.low, s.summary.info);
+            }
+        }
+        System.out.println("Combined summary: " + summaryFile.getAbsolutePath());
+
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + results.size() + " targets failed");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package securityscanner.generator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SchemaValidatorsConfig;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fuzz тела запросов: воспроизводимость по seed, корректность IBAN и признак invalid
+ */
+class SchemaFuzzerTest {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final String OPERATION = "POST /payments";
+
+    private static JsonNode schema;
+    private static JsonNode validBody;
+
+    @BeforeAll
+    static void load() throws Exception {
+        try (InputStream in = SchemaFuzzerTest.class.getResourceAsStream("/schemas/payment-request.json")) {
+            JsonNode fixture = OM.readTree(in);
+            schema = fixture.get("schema");
+            validBody = fixture.get("validBody");
+        }
+    }
+
+    @Test
+    void sameSeedAndOperationGiveSameCases() {
+        List<SchemaFuzzer.Case> first = new SchemaFuzzer(42).cases(OPERATION, schema, validBody, 30);
+
+        // Другой экземпляр, перед этим fuzz другой операции: порядок обхода не влияет на случаи
+        SchemaFuzzer other = new SchemaFuzzer(42);
+        other.cases("PUT /payments/{id}", schema, validBody, 30);
+        List<SchemaFuzzer.Case> second = other.cases(OPERATION, schema, validBody, 30);
+
+        assertEquals(30, first.size());
+        assertEquals(describe(first), describe(second));
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).body, second.get(i).body, first.get(i).description);
+            assertEquals(first.get(i).invalid, second.get(i).invalid, first.get(i).description);
+        }
+        assertNotEquals(describe(first), describe(new SchemaFuzzer(43).cases(OPERATION, schema, validBody, 30)));
+    }
+
+    @Test
+    void validBodyIsNotModified() {
+        JsonNode before = validBody.deepCopy();
+        new SchemaFuzzer(7).cases(OPERATION, schema, validBody, 1000);
+        assertEquals(before, validBody);
+    }
+
+    @Test
+    void invalidFlagAgreesWithSchemaValidator() {
+        SchemaValidatorsConfig config = SchemaValidatorsConfig.builder().formatAssertionsEnabled(true).build();
+        JsonSchema validator = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7).getSchema(schema, config);
+
+        for (long seed = 1; seed <= 20; seed++) {
+            for (SchemaFuzzer.Case c : new SchemaFuzzer(seed).cases(OPERATION, schema, validBody, 1000)) {
+                Set<ValidationMessage> errors = validator.validate(c.body);
+                assertEquals(!errors.isEmpty(), c.invalid, "seed " + seed + ", " + c.description + ": " + errors);
+            }
+        }
+    }
+
+    @Test
+    void oversizedValuesWithinSchemaLimitsAreValid() {
+        List<SchemaFuzzer.Case> cases = new SchemaFuzzer(1).cases(OPERATION, schema, validBody, 1000);
+
+        // maxLength 20000: строка из 10000 символов допустима
+        assertFalse(find(cases, "comment: oversized string").invalid);
+        // integer без format и maximum: значение больше long допустимо
+        SchemaFuzzer.Case overflow = find(cases, "count: numeric overflow");
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), overflow.body.get("count").bigIntegerValue());
+        assertFalse(overflow.invalid);
+        assertTrue(find(cases, "reference: oversized string").invalid);
+        assertTrue(find(cases, "priority: numeric overflow").invalid);
+    }
+
+    @Test
+    void integerFormatBoundsOverflow() throws Exception {
+        JsonNode s = OM.readTree("{\"type\":\"object\",\"properties\":{"
+                + "\"a\":{\"type\":\"integer\",\"format\":\"int32\"},"
+                + "\"b\":{\"type\":\"integer\",\"format\":\"int64\"}}}");
+        JsonNode body = OM.readTree("{\"a\":1,\"b\":1}");
+        List<SchemaFuzzer.Case> cases = new SchemaFuzzer(1).cases("POST /limits", s, body, 1000);
+
+        assertTrue(find(cases, "a: numeric overflow").invalid);
+        assertTrue(find(cases, "b: numeric overflow").invalid);
+        assertFalse(find(cases, "a: negative").invalid);
+    }
+
+    @Test
+    void generatedIbansHaveExpectedCheckDigits() throws Exception {
+        JsonNode s = OM.readTree("{\"type\":\"object\",\"required\":[\"iban\"],"
+                + "\"properties\":{\"iban\":{\"type\":\"string\",\"format\":\"iban\"}}}");
+        JsonNode body = OM.readTree("{\"iban\":\"DE89370400440532013000\"}");
+        assertTrue(mod97(body.get("iban").asText()));
+
+        int valid = 0;
+        int invalid = 0;
+        for (long seed = 1; seed <= 50; seed++) {
+            for (SchemaFuzzer.Case c : new SchemaFuzzer(seed).cases("POST /transfers", s, body, 1000)) {
+                String iban = c.body.path("iban").asText();
+                if (c.description.equals("iban: valid format")) {
+                    assertTrue(iban.matches("DE\\d{20}"), iban);
+                    assertTrue(mod97(iban), iban);
+                    assertFalse(c.invalid);
+                    valid++;
+                } else if (c.description.equals("iban: invalid format")) {
+                    assertFalse(mod97(iban), iban);
+                    assertTrue(c.invalid);
+                    invalid++;
+                }
+            }
+        }
+        assertEquals(50, valid);
+        assertEquals(50, invalid);
+    }
+
+    /**
+     * Проверка контрольных цифр ISO 13616: первые 4 символа в конец, буквы -> 10..35, остаток 97 равен 1
+     */
+    private static boolean mod97(String iban) {
+        String moved = iban.substring(4) + iban.substring(0, 4);
+        StringBuilder digits = new StringBuilder();
+        for (char ch : moved.toCharArray()) digits.append(Character.getNumericValue(ch));
+        return new BigInteger(digits.toString()).mod(BigInteger.valueOf(97)).intValue() == 1;
+    }
+
+    private static SchemaFuzzer.Case find(List<SchemaFuzzer.Case> cases, String description) {
+        return cases.stream().filter(c -> c.description.equals(description)).findFirst()
+                .orElseThrow(() -> new AssertionError("no case " + description + " in " + describe(cases)));
+    }
+
+    private static List<String> describe(List<SchemaFuzzer.Case> cases) {
+        return cases.stream().map(c -> c.description).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,192 @@
+package securityscanner.http;
+
+import okhttp3.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Кэш ответов: TTL, вытеснение LRU, разделение по контексту авторизации и что не кэшируется
+ */
+class ResponseCacheTest {
+
+    private static final String BASE = "http://bank.test";
+
+    @Test
+    void repeatedTaggedGetIsServedFromCache() throws Exception {
+        ResponseCache cache = new ResponseCache(60, 10);
+        Network net = new Network(200);
+
+        assertEquals("call 1", fetch(cache, net, reuse("/accounts")));
+        assertEquals("call 1", fetch(cache, net, reuse("/accounts")));
+        assertEquals(1, net.calls);
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void entryExpiresAfterTtl() throws Exception {
+        ResponseCache cache = new ResponseCache(1, 10);
+        Network net = new Network(200);
+
+        fetch(cache, net, reuse("/accounts"));
+        Thread.sleep(1100);
+        assertEquals("call 2", fetch(cache, net, reuse("/accounts")));
+        assertEquals(2, net.calls);
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() throws Exception {
+        ResponseCache cache = new ResponseCache(60, 2);
+        Network net = new Network(200);
+
+        fetch(cache, net, reuse("/a"));
+        fetch(cache, net, reuse("/b"));
+        fetch(cache, net, reuse("/a"));          // /a использован последним
+        fetch(cache, net, reuse("/c"));          // вытесняет /b
+        assertEquals(1, cache.evictions());
+        assertEquals(2, cache.size());
+
+        int calls = net.calls;
+        fetch(cache, net, reuse("/a"));
+        assertEquals(calls, net.calls);
+        fetch(cache, net, reuse("/b"));
+        assertEquals(calls + 1, net.calls);
+        assertEquals(2, cache.evictions());
+        assertTrue(cache.summary().contains("2 evictions"), cache.summary());
+    }
+
+    @Test
+    void differentAuthorizationContextsNeverShareEntry() throws Exception {
+        ResponseCache cache = new ResponseCache(60, 100);
+        Network net = new Network(200);
+
+        Request[] requests = {
+                reuse("/accounts"),
+                with(reuse("/accounts"), "Authorization", "Bearer a"),
+                with(reuse("/accounts"), "Authorization", "Bearer b"),
+                with(with(reuse("/accounts"), "Authorization", "Bearer a"), "X-Consent-Id", "c-1"),
+                with(with(reuse("/accounts"), "Authorization", "Bearer a"), "X-Consent-Id", "c-2"),
+                with(with(reuse("/accounts"), "Authorization", "Bearer a"), "X-Requesting-Bank", "team1"),
+                // Разделитель внутри значения не склеивает разные заголовки
+                with(with(reuse("/accounts"), "Authorization", "a|b"), "X-Consent-Id", "c"),
+                with(with(reuse("/accounts"), "Authorization", "a"), "X-Consent-Id", "b|c"),
+                // Заголовок со значением "null" и пустым значением - не то же, что его отсутствие
+                with(reuse("/accounts"), "Authorization", "null"),
+                with(reuse("/accounts"), "Authorization", ""),
+        };
+        for (Request r : requests) fetch(cache, net, r);
+        assertEquals(requests.length, net.calls);
+        assertEquals(0, cache.hits());
+
+        for (int i = 0; i < requests.length; i++) {
+            assertEquals("call " + (i + 1), fetch(cache, net, requests[i]));
+        }
+        assertEquals(requests.length, cache.hits());
+    }
+
+    @Test
+    void throttledAndServerErrorResponsesAreNotStored() throws Exception {
+        for (int code : new int[]{429, 500, 503}) {
+            ResponseCache cache = new ResponseCache(60, 10);
+            Network net = new Network(code);
+            fetch(cache, net, reuse("/accounts"));
+            fetch(cache, net, reuse("/accounts"));
+            assertEquals(2, net.calls, "status " + code);
+            assertEquals(0, cache.size(), "status " + code);
+        }
+
+        // Ответ 4xx - ответ API, он кэшируется
+        ResponseCache cache = new ResponseCache(60, 10);
+        Network net = new Network(404);
+        fetch(cache, net, reuse("/missing"));
+        fetch(cache, net, reuse("/missing"));
+        assertEquals(1, net.calls);
+    }
+
+    @Test
+    void untaggedAndNonGetRequestsAlwaysGoToNetwork() throws Exception {
+        ResponseCache cache = new ResponseCache(60, 10);
+        Network net = new Network(200);
+
+        Request untagged = new Request.Builder().url(BASE + "/accounts").build();
+        fetch(cache, net, untagged);
+        fetch(cache, net, untagged);
+        fetch(cache, net, reuse("/accounts"));   // Ответы без метки не сохраняются
+        assertEquals(3, net.calls);
+
+        Request post = reuse("/accounts").newBuilder()
+                .post(RequestBody.create("{}", MediaType.get("application/json"))).build();
+        fetch(cache, net, post);
+        fetch(cache, net, post);
+        assertEquals(5, net.calls);
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    void bodyOverLimitIsNotStored() throws Exception {
+        ResponseCache cache = new ResponseCache(60, 10, 4);
+        Network net = new Network(200);
+
+        assertEquals("call 1", fetch(cache, net, reuse("/accounts")));
+        assertEquals("call 2", fetch(cache, net, reuse("/accounts")));
+        assertEquals(0, cache.size());
+    }
+
+    private static Request reuse(String path) {
+        return new Request.Builder().url(BASE + path).tag(ResponseCache.Reuse.class, ResponseCache.REUSE).build();
+    }
+
+    private static Request with(Request r, String header, String value) {
+        return r.newBuilder().header(header, value).build();
+    }
+
+    private static String fetch(ResponseCache cache, Network net, Request request) throws IOException {
+        try (Response r = cache.intercept(new FakeChain(request, net))) {
+            return r.body().string();
+        }
+    }
+
+    /**
+     * Сеть без сокетов: отвечает заданным статусом, тело - номер вызова
+     */
+    private static final class Network {
+        final int code;
+        int calls;
+
+        Network(int code) {
+            this.code = code;
+        }
+
+        Response proceed(Request request) {
+            calls++;
+            return new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(code).message("status")
+                    .body(ResponseBody.create("call " + calls, MediaType.get("application/json"))).build();
+        }
+    }
+
+    private static final class FakeChain implements Interceptor.Chain {
+        private final Request request;
+        private final Network net;
+
+        FakeChain(Request request, Network net) {
+            this.request = request;
+            this.net = net;
+        }
+
+        @Override public Request request() { return request; }
+        @Override public Response proceed(Request request) { return net.proceed(request); }
+        @Override public Connection connection() { return null; }
+        @Override public Call call() { throw new UnsupportedOperationException(); }
+        @Override public int connectTimeoutMillis() { return 0; }
+        @Override public Interceptor.Chain withConnectTimeout(int timeout, TimeUnit unit) { return this; }
+        @Override public int readTimeoutMillis() { return 0; }
+        @Override public Interceptor.Chain withReadTimeout(int timeout, TimeUnit unit) { return this; }
+        @Override public int writeTimeoutMillis() { return 0; }
+        @Override public Interceptor.Chain withWriteTimeout(int timeout, TimeUnit unit) { return this; }
+    }
+}
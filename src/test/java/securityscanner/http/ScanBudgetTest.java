@@ -0,0 +1,236 @@
+package securityscanner.http;
+
+import okhttp3.*;
+import org.junit.jupiter.api.Test;
+import securityscanner.metrics.MetricsTag;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Учет бюджета сканирования: границы этапа, доли участников, общий лимит и время
+ */
+class ScanBudgetTest {
+
+    @Test
+    void phaseLimitAndCarryOver() throws Exception {
+        ScanBudget budget = new ScanBudget(10, 0);
+        budget.start();
+        budget.startPhase("scenario", 0.6, 1);
+        FakeChain chain = new FakeChain(ScanBudget.SCENARIO);
+
+        for (int i = 0; i < 6; i++) budget.intercept(chain).close();
+        ScanBudget.ExhaustedException e = assertThrows(ScanBudget.ExhaustedException.class, () -> budget.intercept(chain));
+        assertTrue(e.getMessage().contains("scenario phase"), e.getMessage());
+        assertNotNull(budget.phaseExhaustedReason());
+        assertEquals(6, chain.proceeded);
+        assertEquals(1, budget.deniedFor(ScanBudget.SCENARIO));
+
+        // Отказ не расходует бюджет: следующему этапу достается доля от 10 - 6
+        budget.startPhase("plugin", 0.5, 1);
+        assertNull(budget.phaseExhaustedReason());
+        FakeChain plugin = new FakeChain("plugin-a");
+        budget.intercept(plugin).close();
+        budget.intercept(plugin).close();
+        assertThrows(ScanBudget.ExhaustedException.class, () -> budget.intercept(plugin));
+
+        ScanBudget.Report r = budget.report();
+        assertEquals(8, r.requestsUsed);
+        assertEquals(2, r.requestsDenied);
+        assertNull(r.exhausted);
+    }
+
+    @Test
+    void unusedPhaseBudgetGoesToNextPhase() throws Exception {
+        ScanBudget budget = new ScanBudget(10, 0);
+        budget.start();
+        budget.startPhase("scenario", 0.6, 1);
+        FakeChain chain = new FakeChain(ScanBudget.SCENARIO);
+        for (int i = 0; i < 2; i++) budget.intercept(chain).close();
+
+        budget.startPhase("probe", 1.0, 1);
+        FakeChain probe = new FakeChain(ScanBudget.PROBE);
+        for (int i = 0; i < 8; i++) budget.intercept(probe).close();
+        assertThrows(ScanBudget.ExhaustedException.class, () -> budget.intercept(probe));
+        assertEquals(10, budget.report().requestsUsed);
+    }
+
+    @Test
+    void sourceShareIsEqualPartOfRemainingPhaseBudget() throws Exception {
+        ScanBudget budget = new ScanBudget(100, 0);
+        budget.start();
+        budget.startPhase("plugin", 1.0, 3);
+
+        budget.allocate("a");                        // ceil(100 / 3) = 34
+        FakeChain a = new FakeChain("a");
+        for (int i = 0; i < 34; i++) budget.intercept(a).close();
+        ScanBudget.ExhaustedException e = assertThrows(ScanBudget.ExhaustedException.class, () -> budget.intercept(a));
+        assertTrue(e.getMessage().contains("share of a"), e.getMessage());
+        assertNull(budget.phaseExhaustedReason());
+
+        budget.allocate("b");                        // (100 - 34) / 2 = 33, используется 10
+        FakeChain b = new FakeChain("b");
+        for (int i = 0; i < 10; i++) budget.intercept(b).close();
+
+        budget.allocate("c");                        // Остаток этапа: 100 - 44 = 56
+        FakeChain c = new FakeChain("c");
+        for (int i = 0; i < 56; i++) budget.intercept(c).close();
+        assertThrows(ScanBudget.ExhaustedException.class, () -> budget.intercept(c));
+
+        assertEquals(100, budget.report().requestsUsed);
+        assertEquals(1, budget.deniedFor("a"));
+        assertEquals(0, budget.deniedFor("b"));
+    }
+
+    @Test
+    void skippedParticipantLeavesItsShareToOthers() throws Exception {
+        ScanBudget budget = new ScanBudget(100, 0);
+        budget.start();
+        budget.startPhase("plugin", 1.0, 4);
+        budget.release();                            // Пропущен до выделения доли
+        budget.release();
+
+        budget.allocate("a");                        // 100 / 2 = 50, а не 100 / 4
+        FakeChain a = new FakeChain("a");
+        for (int i = 0; i < 50; i++) budget.intercept(a).close();
+        assertThrows(ScanBudget.ExhaustedException.class, () -> budget.intercept(a));
+
+        budget.allocate("b");                        // Остаток этапа: 50
+        FakeChain b = new FakeChain("b");
+        for (int i = 0; i < 50; i++) budget.intercept(b).close();
+        assertEquals(100, budget.report().requestsUsed);
+    }
+
+    @Test
+    void concurrentRequestsDoNotExceedSourceShare() throws Exception {
+        ScanBudget budget = new ScanBudget(100, 0);
+        budget.start();
+        budget.startPhase("plugin", 1.0, 3);
+        budget.allocate("a");                        // 34
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                FakeChain chain = new FakeChain("a");
+                for (int i = 0; i < 20; i++) {
+                    try {
+                        budget.intercept(chain).close();
+                    } catch (ScanBudget.ExhaustedException ignore) {
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(34, budget.report().requestsUsed);
+        assertEquals(160 - 34, budget.deniedFor("a"));
+    }
+
+    @Test
+    void globalExhaustionStopsLaterPhases() throws Exception {
+        ScanBudget budget = new ScanBudget(5, 0);
+        budget.start();
+        budget.startPhase("scenario", 1.0, 1);
+        FakeChain chain = new FakeChain(ScanBudget.SCENARIO);
+        for (int i = 0; i < 5; i++) budget.intercept(chain).close();
+        ScanBudget.ExhaustedException e = assertThrows(ScanBudget.ExhaustedException.class, () -> budget.intercept(chain));
+        assertTrue(e.getMessage().contains("request budget of 5 used"), e.getMessage());
+
+        budget.startPhase("probe", 1.0, 1);
+        assertNotNull(budget.phaseExhaustedReason());
+        assertThrows(ScanBudget.ExhaustedException.class, () -> budget.intercept(new FakeChain(ScanBudget.PROBE)));
+        assertEquals(5, chain.proceeded);
+        assertEquals("request budget of 5 used", budget.report().exhausted);
+    }
+
+    @Test
+    void phaseDeadline() throws Exception {
+        ScanBudget budget = new ScanBudget(0, 60);
+        budget.start();
+        budget.startPhase("scenario", 1.0, 1);
+        FakeChain chain = new FakeChain(ScanBudget.SCENARIO);
+        budget.intercept(chain).close();
+
+        // Доля 0 - срок этапа уже наступил, общий бюджет времени не исчерпан
+        budget.startPhase("probe", 0.0, 1);
+        ScanBudget.ExhaustedException e = assertThrows(ScanBudget.ExhaustedException.class,
+                () -> budget.intercept(new FakeChain(ScanBudget.PROBE)));
+        assertTrue(e.getMessage().contains("time budget of probe phase"), e.getMessage());
+        assertNull(budget.report().exhausted);
+        // Запросы считаются и без лимита числа запросов
+        assertEquals(1, budget.report().requestsUsed);
+    }
+
+    @Test
+    void globalDeadline() throws Exception {
+        ScanBudget budget = new ScanBudget(0, 1);
+        budget.start();
+        budget.startPhase("scenario", 1.0, 1);
+        FakeChain chain = new FakeChain(ScanBudget.SCENARIO);
+        budget.intercept(chain).close();
+
+        Thread.sleep(1100);
+        ScanBudget.ExhaustedException e = assertThrows(ScanBudget.ExhaustedException.class, () -> budget.intercept(chain));
+        assertTrue(e.getMessage().contains("time budget of 1 s used"), e.getMessage());
+        assertEquals("time budget of 1 s used", budget.report().exhausted);
+        assertEquals(1, chain.proceeded);
+    }
+
+    @Test
+    void unlimitedBudgetPassesThrough() throws Exception {
+        ScanBudget budget = new ScanBudget(0, 0);
+        assertFalse(budget.isLimited());
+        FakeChain chain = new FakeChain(ScanBudget.SCENARIO);
+        for (int i = 0; i < 3; i++) budget.intercept(chain).close();
+        assertEquals(3, chain.proceeded);
+        assertNull(budget.report());
+    }
+
+    @Test
+    void budgetMessagesAreRecognised() {
+        assertTrue(ScanBudget.isBudgetMessage(new ScanBudget.ExhaustedException("x").getMessage()));
+        assertFalse(ScanBudget.isBudgetMessage("Connection refused"));
+        assertFalse(ScanBudget.isBudgetMessage(null));
+    }
+
+    /**
+     * Цепочка без сети: отвечает 200 и считает отправленные запросы
+     */
+    private static final class FakeChain implements Interceptor.Chain {
+        private final Request request;
+        int proceeded;
+
+        FakeChain(String source) {
+            this.request = new Request.Builder().url("http://bank.test/accounts")
+                    .tag(MetricsTag.class, new MetricsTag(source, null)).build();
+        }
+
+        @Override public Request request() { return request; }
+
+        @Override
+        public Response proceed(Request request) throws IOException {
+            proceeded++;
+            return new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(200).message("OK")
+                    .body(ResponseBody.create("", MediaType.get("application/json"))).build();
+        }
+
+        @Override public Connection connection() { return null; }
+        @Override public Call call() { throw new UnsupportedOperationException(); }
+        @Override public int connectTimeoutMillis() { return 0; }
+        @Override public Interceptor.Chain withConnectTimeout(int timeout, TimeUnit unit) { return this; }
+        @Override public int readTimeoutMillis() { return 0; }
+        @Override public Interceptor.Chain withReadTimeout(int timeout, TimeUnit unit) { return this; }
+        @Override public int writeTimeoutMillis() { return 0; }
+        @Override public Interceptor.Chain withWriteTimeout(int timeout, TimeUnit unit) { return this; }
+    }
+}
@@ -0,0 +1,248 @@
+package securityscanner.http;
+
+import okhttp3.*;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Объединение одинаковых запросов: один сетевой вызов на группу, отдельные вызовы
+ * для DISTINCT, POST, ошибки первого запроса и тела больше лимита
+ */
+class SingleFlightTest {
+
+    private static final String URL = "http://bank.test/accounts";
+    private static final int FOLLOWERS = 4;
+
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalGetsShareOneCall() throws Exception {
+        SingleFlight sf = new SingleFlight();
+        Network net = new Network(n -> ok("{\"accounts\":[]}"));
+
+        List<String> bodies = runGroup(sf, net, get());
+
+        assertEquals(1, net.calls.get());
+        assertEquals(FOLLOWERS + 1, bodies.size());
+        for (String b : bodies) assertEquals("{\"accounts\":[]}", b);
+        assertEquals(FOLLOWERS, sf.coalesced());
+    }
+
+    @Test
+    void distinctAndPostRequestsBypassCoalescing() throws Exception {
+        SingleFlight sf = new SingleFlight();
+        Network net = new Network(n -> ok("x"));
+
+        Request distinct = get().newBuilder().tag(SingleFlight.Distinct.class, SingleFlight.DISTINCT).build();
+        runGroup(sf, net, distinct);
+        assertEquals(FOLLOWERS + 1, net.calls.get());
+
+        Request post = new Request.Builder().url(URL).post(RequestBody.create("{}", MediaType.get("application/json"))).build();
+        Network postNet = new Network(n -> ok("x"));
+        runGroup(sf, postNet, post);
+        assertEquals(FOLLOWERS + 1, postNet.calls.get());
+        assertEquals(0, sf.coalesced());
+    }
+
+    @Test
+    void differentHeadersAreNotCoalesced() throws Exception {
+        SingleFlight sf = new SingleFlight();
+        Network net = new Network(n -> ok("x"));
+        Request a = get().newBuilder().header("X-Consent-Id", "c-1").build();
+        Request b = get().newBuilder().header("X-Consent-Id", "c-2").build();
+
+        Future<String> first = pool.submit(() -> call(sf, net, a));
+        Future<String> second = pool.submit(() -> call(sf, net, b));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (net.calls.get() < 2) {
+            assertTrue(System.nanoTime() < deadline, "second request did not reach the network");
+            Thread.sleep(5);
+        }
+        net.gate.countDown();
+        assertEquals("x", first.get(5, TimeUnit.SECONDS));
+        assertEquals("x", second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, net.calls.get());
+    }
+
+    @Test
+    void followersProceedAloneWhenLeaderFails() throws Exception {
+        SingleFlight sf = new SingleFlight();
+        Network net = new Network(n -> {
+            if (n == 1) throw new IOException("connection reset");
+            return ok("retry");
+        });
+
+        List<Future<String>> results = startGroup(sf, net, get());
+        net.gate.countDown();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> results.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals("connection reset", e.getCause().getMessage());
+        for (Future<String> f : results.subList(1, results.size())) assertEquals("retry", f.get(5, TimeUnit.SECONDS));
+        assertEquals(FOLLOWERS + 1, net.calls.get());
+        assertEquals(0, sf.coalesced());
+    }
+
+    @Test
+    void bodyOverLimitIsNotShared() throws Exception {
+        SingleFlight sf = new SingleFlight(4);
+        Network net = new Network(n -> ok("0123456789"));
+
+        List<String> bodies = runGroup(sf, net, get());
+
+        assertEquals(FOLLOWERS + 1, net.calls.get());
+        for (String b : bodies) assertEquals("0123456789", b);
+        assertEquals(0, sf.coalesced());
+    }
+
+    @Test
+    void leaderResponseIsClosedWhenBufferingFails() throws Exception {
+        SingleFlight sf = new SingleFlight();
+        AtomicBoolean closed = new AtomicBoolean();
+        Network net = new Network(n -> failingBody(closed));
+        net.gate.countDown();
+
+        IOException e = assertThrows(IOException.class, () -> sf.intercept(new FakeChain(get(), net)));
+        assertEquals("stream reset", e.getMessage());
+        assertTrue(closed.get());
+
+        // Ключ освобожден: следующий запрос снова идет в сеть
+        assertThrows(IOException.class, () -> sf.intercept(new FakeChain(get(), net)));
+        assertEquals(2, net.calls.get());
+    }
+
+    // ---------- вспомогательные ----------
+
+    private static Request get() {
+        return new Request.Builder().url(URL).header("Authorization", "Bearer t").build();
+    }
+
+    /**
+     * Запускает первый запрос группы, дожидается его входа в сеть, затем остальные,
+     * и открывает сеть, когда все ожидают
+     */
+    private List<String> runGroup(SingleFlight sf, Network net, Request request) throws Exception {
+        List<Future<String>> futures = startGroup(sf, net, request);
+        net.gate.countDown();
+        List<String> out = new ArrayList<>();
+        for (Future<String> f : futures) out.add(f.get(5, TimeUnit.SECONDS));
+        return out;
+    }
+
+    private List<Future<String>> startGroup(SingleFlight sf, Network net, Request request) throws Exception {
+        List<Future<String>> futures = new ArrayList<>();
+        futures.add(pool.submit(() -> call(sf, net, request)));
+        assertTrue(net.entered.await(5, TimeUnit.SECONDS));
+        List<Thread> waiting = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            futures.add(pool.submit(() -> {
+                waiting.add(Thread.currentThread());
+                return call(sf, net, request);
+            }));
+        }
+        // Ожидающие запросы заблокированы на первом (или на закрытой сети, если не объединяются)
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waiting.size() < FOLLOWERS || waiting.stream().anyMatch(t -> t.getState() != Thread.State.WAITING
+                && t.getState() != Thread.State.TIMED_WAITING)) {
+            assertTrue(System.nanoTime() < deadline, "followers did not start waiting");
+            Thread.sleep(5);
+        }
+        return futures;
+    }
+
+    private static String call(SingleFlight sf, Network net, Request request) throws IOException {
+        try (Response r = sf.intercept(new FakeChain(request, net))) {
+            return r.body().string();
+        }
+    }
+
+    private static Response ok(String body) {
+        return new Response.Builder().request(get()).protocol(Protocol.HTTP_1_1).code(200).message("OK")
+                .body(ResponseBody.create(body, MediaType.get("application/json"))).build();
+    }
+
+    /**
+     * Ответ, тело которого обрывается при чтении; закрытие тела отмечается во флаге
+     */
+    private static Response failingBody(AtomicBoolean closed) {
+        BufferedSource source = Okio.buffer(new Source() {
+            @Override public long read(Buffer sink, long byteCount) throws IOException { throw new IOException("stream reset"); }
+            @Override public Timeout timeout() { return Timeout.NONE; }
+            @Override public void close() { closed.set(true); }
+        });
+        ResponseBody body = new ResponseBody() {
+            @Override public MediaType contentType() { return MediaType.get("application/json"); }
+            @Override public long contentLength() { return -1; }
+            @Override public BufferedSource source() { return source; }
+        };
+        return new Response.Builder().request(get()).protocol(Protocol.HTTP_1_1).code(200).message("OK").body(body).build();
+    }
+
+    private interface Reply {
+        Response respond(int callNumber) throws IOException;
+    }
+
+    /**
+     * Сеть без сокетов: вызовы ждут открытия gate и считаются
+     */
+    private static final class Network {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final Reply reply;
+
+        Network(Reply reply) {
+            this.reply = reply;
+        }
+
+        Response proceed(Request request) throws IOException {
+            int n = calls.incrementAndGet();
+            entered.countDown();
+            try {
+                if (!gate.await(5, TimeUnit.SECONDS)) throw new IOException("gate timeout");
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return reply.respond(n).newBuilder().request(request).build();
+        }
+    }
+
+    private static final class FakeChain implements Interceptor.Chain {
+        private final Request request;
+        private final Network net;
+
+        FakeChain(Request request, Network net) {
+            this.request = request;
+            this.net = net;
+        }
+
+        @Override public Request request() { return request; }
+        @Override public Response proceed(Request request) throws IOException { return net.proceed(request); }
+        @Override public Connection connection() { return null; }
+        @Override public Call call() { throw new UnsupportedOperationException(); }
+        @Override public int connectTimeoutMillis() { return 0; }
+        @Override public Interceptor.Chain withConnectTimeout(int timeout, TimeUnit unit) { return this; }
+        @Override public int readTimeoutMillis() { return 0; }
+        @Override public Interceptor.Chain withReadTimeout(int timeout, TimeUnit unit) { return this; }
+        @Override public int writeTimeoutMillis() { return 0; }
+        @Override public Interceptor.Chain withWriteTimeout(int timeout, TimeUnit unit) { return this; }
+    }
+}
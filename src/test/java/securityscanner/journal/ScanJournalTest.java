@@ -0,0 +1,93 @@
+package securityscanner.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import securityscanner.core.model.Finding;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Журнал сканирования: загрузка после прерывания и отказ продолжать чужое сканирование
+ */
+class ScanJournalTest {
+
+    private static final String SPEC = "https://bank.test/openapi.json";
+    private static final String BASE = "https://bank.test";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void truncatedLastLineIsSkipped() throws Exception {
+        String scanId;
+        try (ScanJournal j = ScanJournal.create(dir, SPEC, BASE, "")) {
+            scanId = j.scanId();
+            j.recordConsent("consent-1", "approved", Instant.now().plus(Duration.ofHours(1)));
+            j.recordCompleted(ScanJournal.SCENARIO, "GET /accounts ok", List.of(finding("first")));
+            j.recordCompleted(ScanJournal.PLUGIN, "bola", List.of());
+        }
+        // Сканирование прервано посреди записи
+        Files.writeString(dir.resolve(scanId + ".jsonl"),
+                "{\"type\":\"done\",\"kind\":\"probe\",\"key\":\"/acc",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (ScanJournal j = ScanJournal.resume(dir, scanId, SPEC, BASE, "")) {
+            assertTrue(j.isResumed());
+            assertEquals(2, j.completedCount());
+            assertEquals("first", j.completed(ScanJournal.SCENARIO, "GET /accounts ok").get(0).message);
+            assertEquals(List.of(), j.completed(ScanJournal.PLUGIN, "bola"));
+            assertNull(j.completed(ScanJournal.PROBE, "/acc"));
+            assertEquals("consent-1", j.consentId());
+            assertTrue(j.isConsentApproved());
+        }
+    }
+
+    @Test
+    void resumeWithOtherScenarioSettingsIsRejected() throws Exception {
+        String scanId = created("|fuzz=8/42");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> ScanJournal.resume(dir, scanId, SPEC, BASE, "|fuzz=16/42"));
+        assertTrue(e.getMessage().contains("fuzz=8/42, now fuzz=16/42"), e.getMessage());
+        assertThrows(IllegalStateException.class, () -> ScanJournal.resume(dir, scanId, SPEC, BASE, ""));
+        ScanJournal.resume(dir, scanId, SPEC, BASE, "|fuzz=8/42").close();
+    }
+
+    @Test
+    void resumeAgainstOtherTargetIsRejected() throws Exception {
+        String scanId = created("");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> ScanJournal.resume(dir, scanId, SPEC, "https://other.test", ""));
+        assertTrue(e.getMessage().contains("https://other.test"), e.getMessage());
+        assertThrows(IllegalStateException.class,
+                () -> ScanJournal.resume(dir, scanId, "https://bank.test/openapi-v2.json", BASE, ""));
+
+        // Отказ не дописывает журнал
+        long lines = Files.readAllLines(dir.resolve(scanId + ".jsonl")).size();
+        assertEquals(1, lines);
+    }
+
+    @Test
+    void missingJournalIsRejected() {
+        assertThrows(IllegalStateException.class, () -> ScanJournal.resume(dir, "nope", SPEC, BASE, ""));
+    }
+
+    private String created(String scenarioSettings) throws Exception {
+        try (ScanJournal j = ScanJournal.create(dir, SPEC, BASE, scenarioSettings)) {
+            return j.scanId();
+        }
+    }
+
+    private static Finding finding(String message) {
+        return Finding.of("/accounts", "GET", 200, "API1:BOLA", Finding.Severity.LOW, message, "");
+    }
+}
@@ -0,0 +1,78 @@
+package securityscanner.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Арифметика корзин гистограммы задержек и перцентили
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void exactBucketsUpTo127() {
+        for (long v = 0; v < 128; v++) {
+            assertEquals(v, LatencyHistogram.indexOf(v));
+            assertEquals(v, LatencyHistogram.upperBound((int) v));
+        }
+    }
+
+    @Test
+    void boundaryValues() {
+        assertEquals(127, LatencyHistogram.indexOf(127));
+        assertEquals(128, LatencyHistogram.indexOf(128));
+        assertEquals(128, LatencyHistogram.indexOf(129));
+        assertEquals(129, LatencyHistogram.upperBound(128));
+        assertEquals(191, LatencyHistogram.indexOf(255));
+        assertEquals(255, LatencyHistogram.upperBound(191));
+        assertEquals(192, LatencyHistogram.indexOf(256));
+        assertEquals(259, LatencyHistogram.upperBound(192));
+
+        int last = LatencyHistogram.indexOf(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(last));
+        assertEquals(last, LatencyHistogram.indexOf(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    void bucketsAreContiguousAndCoverEveryValue() {
+        int last = LatencyHistogram.indexOf(Long.MAX_VALUE);
+        for (int i = 0; i < last; i++) {
+            long upper = LatencyHistogram.upperBound(i);
+            assertEquals(i, LatencyHistogram.indexOf(upper), "upper bound of bucket " + i);
+            assertEquals(i + 1, LatencyHistogram.indexOf(upper + 1), "value after bucket " + i);
+        }
+    }
+
+    @Test
+    void relativeErrorIsBounded() {
+        long[] values = {128, 129, 200, 255, 256, 1000, 4095, 4096, 123_456, 10_000_000, 1L << 40, Long.MAX_VALUE / 3};
+        for (long v : values) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.indexOf(v));
+            assertTrue(upper >= v, "bucket of " + v + " ends at " + upper);
+            assertTrue((double) (upper - v) / v <= 1.0 / 64, "bucket of " + v + " ends at " + upper);
+        }
+    }
+
+    @Test
+    void percentilesAndCumulativeCounts() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(99));
+        for (long v = 1; v <= 100; v++) h.record(v);
+        h.record(-5); // Отрицательное значение учитывается как 0
+
+        assertEquals(101, h.count());
+        assertEquals(50, h.percentile(50));
+        assertEquals(99, h.percentile(99));
+        assertEquals(100, h.percentile(100));
+        assertEquals(0, h.percentile(0));
+        assertEquals(11, h.countAtOrBelow(10));
+        assertEquals(101, h.countAtOrBelow(1000));
+        assertEquals(5050, h.sumMicros());
+
+        // Перцентиль не превышает максимум, даже если граница корзины больше
+        LatencyHistogram big = new LatencyHistogram();
+        big.record(1000);
+        assertEquals(1000, big.percentile(50));
+        assertEquals(1000, big.max());
+    }
+}
@@ -0,0 +1,82 @@
+package securityscanner.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Поиск схемы ответа: шаблоны путей, запасные статусы (2XX, default) и media type
+ */
+class OperationIndexTest {
+
+    private static JsonNode root;
+    private static OperationIndex index;
+
+    @BeforeAll
+    static void build() throws Exception {
+        root = SchemaRefResolverTest.fixture();
+        SchemaRefResolver.inlineRefs(root);
+        index = OperationIndex.build(root);
+    }
+
+    private static JsonNode schema(String name) {
+        return root.at("/components/schemas/" + name);
+    }
+
+    @Test
+    void literalPathWinsOverTemplate() {
+        assertSame(schema("Customer"), index.find("GET", "/accounts/me", 200, null));
+        assertSame(schema("Account"), index.find("GET", "/accounts/acc-1", 200, null));
+        assertSame(schema("Amount"), index.find("GET", "/accounts/acc-1/balances/b-7", 200, null));
+    }
+
+    @Test
+    void queryStringIsIgnored() {
+        assertSame(schema("Customer"), index.find("GET", "/accounts/me?client_id=team1", 200, null));
+        assertSame(schema("Account"), index.find("GET", "/accounts/acc-1?x=1&y=2", 200, null));
+    }
+
+    @Test
+    void templateParameterNeedsNonEmptySegment() {
+        assertNull(index.find("GET", "/accounts/", 200, null));
+        assertNull(index.find("GET", "/accounts/acc-1/extra", 200, null));
+        assertNull(index.find("GET", "/unknown", 200, null));
+    }
+
+    @Test
+    void statusFallsBackToRangeThenDefault() {
+        assertSame(schema("Amount"), index.find("POST", "/accounts", 201, null));
+        assertSame(schema("Error"), index.find("GET", "/accounts", 500, null));
+        assertSame(schema("Error"), index.find("POST", "/accounts", 503, null));
+        // Описанный ответ без content не переходит к default
+        assertNull(index.find("POST", "/accounts", 400, null));
+        assertNull(index.find("GET", "/accounts/me", 404, null));
+    }
+
+    @Test
+    void mediaTypeFallsBackToJson() {
+        JsonNode text = index.find("GET", "/accounts/acc-1", 200, "text/plain; charset=utf-8");
+        assertEquals("string", text.path("type").asText());
+        assertSame(schema("Account"), index.find("GET", "/accounts/acc-1", 200, "application/vnd.bank+json"));
+        assertSame(schema("Account"), index.find("GET", "/accounts/acc-1", 200, "Application/JSON;charset=UTF-8"));
+    }
+
+    @Test
+    void methodIsRespected() {
+        assertNull(index.find("DELETE", "/accounts/acc-1", 200, null));
+        assertSame(schema("Amount"), index.find("post", "/accounts", 200, null));
+        // Без метода - перебор get/post/put/delete
+        assertTrue(index.find(null, "/accounts", 200, null).path("items").isObject());
+    }
+
+    @Test
+    void resultsStayCorrectBeyondMemoCapacity() {
+        for (int i = 0; i < 10_000; i++) {
+            assertSame(schema("Account"), index.find("GET", "/accounts/acc-" + i + "?page=" + i, 200, null));
+        }
+        assertSame(schema("Customer"), index.find("GET", "/accounts/me", 200, null));
+        assertSame(schema("Account"), index.find("GET", "/accounts/acc-0", 200, null));
+    }
+}
@@ -0,0 +1,108 @@
+package securityscanner.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Подстановка $ref при загрузке: общие экземпляры схем, разрыв циклов, внешние ссылки
+ */
+class SchemaRefResolverTest {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    static JsonNode fixture() throws Exception {
+        try (InputStream in = SchemaRefResolverTest.class.getResourceAsStream("/specs/accounts-openapi.json")) {
+            return OM.readTree(in);
+        }
+    }
+
+    @Test
+    void refsAreReplacedBySharedInstances() throws Exception {
+        JsonNode root = fixture();
+        SchemaRefResolver.inlineRefs(root);
+
+        JsonNode account = root.at("/components/schemas/Account");
+        JsonNode byId = root.at("/paths/~1accounts~1{id}/get/responses/200/content/application~1json/schema");
+        JsonNode listItems = root.at("/paths/~1accounts/get/responses/200/content/application~1json/schema/items");
+        assertSame(account, byId);
+        assertSame(account, listItems);
+        assertSame(root.at("/components/schemas/Customer"), account.at("/properties/owner"));
+
+        JsonNode amount = root.at("/components/schemas/Amount");
+        assertSame(amount, account.at("/properties/balance"));
+        assertSame(amount, root.at("/paths/~1accounts/post/responses/2XX/content/application~1json/schema"));
+        assertFalse(account.has("$ref"));
+    }
+
+    @Test
+    void cyclesAreBrokenWithEmptySchema() throws Exception {
+        JsonNode root = fixture();
+        String summary = SchemaRefResolver.inlineRefs(root);
+
+        // Account -> Customer -> Account: ссылка, замыкающая цикл, заменяется схемой {}
+        JsonNode backRef = root.at("/components/schemas/Customer/properties/accounts/items");
+        assertTrue(backRef.isObject() && backRef.isEmpty(), backRef.toString());
+        // Схема ссылается сама на себя и встречается раньше любой ссылки на нее
+        JsonNode selfRef = root.at("/components/schemas/TreeNode/properties/children/items");
+        assertTrue(selfRef.isObject() && selfRef.isEmpty(), selfRef.toString());
+
+        assertTrue(summary.contains("2 cycles broken"), summary);
+        assertFinite(root);
+    }
+
+    @Test
+    void cyclesAreBrokenWhenComponentsPrecedePaths() throws Exception {
+        JsonNode source = fixture();
+        ObjectNode root = OM.createObjectNode();
+        root.set("components", source.get("components"));
+        root.set("paths", source.get("paths"));
+
+        String summary = SchemaRefResolver.inlineRefs(root);
+
+        assertTrue(summary.contains("2 cycles broken"), summary);
+        assertFinite(root);
+        JsonNode account = root.at("/components/schemas/Account");
+        assertSame(account, root.at("/paths/~1accounts~1{id}/get/responses/200/content/application~1json/schema"));
+        assertSame(root.at("/components/schemas/Customer"), account.at("/properties/owner"));
+    }
+
+    @Test
+    void refChainCycleIsBroken() throws Exception {
+        JsonNode root = OM.readTree("{\"components\":{\"schemas\":{"
+                + "\"A\":{\"$ref\":\"#/components/schemas/B\"},"
+                + "\"B\":{\"$ref\":\"#/components/schemas/A\"}}},"
+                + "\"paths\":{\"/a\":{\"get\":{\"responses\":{\"200\":{\"content\":{\"application/json\":"
+                + "{\"schema\":{\"$ref\":\"#/components/schemas/A\"}}}}}}}}}");
+
+        String summary = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> SchemaRefResolver.inlineRefs(root));
+
+        assertFalse(summary.contains(" 0 cycles broken"), summary);
+        assertFinite(root);
+    }
+
+    @Test
+    void externalAndMissingRefsAreKept() throws Exception {
+        JsonNode root = fixture();
+        String summary = SchemaRefResolver.inlineRefs(root);
+
+        JsonNode props = root.at("/paths/~1external/get/responses/200/content/application~1json/schema/properties");
+        assertEquals("common.json#/components/schemas/Remote", props.at("/remote/$ref").asText());
+        assertEquals("#/components/schemas/Missing", props.at("/missing/$ref").asText());
+        assertTrue(summary.contains("2 unresolved"), summary);
+    }
+
+    /**
+     * Дерево без циклов сериализуется; цикл в графе узлов дал бы StackOverflowError
+     */
+    private static void assertFinite(JsonNode root) {
+        assertDoesNotThrow(() -> OM.writeValueAsString(root));
+        assertDoesNotThrow(() -> new CanonicalJsonHasher().hex(root));
+    }
+}
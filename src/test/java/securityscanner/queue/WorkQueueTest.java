@@ -0,0 +1,157 @@
+package securityscanner.queue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Протокол очереди: захват шарда переименованием, возврат зависших шардов и поздние результаты.
+ * Исполнители разных процессов моделируются отдельными экземплярами {@link WorkQueue#open}.
+ */
+class WorkQueueTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shardIsClaimedByOneWorkerOnly() throws Exception {
+        WorkQueue coordinator = WorkQueue.create(dir);
+        int shards = 200;
+        for (int i = 0; i < shards; i++) coordinator.enqueue(shard(i));
+
+        WorkQueue a = WorkQueue.open(dir);
+        WorkQueue b = WorkQueue.open(dir);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        Map<String, String> owners = new ConcurrentHashMap<>();
+        List<String> duplicates = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < 8; w++) {
+            WorkQueue q = w % 2 == 0 ? a : b;
+            String worker = "w" + w;
+            futures.add(pool.submit(() -> {
+                start.await();
+                WorkQueue.Shard s;
+                while ((s = q.claim(worker)) != null) {
+                    if (owners.putIfAbsent(s.id, worker) != null) duplicates.add(s.id);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(List.of(), duplicates);
+        assertEquals(shards, owners.size());
+        assertEquals(0, coordinator.pendingCount());
+        assertEquals(shards, coordinator.claimedCount());
+    }
+
+    @Test
+    void freshClaimOfOldShardIsNotRequeued() throws Exception {
+        WorkQueue coordinator = WorkQueue.create(dir);
+        coordinator.enqueue(shard(1));
+        // Шард долго ждал в pending/: после переноса у файла осталось бы старое время
+        Path pending = dir.resolve("pending").resolve("shard-1.json");
+        Files.setLastModifiedTime(pending, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        WorkQueue.Shard s = WorkQueue.open(dir).claim("w1");
+        assertNotNull(s);
+        assertEquals(0, coordinator.requeueStale(Duration.ofMinutes(10)));
+        assertEquals(1, coordinator.claimedCount());
+    }
+
+    @Test
+    void staleShardIsRequeuedAndLateResultIsCollectedOnce() throws Exception {
+        WorkQueue coordinator = WorkQueue.create(dir);
+        coordinator.enqueue(shard(1));
+        WorkQueue slow = WorkQueue.open(dir);
+        WorkQueue fast = WorkQueue.open(dir);
+
+        WorkQueue.Shard first = slow.claim("slow");
+        makeStale(first);
+        assertEquals(1, coordinator.requeueStale(Duration.ofMinutes(10)));
+        assertEquals(1, coordinator.pendingCount());
+
+        WorkQueue.Shard second = fast.claim("fast");
+        assertNotNull(second);
+        assertEquals(first.id, second.id);
+
+        // Первый исполнитель завершает шард после возврата: захват второго не затрагивается
+        slow.complete(first, result(first, "slow"));
+        assertEquals(1, coordinator.claimedCount());
+
+        Set<String> seen = new HashSet<>();
+        List<WorkQueue.ShardResult> results = coordinator.collect(seen);
+        assertEquals(1, results.size());
+        assertEquals("slow", results.get(0).worker);
+
+        // Результат второго исполнителя заменяет файл в done/, но повторно не читается
+        fast.complete(second, result(second, "fast"));
+        assertEquals(List.of(), coordinator.collect(seen).stream().map(r -> r.worker).toList());
+        assertEquals(0, coordinator.claimedCount());
+        assertEquals(0, coordinator.pendingCount());
+    }
+
+    @Test
+    void staleClaimWithResultIsDroppedInsteadOfRequeued() throws Exception {
+        WorkQueue coordinator = WorkQueue.create(dir);
+        coordinator.enqueue(shard(1));
+        WorkQueue worker = WorkQueue.open(dir);
+
+        WorkQueue.Shard s = worker.claim("w1");
+        worker.complete(s, result(s, "w1"));
+        // Исполнитель остановлен между записью результата и удалением захвата
+        Files.write(s.claimedFile, new byte[0]);
+        makeStale(s);
+
+        assertEquals(0, coordinator.requeueStale(Duration.ofMinutes(10)));
+        assertEquals(0, coordinator.claimedCount());
+        assertEquals(0, coordinator.pendingCount());
+        assertEquals(1, coordinator.collect(new HashSet<>()).size());
+    }
+
+    @Test
+    void releasedShardReturnsToPending() throws Exception {
+        WorkQueue coordinator = WorkQueue.create(dir);
+        coordinator.enqueue(shard(1));
+        WorkQueue worker = WorkQueue.open(dir);
+
+        WorkQueue.Shard s = worker.claim("w1");
+        worker.release(s);
+        assertEquals(1, coordinator.pendingCount());
+        assertEquals(0, coordinator.claimedCount());
+        assertEquals(s.id, worker.claim("w2").id);
+    }
+
+    private static WorkQueue.Shard shard(int n) {
+        WorkQueue.Shard s = new WorkQueue.Shard();
+        s.jobId = "job";
+        s.id = "shard-" + n;
+        s.tasks.add(WorkQueue.Task.plugin("plugin-" + n));
+        return s;
+    }
+
+    private static WorkQueue.ShardResult result(WorkQueue.Shard s, String worker) {
+        WorkQueue.ShardResult r = new WorkQueue.ShardResult();
+        r.jobId = s.jobId;
+        r.shardId = s.id;
+        r.worker = worker;
+        for (WorkQueue.Task t : s.tasks) r.results.add(new WorkQueue.TaskResult(t.key, true, List.of()));
+        return r;
+    }
+
+    private static void makeStale(WorkQueue.Shard s) throws Exception {
+        Files.setLastModifiedTime(s.claimedFile, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+    }
+}